@@ -1,30 +1,44 @@
 package com.horstmann.violet.framework.file;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.GeneralSecurityException;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import com.horstmann.violet.framework.dialog.DialogFactory;
 import com.horstmann.violet.framework.file.chooser.IFileChooserService;
 import com.horstmann.violet.framework.file.export.FileExportService;
 import com.horstmann.violet.framework.file.naming.ExtensionFilter;
 import com.horstmann.violet.framework.file.naming.FileNamingService;
+import com.horstmann.violet.framework.file.persistence.EditJournal;
 import com.horstmann.violet.framework.file.persistence.IFilePersistenceService;
 import com.horstmann.violet.framework.file.persistence.IFileReader;
 import com.horstmann.violet.framework.file.persistence.IFileWriter;
-import com.horstmann.violet.framework.file.persistence.JFileWriter;
+import com.horstmann.violet.framework.file.persistence.XHTMLPersistenceService;
 import com.horstmann.violet.framework.google.drive.GoogleDriveAgent;
 import com.horstmann.violet.framework.injection.bean.ManiocFramework.BeanInjector;
 import com.horstmann.violet.framework.injection.bean.ManiocFramework.InjectedBean;
@@ -144,11 +158,15 @@ public class GraphFile implements IGraphFile
         }
         try
         {
+            waitForPendingWrite();
             IFileWriter fileSaver = getFileSaver(false);
             OutputStream outputStream = fileSaver.getOutputStream();
-            this.filePersistenceService.write(this.graph, outputStream);
+            boolean isWritten = writeGraph(outputStream);
             this.isSaveRequired = false;
-            fireGraphSaved();
+            if (isWritten)
+            {
+                fireGraphSaved();
+            }
             this.currentFilename = fileSaver.getFileDefinition().getFilename();
             this.currentDirectory = fileSaver.getFileDefinition().getDirectory();
         }
@@ -158,28 +176,263 @@ public class GraphFile implements IGraphFile
         }
     }
     
+    /**
+     * Writes the graph for a save. The XHTML persistence may draw the diagram image in background,
+     * once the XML is written. The file is then saved when this pending write is done, and the next
+     * save or upload waits for it.
+     * 
+     * @param out closed once the graph is written
+     * @return true if the file is complete, false if its end is still being written
+     */
+    private boolean writeGraph(OutputStream out)
+    {
+        if (this.filePersistenceService instanceof XHTMLPersistenceService)
+        {
+            this.pendingWrite = ((XHTMLPersistenceService) this.filePersistenceService).writeWithDeferredPreview(this.graph,
+                    out, this.previewCache, new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            SwingUtilities.invokeLater(new Runnable()
+                            {
+                                @Override
+                                public void run()
+                                {
+                                    // Not saved anymore if it has been changed meanwhile
+                                    if (!isSaveRequired)
+                                    {
+                                        fireGraphSaved();
+                                    }
+                                }
+                            });
+                        }
+                    });
+            return null == this.pendingWrite;
+        }
+        this.filePersistenceService.write(this.graph, out);
+        return true;
+    }
+
+    /**
+     * Waits for the end of the file written by the last save, so that it is never written by two
+     * saves at once nor uploaded before it is complete
+     * 
+     * @return false if this write failed
+     */
+    private boolean waitForPendingWrite()
+    {
+        if (null == this.pendingWrite)
+        {
+            return true;
+        }
+        boolean isInterrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    this.pendingWrite.get();
+                    return true;
+                }
+                catch (InterruptedException e)
+                {
+                    // The file must not be opened again before the write ends
+                    isInterrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    return false;
+                }
+            }
+        }
+        finally
+        {
+            this.pendingWrite = null;
+            if (isInterrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+	/**
+	 * Takes a snapshot of the changes recorded by the edit journal on the calling thread, which is the one
+	 * editing the graph, and appends it to the journal of the backup on a background thread. From time to
+	 * time, or when the changes are not known, the whole graph XML is taken instead and written as a new
+	 * backup, without the diagram image. Backups replace the previous one through a temporary file renamed
+	 * at the end, so that a crash never leaves a truncated backup. Nothing is done while the previous
+	 * auto save of this file is still being written.
+	 */
 	@Override
 	public void autoSave() {
+		if (!this.autoSaveFile.exists() || this.isAutoSaveRunning) {
+			return;
+		}
+		EditJournal editJournal = getEditJournal();
+		final boolean isCheckpoint = this.isAutoSaveFailed || editJournal.isCheckpointRequired();
+		final String content;
+		final byte[] document;
+		if (!isCheckpoint) {
+			content = editJournal.takeEntry();
+			document = null;
+			if (null == content) {
+				return;
+			}
+		} else if (this.filePersistenceService instanceof XHTMLPersistenceService) {
+			content = ((XHTMLPersistenceService) this.filePersistenceService).getContent(this.graph);
+			document = null;
+			editJournal.checkpointTaken();
+		} else {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			this.filePersistenceService.write(this.graph, out);
+			content = null;
+			document = out.toByteArray();
+			editJournal.checkpointTaken();
+		}
+		final String checkpointId = editJournal.getCheckpointId();
+		this.isAutoSaveRunning = true;
+		this.isAutoSaveFailed = false;
+		getAutoSaveExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (isCheckpoint) {
+						writeBackup(content, document, checkpointId);
+					} else {
+						appendToJournal(checkpointId, content);
+					}
+				} catch (Exception e) {
+					// The next auto save writes the whole graph again
+					isAutoSaveFailed = true;
+					LOGGER.log(Level.WARNING, "Unable to write backup " + autoSaveFile, e);
+				} finally {
+					isAutoSaveRunning = false;
+				}
+			}
+		});
+	}
+
+	/**
+	 * @param checkpointId id of the checkpoint which the entry follows
+	 * @param entry edit journal entry XML
+	 */
+	private void appendToJournal(String checkpointId, String entry) throws IOException {
+		synchronized (this.autoSaveLock) {
+			if (this.autoSaveFile.exists()) {
+				EditJournal.append(this.autoSaveFile, checkpointId, entry);
+			}
+		}
+	}
+
+	/**
+	 * Writes the backup in a temporary file synced to disk and moves it over the backup file
+	 * 
+	 * @param content graph XML for an XHTML document, or null
+	 * @param document whole document, used when no content is given
+	 * @param checkpointId id written at the end of the backup
+	 */
+	private void writeBackup(String content, byte[] document, String checkpointId) throws IOException {
+		File tempFile = new File(this.autoSaveFile.getPath() + TEMP_FILE_EXTENSION);
 		try {
-			if (autoSaveFile.exists()) {
-				JFileWriter jfilewriter = new JFileWriter(autoSaveFile);
-				this.filePersistenceService.write(this.graph, jfilewriter.getOutputStream());
+			OutputStream out = new SyncedFileOutputStream(tempFile, checkpointId);
+			try {
+				if (null != content) {
+					((XHTMLPersistenceService) this.filePersistenceService).writeWithoutImage(content, out);
+				} else {
+					out.write(document);
+				}
+			} finally {
+				out.close();
+			}
+			synchronized (this.autoSaveLock) {
+				// The backup is not wanted anymore if it has been removed meanwhile
+				if (this.autoSaveFile.exists()) {
+					try {
+						Files.move(tempFile.toPath(), this.autoSaveFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+								StandardCopyOption.ATOMIC_MOVE);
+					} catch (AtomicMoveNotSupportedException e) {
+						Files.move(tempFile.toPath(), this.autoSaveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+					}
+					// Left behind by a crash at this point, its entries are older than the new backup
+					EditJournal.getJournalFile(this.autoSaveFile).delete();
+				}
 			}
-		} catch (Exception e) {
-			throw new RuntimeException(e);
+		} finally {
+			tempFile.delete();
 		}
 	}
-	
+
 	@Override
 	public void removeBackup() {
-		if (autoSaveFile.exists())
-			autoSaveFile.delete();
+		synchronized (this.autoSaveLock) {
+			if (autoSaveFile.exists())
+				autoSaveFile.delete();
+			EditJournal.getJournalFile(autoSaveFile).delete();
+		}
+	}
+
+	@Override
+	public EditJournal getEditJournal() {
+		if (null == this.editJournal) {
+			this.editJournal = new EditJournal(this.graph);
+		}
+		return this.editJournal;
+	}
+
+	/**
+	 * @return single daemon thread shared by all files, so that backups never compete with each other
+	 */
+	private static synchronized Executor getAutoSaveExecutor() {
+		if (null == autoSaveExecutor) {
+			autoSaveExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "AutoSave");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+		}
+		return autoSaveExecutor;
+	}
+
+	/**
+	 * Ends the backup with its checkpoint id and makes sure that the data reached the disk before the
+	 * file is closed
+	 */
+	private static class SyncedFileOutputStream extends FileOutputStream {
+
+		public SyncedFileOutputStream(File file, String checkpointId) throws IOException {
+			super(file);
+			this.checkpointId = checkpointId;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.isClosed) {
+				this.isClosed = true;
+				EditJournal.writeCheckpointId(this, this.checkpointId);
+				getFD().sync();
+			}
+			super.close();
+		}
+
+		private final String checkpointId;
+
+		private boolean isClosed;
 	}
 
     @Override
     public void saveToGoogleDrive() throws GeneralSecurityException, IOException
     {
         save();
+        if (!waitForPendingWrite())
+        {
+            throw new IOException("Unable to write file " + currentFilename + " before its upload");
+        }
 
         final GoogleDriveAgent googleDriveAgent = new GoogleDriveAgent();
         googleDriveAgent.saveFile(String.format("%s/%s", currentDirectory, currentFilename));
@@ -196,12 +449,16 @@ public class GraphFile implements IGraphFile
                 // This appends when the action is cancelled
                 return;
             }
+            waitForPendingWrite();
             OutputStream outputStream = fileSaver.getOutputStream();
-            this.filePersistenceService.write(this.graph, outputStream);
+            boolean isWritten = writeGraph(outputStream);
             this.isSaveRequired = false;
             this.currentFilename = fileSaver.getFileDefinition().getFilename();
             this.currentDirectory = fileSaver.getFileDefinition().getDirectory();
-            fireGraphSaved();
+            if (isWritten)
+            {
+                fireGraphSaved();
+            }
         }
         catch (IOException e1)
         {
@@ -320,7 +577,14 @@ public class GraphFile implements IGraphFile
 
             try
             {
-                ImageIO.write(FileExportService.getImage(this.graph), format, out);
+                if (PNG_FORMAT.equalsIgnoreCase(format))
+                {
+                    FileExportService.exportToPng(this.graph, out);
+                }
+                else
+                {
+                    ImageIO.write(FileExportService.getImage(this.graph), format, out);
+                }
             }
             finally
             {
@@ -398,4 +662,32 @@ public class GraphFile implements IGraphFile
     private List<IGraphFileListener> listeners = new ArrayList<IGraphFileListener>();
 
     private File autoSaveFile;
+
+    private final Object autoSaveLock = new Object();
+
+    private volatile boolean isAutoSaveRunning = false;
+
+    private volatile boolean isAutoSaveFailed = false;
+
+    private EditJournal editJournal;
+
+    /** End of the file written by the last save, still being written in background */
+    private Future<?> pendingWrite;
+
+    /** Diagram image of the last save, reused while only the file name changes */
+    private final XHTMLPersistenceService.PreviewCache previewCache = new XHTMLPersistenceService.PreviewCache();
+
+    private static Executor autoSaveExecutor;
+
+    /**
+     * Extension of backups being written, which are never opened again
+     */
+    public static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    /**
+     * Image format exported without drawing the whole image at once
+     */
+    private static final String PNG_FORMAT = "png";
+
+    private static final Logger LOGGER = Logger.getLogger(GraphFile.class.getName());
 }
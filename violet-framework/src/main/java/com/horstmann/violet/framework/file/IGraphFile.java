@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.security.GeneralSecurityException;
 
+import com.horstmann.violet.framework.file.persistence.EditJournal;
 import com.horstmann.violet.product.diagram.abstracts.IGraph;
 
 public interface IGraphFile extends IFile
@@ -92,6 +93,11 @@ public interface IGraphFile extends IFile
     public abstract void autoSave();
     public abstract void removeBackup();
 
+    /**
+     * @return changes made to the graph since the last auto save
+     */
+    public EditJournal getEditJournal();
+
     /**
      * Saves file and uploads it to Google Drive
      */
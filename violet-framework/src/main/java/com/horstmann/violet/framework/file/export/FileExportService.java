@@ -30,6 +30,8 @@ import org.freehep.graphicsio.pdf.PDFGraphics2D;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
 import java.io.OutputStream;
 
 public class FileExportService
@@ -69,7 +71,55 @@ public class FileExportService
     }
 
     /**
-     * Export graph to PDF file
+     * Export graph to a PNG image. The graph is drawn band by band in a small image which is
+     * streamed to the encoder, so that memory use doesn't depend on the diagram size.
+     *
+     * @param graph
+     * @param out   output stream to file, which is not closed
+     * @throws IOException
+     */
+    public static void exportToPng(IGraph graph, OutputStream out) throws IOException
+    {
+        exportToPng(graph, 1, out);
+    }
+
+    /**
+     * Export graph to a PNG image drawn at a given scale (i.e. to get a smaller preview)
+     *
+     * @param graph
+     * @param scale image pixels per graph unit
+     * @param out   output stream to file, which is not closed
+     * @throws IOException
+     */
+    public static void exportToPng(IGraph graph, double scale, OutputStream out) throws IOException
+    {
+        Rectangle2D bounds = graph.getClipBounds();
+        int width = (int) (bounds.getWidth() * scale) + 1;
+        int height = (int) (bounds.getHeight() * scale) + 1;
+        int bandHeight = Math.max(1, Math.min(height, TILE_PIXEL_COUNT / width));
+        BufferedImage band = new BufferedImage(width, bandHeight, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) band.getRaster().getDataBuffer()).getData();
+        PngEncoder encoder = new PngEncoder(out, width, height);
+        for (int y = 0; y < height; y += bandHeight)
+        {
+            int rowCount = Math.min(bandHeight, height - y);
+            Graphics2D g2 = band.createGraphics();
+            try
+            {
+                renderTileToGraphics2D(graph, g2, 0, y, width, rowCount, scale);
+            }
+            finally
+            {
+                g2.dispose();
+            }
+            encoder.writeRows(pixels, 0, width, rowCount);
+        }
+        encoder.finish();
+    }
+
+    /**
+     * Export graph to PDF file. Graphs larger than the largest page readers can display are
+     * split on several pages.
      *
      * @param graph
      * @param out   output stream to file
@@ -78,24 +128,88 @@ public class FileExportService
     public static void exportToPdf(IGraph graph, OutputStream out)
     {
         Rectangle2D bounds = graph.getClipBounds();
+        boolean isMultiPage = bounds.getWidth() > MAX_PDF_PAGE_SIZE || bounds.getHeight() > MAX_PDF_PAGE_SIZE;
 
         UserProperties p = new UserProperties();
         p.setProperty(PDFGraphics2D.PAGE_SIZE, PDFGraphics2D.CUSTOM_PAGE_SIZE);
-        p.setProperty(PDFGraphics2D.CUSTOM_PAGE_SIZE, new Dimension((int) bounds.getWidth(), (int) bounds.getHeight()));
+        p.setProperty(PDFGraphics2D.CUSTOM_PAGE_SIZE, new Dimension((int) Math.min(bounds.getWidth(), MAX_PDF_PAGE_SIZE),
+                (int) Math.min(bounds.getHeight(), MAX_PDF_PAGE_SIZE)));
         p.setProperty(PDFGraphics2D.VERSION, PDFGraphics2D.VERSION6);
         p.setProperty(PDFGraphics2D.FIT_TO_PAGE, "false");
         p.setProperty(PDFGraphics2D.EMBED_FONTS, "true");
 
         PDFGraphics2D g = new PDFGraphics2DStringWriter(out, bounds.getBounds().getSize());
         g.setProperties(p);
+        g.setMultiPage(isMultiPage);
         g.startExport();
 
-        renderIGraphToGraphics2D(graph, g);
+        if (!isMultiPage)
+        {
+            renderIGraphToGraphics2D(graph, g);
+        }
+        else
+        {
+            int width = (int) bounds.getWidth() + 1;
+            int height = (int) bounds.getHeight() + 1;
+            try
+            {
+                for (int y = 0; y < height; y += MAX_PDF_PAGE_SIZE)
+                {
+                    for (int x = 0; x < width; x += MAX_PDF_PAGE_SIZE)
+                    {
+                        Dimension pageSize = new Dimension(Math.min(MAX_PDF_PAGE_SIZE, width - x), Math.min(MAX_PDF_PAGE_SIZE, height - y));
+                        g.openPage(pageSize, graph.getClass().getSimpleName());
+                        Graphics2D pageGraphics = (Graphics2D) g.create();
+                        renderTileToGraphics2D(graph, pageGraphics, x, y, pageSize.width, pageSize.height, 1);
+                        pageGraphics.dispose();
+                        g.closePage();
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
 
         g.endExport();
     }
 
+    /**
+     * Draws a part of the graph at the origin of the graphics. Only the elements visible in this
+     * part are drawn.
+     *
+     * @param graph
+     * @param g2
+     * @param x      left of the part, from the left of the scaled graph clip bounds
+     * @param y      top of the part, from the top of the scaled graph clip bounds
+     * @param width
+     * @param height
+     * @param scale  graphics units per graph unit
+     */
+    private static void renderTileToGraphics2D(IGraph graph, Graphics2D g2, int x, int y, int width, int height, double scale)
+    {
+        g2.clip(new Rectangle(0, 0, width, height));
+        g2.translate(-x, -y);
+        g2.scale(scale, scale);
+        Rectangle2D bounds = graph.getClipBounds();
+        Rectangle2D tile = new Rectangle2D.Double(bounds.getX() + x / scale, bounds.getY() + y / scale, width / scale,
+                height / scale);
+        renderIGraphToGraphics2D(graph, g2, tile);
+    }
+
     private static Graphics2D renderIGraphToGraphics2D(IGraph graph, Graphics2D g2)
+    {
+        return renderIGraphToGraphics2D(graph, g2, null);
+    }
+
+    /**
+     * @param graph
+     * @param g2
+     * @param clip visible area in graph coordinates, or null to draw the whole graph
+     * @return g2
+     */
+    private static Graphics2D renderIGraphToGraphics2D(IGraph graph, Graphics2D g2, Rectangle2D clip)
     {
         Rectangle2D bounds = graph.getClipBounds();
 
@@ -106,7 +220,7 @@ public class FileExportService
         g2.setColor(Color.BLACK);
         g2.setBackground(Color.WHITE);
 
-        graph.draw(g2);
+        graph.draw(g2, clip);
 
         return g2;
     }
@@ -160,4 +274,14 @@ public class FileExportService
         // }
     }
 
+    /**
+     * Pixels drawn at once by tiled exports (16 MB of RGB pixels)
+     */
+    private static final int TILE_PIXEL_COUNT = 4 * 1024 * 1024;
+
+    /**
+     * Largest PDF page size, in points, which readers are required to display (200 inches)
+     */
+    private static final int MAX_PDF_PAGE_SIZE = 14400;
+
 }
@@ -0,0 +1,201 @@
+package com.horstmann.violet.framework.file.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an RGB PNG image row by row, so that the whole image never has to be held in memory.
+ *
+ * Rows are given from top to bottom as int RGB pixels, like the ones of a TYPE_INT_RGB BufferedImage.
+ * Compressed data are written in chunks as soon as they are ready.
+ */
+public class PngEncoder
+{
+
+    /**
+     * Writes the header of the image
+     *
+     * @param out stream which is not closed by the encoder
+     * @param width
+     * @param height
+     * @throws IOException
+     */
+    public PngEncoder(OutputStream out, int width, int height) throws IOException
+    {
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        this.out = new DataOutputStream(out);
+        this.height = height;
+        this.out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(width);
+        headerOut.writeInt(height);
+        headerOut.writeByte(8); // bits per sample
+        headerOut.writeByte(2); // RGB
+        headerOut.writeByte(0); // deflate
+        headerOut.writeByte(0); // adaptive filtering
+        headerOut.writeByte(0); // no interlace
+        writeChunk("IHDR", header.toByteArray(), header.size());
+        this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        this.dataOut = new DeflaterOutputStream(new DataChunkOutputStream(), this.deflater, CHUNK_SIZE);
+        this.row = new byte[1 + 3 * width];
+        this.previousRow = new byte[this.row.length];
+    }
+
+    /**
+     * Writes the next rows of the image
+     *
+     * @param pixels RGB pixels
+     * @param offset index of the first pixel of the first row
+     * @param scanlineStride distance between the first pixels of two rows
+     * @param rowCount number of rows to write
+     * @throws IOException
+     */
+    public void writeRows(int[] pixels, int offset, int scanlineStride, int rowCount) throws IOException
+    {
+        if (this.writtenRowCount + rowCount > this.height)
+        {
+            throw new IllegalStateException("More rows than the image height " + this.height);
+        }
+        for (int r = 0; r < rowCount; r++)
+        {
+            // "Up" filter : bytes are stored as differences with the row above, which are mostly zeros in diagrams
+            this.row[0] = FILTER_UP;
+            int pixelIndex = offset + r * scanlineStride;
+            for (int i = 1; i < this.row.length; i += 3)
+            {
+                int pixel = pixels[pixelIndex++];
+                byte red = (byte) (pixel >> 16);
+                byte green = (byte) (pixel >> 8);
+                byte blue = (byte) pixel;
+                this.row[i] = (byte) (red - this.previousRow[i]);
+                this.row[i + 1] = (byte) (green - this.previousRow[i + 1]);
+                this.row[i + 2] = (byte) (blue - this.previousRow[i + 2]);
+                this.previousRow[i] = red;
+                this.previousRow[i + 1] = green;
+                this.previousRow[i + 2] = blue;
+            }
+            this.dataOut.write(this.row);
+        }
+        this.writtenRowCount += rowCount;
+    }
+
+    /**
+     * Writes the end of the image, once all its rows have been written
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException
+    {
+        if (this.writtenRowCount != this.height)
+        {
+            throw new IllegalStateException(this.writtenRowCount + " rows written instead of " + this.height);
+        }
+        this.dataOut.close();
+        this.deflater.end();
+        writeChunk("IEND", new byte[0], 0);
+        this.out.flush();
+    }
+
+    /**
+     * @param type
+     * @param data
+     * @param length
+     * @throws IOException
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException
+    {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        this.out.writeInt(length);
+        this.out.write(typeBytes);
+        this.out.write(data, 0, length);
+        this.out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Splits compressed data in IDAT chunks
+     */
+    private class DataChunkOutputStream extends OutputStream
+    {
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[]
+            {
+                    (byte) b
+            }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            while (len > 0)
+            {
+                int count = Math.min(len, this.buffer.length - this.length);
+                System.arraycopy(b, off, this.buffer, this.length, count);
+                this.length += count;
+                off += count;
+                len -= count;
+                if (this.length == this.buffer.length)
+                {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            if (this.length > 0)
+            {
+                writeChunk("IDAT", this.buffer, this.length);
+                this.length = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            flush();
+        }
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+
+        private int length;
+    }
+
+    private final DataOutputStream out;
+
+    private final int height;
+
+    private final Deflater deflater;
+
+    private final OutputStream dataOut;
+
+    private final byte[] row;
+
+    private final byte[] previousRow;
+
+    private int writtenRowCount;
+
+    private static final byte[] SIGNATURE =
+    {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+    };
+
+    private static final byte FILTER_UP = 2;
+
+    private static final int CHUNK_SIZE = 65536;
+
+}
@@ -0,0 +1,326 @@
+package com.horstmann.violet.framework.file.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.horstmann.violet.product.diagram.abstracts.Id;
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+
+/**
+ * Keeps track of the changes made to a graph so that auto saves only write what has changed.
+ *
+ * Each auto save appends one entry to a journal file next to the backup, which holds the last full
+ * copy of the graph, called a checkpoint. A new checkpoint is written from time to time, and when
+ * the graph has been changed in a way which is not tracked. Each checkpoint gets a new id, written at
+ * the end of the backup, and each entry records the id of the checkpoint it follows, so that entries
+ * left by a crash between a checkpoint and the removal of the journal are never replayed on this newer
+ * checkpoint.
+ *
+ * Changes are recorded and entries are taken on the thread which edits the graph. Entries are written
+ * and read from any thread.
+ */
+public class EditJournal
+{
+
+    /**
+     * @param graph the graph to keep track of
+     */
+    public EditJournal(IGraph graph)
+    {
+        this.graph = graph;
+    }
+
+    /**
+     * Records that a node has been added or has changed
+     *
+     * @param node
+     */
+    public void nodeChanged(INode node)
+    {
+        this.changedNodes.add(node);
+    }
+
+    /**
+     * Records that an edge has been added or has changed
+     *
+     * @param edge
+     */
+    public void edgeChanged(IEdge edge)
+    {
+        this.changedEdges.add(edge);
+    }
+
+    /**
+     * Records that a node or an edge has been removed
+     *
+     * @param id its id
+     */
+    public void elementRemoved(Id id)
+    {
+        this.removedIds.add(id);
+    }
+
+    /**
+     * Records that the graph has changed in a way which can't be described by entries (i.e. undo),
+     * so the next auto save has to write a checkpoint
+     */
+    public void graphChanged()
+    {
+        this.isCheckpointRequired = true;
+    }
+
+    /**
+     * @return true if the next auto save has to write the whole graph instead of an entry
+     */
+    public boolean isCheckpointRequired()
+    {
+        return this.isCheckpointRequired || this.entryCount >= MAX_ENTRIES;
+    }
+
+    /**
+     * Forgets all the changes recorded, as a checkpoint with the current graph is being written
+     */
+    public void checkpointTaken()
+    {
+        this.changedNodes.clear();
+        this.changedEdges.clear();
+        this.removedIds.clear();
+        this.entryCount = 0;
+        this.isCheckpointRequired = false;
+        this.checkpointId = UUID.randomUUID().toString();
+    }
+
+    /**
+     * @return the id of the last checkpoint taken, or null before the first one
+     */
+    public String getCheckpointId()
+    {
+        return this.checkpointId;
+    }
+
+    /**
+     * Takes the changes recorded since the previous entry or checkpoint
+     *
+     * @return the XML of the entry, or null if nothing has changed
+     */
+    public String takeEntry()
+    {
+        if (this.changedNodes.isEmpty() && this.changedEdges.isEmpty() && this.removedIds.isEmpty())
+        {
+            return null;
+        }
+        Map<Id, INode> changedTrees = new LinkedHashMap<Id, INode>();
+        for (INode aNode : this.changedNodes)
+        {
+            if (aNode != this.graph.findNode(aNode.getId()))
+            {
+                // Removed since
+                continue;
+            }
+            INode root = aNode;
+            while (null != root.getParent())
+            {
+                root = root.getParent();
+            }
+            changedTrees.put(root.getId(), root);
+        }
+        List<IEdge> edges = new ArrayList<IEdge>();
+        for (IEdge anEdge : this.changedEdges)
+        {
+            if (anEdge == this.graph.findEdge(anEdge.getId()))
+            {
+                edges.add(anEdge);
+            }
+        }
+        EditJournalEntry entry = new EditJournalEntry(new ArrayList<INode>(changedTrees.values()), edges, this.removedIds);
+        String content = this.persistenceService.writeJournalEntry(entry);
+        this.changedNodes.clear();
+        this.changedEdges.clear();
+        this.removedIds.clear();
+        ++this.entryCount;
+        return content;
+    }
+
+    /**
+     * @param backupFile checkpoint file
+     * @return the journal file of this checkpoint
+     */
+    public static File getJournalFile(File backupFile)
+    {
+        return new File(backupFile.getPath() + FILE_EXTENSION);
+    }
+
+    /**
+     * Ends a backup with the id of its checkpoint, in an XML comment which is ignored when the backup
+     * is read
+     *
+     * @param out backup stream, after the document
+     * @param checkpointId
+     * @throws IOException
+     */
+    public static void writeCheckpointId(OutputStream out, String checkpointId) throws IOException
+    {
+        out.write((CHECKPOINT_ID_START + checkpointId + CHECKPOINT_ID_END).getBytes(ENCODING));
+    }
+
+    /**
+     * @param backupFile checkpoint file
+     * @return the id written at the end of this file, or null if there is none
+     * @throws IOException
+     */
+    public static String readCheckpointId(File backupFile) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(backupFile, "r");
+        try
+        {
+            byte[] bytes = new byte[(int) Math.min(file.length(), CHECKPOINT_ID_MAX_LENGTH)];
+            file.seek(file.length() - bytes.length);
+            file.readFully(bytes);
+            String end = new String(bytes, ENCODING);
+            int start = end.lastIndexOf(CHECKPOINT_ID_START);
+            if (-1 == start || !end.endsWith(CHECKPOINT_ID_END))
+            {
+                return null;
+            }
+            return end.substring(start + CHECKPOINT_ID_START.length(), end.length() - CHECKPOINT_ID_END.length());
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    /**
+     * Appends an entry to the journal of a checkpoint and makes sure that it reached the disk
+     *
+     * @param backupFile checkpoint file
+     * @param checkpointId id of the checkpoint written in this file
+     * @param content entry XML
+     * @throws IOException
+     */
+    public static void append(File backupFile, String checkpointId, String content) throws IOException
+    {
+        byte[] bytes = content.getBytes(ENCODING);
+        FileOutputStream fileOut = new FileOutputStream(getJournalFile(backupFile), true);
+        try
+        {
+            DataOutputStream out = new DataOutputStream(fileOut);
+            out.writeUTF(checkpointId);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        finally
+        {
+            fileOut.close();
+        }
+    }
+
+    /**
+     * Applies to a graph read from a checkpoint the entries written after this checkpoint. An entry
+     * cut by a crash ends the journal. Nothing is applied if the backup has no checkpoint id.
+     *
+     * @param backupFile checkpoint file
+     * @param graph graph read from this file
+     * @throws IOException
+     */
+    public static void replay(File backupFile, IGraph graph) throws IOException
+    {
+        File journalFile = getJournalFile(backupFile);
+        if (!journalFile.exists())
+        {
+            return;
+        }
+        String checkpointId = readCheckpointId(backupFile);
+        if (null == checkpointId)
+        {
+            return;
+        }
+        StaxPersistenceService persistenceService = new StaxPersistenceService();
+        DataInputStream in = new DataInputStream(new FileInputStream(journalFile));
+        try
+        {
+            while (true)
+            {
+                byte[] bytes;
+                String entryCheckpointId;
+                try
+                {
+                    entryCheckpointId = in.readUTF();
+                    bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                }
+                catch (EOFException e)
+                {
+                    break;
+                }
+                if (!checkpointId.equals(entryCheckpointId))
+                {
+                    continue;
+                }
+                InputStream entryIn = new ByteArrayInputStream(bytes);
+                persistenceService.readJournalEntry(new InputStreamReader(entryIn, ENCODING)).apply(graph);
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private final IGraph graph;
+
+    private final StaxPersistenceService persistenceService = new StaxPersistenceService();
+
+    private final Set<INode> changedNodes = Collections.newSetFromMap(new IdentityHashMap<INode, Boolean>());
+
+    private final Set<IEdge> changedEdges = Collections.newSetFromMap(new IdentityHashMap<IEdge, Boolean>());
+
+    private final List<Id> removedIds = new ArrayList<Id>();
+
+    private int entryCount;
+
+    private String checkpointId;
+
+    /** True until the first checkpoint, as the backup doesn't hold the graph yet */
+    private boolean isCheckpointRequired = true;
+
+    /**
+     * Extension of journal files, added to the name of their checkpoint
+     */
+    public static final String FILE_EXTENSION = ".journal";
+
+    /** Entries written before a new checkpoint is taken */
+    private static final int MAX_ENTRIES = 30;
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final String CHECKPOINT_ID_START = "\n<!-- checkpoint ";
+
+    private static final String CHECKPOINT_ID_END = " -->\n";
+
+    /** Bytes read at the end of a backup to find its checkpoint id */
+    private static final int CHECKPOINT_ID_MAX_LENGTH = 128;
+
+}
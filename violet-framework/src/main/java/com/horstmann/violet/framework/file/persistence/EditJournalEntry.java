@@ -0,0 +1,87 @@
+package com.horstmann.violet.framework.file.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.horstmann.violet.product.diagram.abstracts.Id;
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+
+/**
+ * Changes made to a graph between two auto saves.
+ *
+ * Changed nodes are kept with the whole tree of the node they are attached to, and changed edges
+ * with the ids of their start and end nodes, so that an entry can be applied to the graph as it was
+ * after the previous entry.
+ */
+public class EditJournalEntry
+{
+
+    /**
+     * @param nodes changed nodes directly attached to the graph, with their children
+     * @param edges changed edges
+     * @param removedIds ids of the nodes and the edges removed
+     */
+    public EditJournalEntry(List<INode> nodes, List<IEdge> edges, List<Id> removedIds)
+    {
+        this.nodes = new ArrayList<INode>(nodes);
+        this.edges = new ArrayList<IEdge>(edges);
+        this.startNodeIds = new ArrayList<Id>();
+        this.endNodeIds = new ArrayList<Id>();
+        for (IEdge anEdge : edges)
+        {
+            this.startNodeIds.add(anEdge.getStartNode().getId());
+            this.endNodeIds.add(anEdge.getEndNode().getId());
+        }
+        this.removedIds = new ArrayList<Id>(removedIds);
+    }
+
+    /**
+     * Replays these changes on a graph
+     *
+     * @param graph
+     */
+    public void apply(IGraph graph)
+    {
+        for (Id anId : this.removedIds)
+        {
+            IEdge removedEdge = graph.findEdge(anId);
+            if (null != removedEdge)
+            {
+                graph.removeEdge(removedEdge);
+            }
+            INode removedNode = graph.findNode(anId);
+            if (null != removedNode)
+            {
+                graph.removeNode(removedNode);
+            }
+        }
+        graph.restoreNodes(this.nodes);
+        List<IEdge> edgesToRestore = new ArrayList<IEdge>();
+        for (int i = 0; i < this.edges.size(); ++i)
+        {
+            IEdge anEdge = this.edges.get(i);
+            INode startNode = graph.findNode(this.startNodeIds.get(i));
+            INode endNode = graph.findNode(this.endNodeIds.get(i));
+            if (null != startNode && null != endNode)
+            {
+                anEdge.setStartNode(startNode);
+                anEdge.setEndNode(endNode);
+                edgesToRestore.add(anEdge);
+            }
+        }
+        graph.restoreEdges(edgesToRestore);
+    }
+
+    private List<INode> nodes;
+
+    private List<IEdge> edges;
+
+    private List<Id> startNodeIds;
+
+    private List<Id> endNodeIds;
+
+    private List<Id> removedIds;
+
+}
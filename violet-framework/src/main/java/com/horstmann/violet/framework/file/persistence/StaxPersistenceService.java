@@ -0,0 +1,134 @@
+package com.horstmann.violet.framework.file.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import com.horstmann.violet.framework.injection.bean.ManiocFramework.ManagedBean;
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+import com.horstmann.violet.product.diagram.abstracts.edge.AbstractEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+
+/**
+ * Streaming version of XStreamBasedPersistenceService which reads and writes exactly the same XML.
+ * 
+ * Documents are read with a StAX pull parser instead of being loaded in a DOM first and written
+ * straight to the output stream. Both services share the same configured XStream.
+ */
+@ManagedBean(registeredManually=true)
+public class StaxPersistenceService extends XStreamBasedPersistenceService {
+
+	@Override
+	public IGraph read(InputStream in) throws IOException {
+		Reader reader = new InputStreamReader(in, ENCODING);
+		try {
+			return read(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads a graph from a character stream without closing it
+	 * 
+	 * @param reader
+	 * @return the graph
+	 */
+	public IGraph read(Reader reader) {
+		HierarchicalStreamReader xmlReader = STAX_DRIVER.createReader(reader);
+		IGraph graph = (IGraph) getXStream().unmarshal(xmlReader);
+		xmlReader.close();
+		for (INode aNode : graph.getAllNodes()) {
+			aNode.setGraph(graph);
+		}
+		graph.deserializeSupport();
+		return graph;
+	}
+
+	@Override
+	public void write(IGraph graph, OutputStream out) {
+		try {
+			Writer writer = new OutputStreamWriter(out, ENCODING);
+			write(graph, writer);
+			writer.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Writes a graph to a character stream, which is flushed but left open
+	 * 
+	 * @param graph
+	 * @param writer
+	 */
+	public void write(IGraph graph, Writer writer) {
+		HierarchicalStreamWriter xmlWriter = new PrettyPrintWriter(writer);
+		getXStream().marshal(graph, xmlWriter);
+		xmlWriter.flush();
+	}
+
+	/**
+	 * Writes an edit journal entry. Edges are written without their start and end nodes, which the
+	 * entry keeps as ids, so that only the elements which have changed are written.
+	 * 
+	 * @param entry
+	 * @return the entry XML
+	 */
+	public String writeJournalEntry(EditJournalEntry entry) {
+		StringWriter writer = new StringWriter();
+		HierarchicalStreamWriter xmlWriter = new PrettyPrintWriter(writer);
+		getJournalXStream().marshal(entry, xmlWriter);
+		xmlWriter.flush();
+		return writer.toString();
+	}
+
+	/**
+	 * @param reader
+	 * @return the entry read, which still has to be applied to a graph
+	 */
+	public EditJournalEntry readJournalEntry(Reader reader) {
+		HierarchicalStreamReader xmlReader = STAX_DRIVER.createReader(reader);
+		EditJournalEntry entry = (EditJournalEntry) getJournalXStream().unmarshal(xmlReader);
+		xmlReader.close();
+		return entry;
+	}
+
+	/**
+	 * @return XStream configured like the shared one, which also leaves out edge nodes
+	 */
+	private XStream getJournalXStream() {
+		synchronized (XStreamBasedPersistenceService.class) {
+			int revision = this.pluginRegistry.getRevision();
+			if (null == cachedJournalXStream || revision != cachedJournalRevision) {
+				cachedJournalXStream = getConfiguredXStream(new XStream(STAX_DRIVER));
+				cachedJournalXStream.alias("EditJournalEntry", EditJournalEntry.class);
+				cachedJournalXStream.omitField(AbstractEdge.class, "startNode");
+				cachedJournalXStream.omitField(AbstractEdge.class, "endNode");
+				cachedJournalRevision = revision;
+			}
+			return cachedJournalXStream;
+		}
+	}
+
+	private static final StaxDriver STAX_DRIVER = new StaxDriver();
+
+	/** Same as the DOM driver of the other XStream services */
+	private static final String ENCODING = "UTF-8";
+
+	/** XStream configured for the registry revision cachedJournalRevision, which leaves out edge nodes */
+	private static XStream cachedJournalXStream;
+
+	private static int cachedJournalRevision;
+
+}
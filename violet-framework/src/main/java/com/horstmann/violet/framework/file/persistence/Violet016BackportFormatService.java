@@ -22,20 +22,21 @@
 package com.horstmann.violet.framework.file.persistence;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.HashMap;
-import java.util.Hashtable;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
 
 import com.horstmann.violet.product.diagram.property.ArrowheadChoiceList;
 import com.horstmann.violet.product.diagram.property.BentStyleChoiceList;
 import com.horstmann.violet.product.diagram.property.LineStyleChoiceList;
+import com.horstmann.violet.framework.util.MultiStringReplacer;
 import com.horstmann.violet.framework.util.StringFilterOutputStream;
 import com.horstmann.violet.product.diagram.common.node.DiagramLinkNode;
 import com.horstmann.violet.product.diagram.common.edge.NoteEdge;
@@ -59,55 +60,15 @@ public class Violet016BackportFormatService
      */
     public static InputStream convertFromViolet016(InputStream in)
     {
-
-        Map<String, String> replaceMap = new Hashtable<String, String>();
-        replaceMap.putAll(violet016CompatibilityMap);
-
-        // fix framework elements
-        replaceMap.put("com.horstmann.violet.BentStyleChoiceList", BentStyleChoiceList.class.getName());
-        replaceMap.put("com.horstmann.violet.LineStyleChoiceList", LineStyleChoiceList.class.getName());
-        replaceMap.put("com.horstmann.violet.ArrowheadChoiceList", ArrowheadChoiceList.class.getName());
-
-        // fix common elements package
-        replaceMap.put("com.horstmann.violet.DiagramLinkNode", DiagramLinkNode.class.getName());
-        replaceMap.put("com.horstmann.violet.NoteEdge", NoteEdge.class.getName());
-        replaceMap.put("com.horstmann.violet.NoteNode", NoteNode.class.getName());
-        replaceMap.put("com.horstmann.violet.PointNode", PointNode.class.getName());
-
-        String original = getInputStreamContent(in);
-        String replaced = replaceAll(original, replaceMap);
         try
         {
-            return new ByteArrayInputStream(replaced.getBytes("UTF-8"));
-        }
-        catch (UnsupportedEncodingException ex)
-        {
-            ex.printStackTrace();
-            return new ByteArrayInputStream(replaced.getBytes());
-        }
-    }
-
-    /**
-     * Converts inputStream to String
-     * 
-     * @param in stream
-     * @return string
-     */
-    private static String getInputStreamContent(InputStream in)
-    {
-        try
-        {
-            InputStreamReader isr = new InputStreamReader(in, "UTF-8");
-            StringBuffer buffer = new StringBuffer();
-            int len = 1024;
-            char buf[] = new char[len];
-            int numRead;
-            while ((numRead = isr.read(buf, 0, len)) != -1)
-            {
-                buffer.append(buf, 0, numRead);
-            }
-            isr.close();
-            return buffer.toString();
+            Reader reader = new InputStreamReader(in, ENCODING);
+            ByteArrayOutputStream converted = new ByteArrayOutputStream();
+            Writer writer = new OutputStreamWriter(converted, ENCODING);
+            convertFromViolet016(reader, writer);
+            reader.close();
+            writer.close();
+            return new ByteArrayInputStream(converted.toByteArray());
         }
         catch (IOException e)
         {
@@ -116,22 +77,15 @@ public class Violet016BackportFormatService
     }
 
     /**
-     * Filters a string and replaces all key courrences issed from the map by its valye
+     * Converts a Violet 0.16 document in a single pass. Neither stream is closed.
      * 
-     * @param input string
-     * @param replaceMap key = searchedString / value = replaceString
-     * @return filtered string
+     * @param in Violet 0.16 document
+     * @param out converted document
+     * @throws IOException
      */
-    private static String replaceAll(String input, Map<String, String> replaceMap)
+    public static void convertFromViolet016(Reader in, Writer out) throws IOException
     {
-        Set<String> set = replaceMap.keySet();
-        for (Iterator<String> iter = set.iterator(); iter.hasNext();)
-        {
-            String searchedStr = iter.next();
-            String replaceStr = replaceMap.get(searchedStr);
-            input = input.replaceAll(searchedStr, replaceStr);
-        }
-        return input;
+        getFromViolet016Replacer().replace(in, out);
     }
 
     /**
@@ -142,23 +96,70 @@ public class Violet016BackportFormatService
      */
     public static OutputStream convertToViolet016(OutputStream out)
     {
+        return new StringFilterOutputStream(out, getToViolet016Replacer());
+    }
 
-        Map<String, String> replaceMap = new Hashtable<String, String>();
-        replaceMap.putAll(getReversedMap(violet016CompatibilityMap));
+    /**
+     * Converts a document to the Violet 0.16 format in a single pass. Neither stream is closed.
+     * 
+     * @param in document
+     * @param out Violet 0.16 document
+     * @throws IOException
+     */
+    public static void convertToViolet016(Reader in, Writer out) throws IOException
+    {
+        getToViolet016Replacer().replace(in, out);
+    }
+
+    /**
+     * @return replacer built once from the Violet 0.16 strings to the current ones
+     */
+    private static synchronized MultiStringReplacer getFromViolet016Replacer()
+    {
+        if (fromViolet016Replacer == null)
+        {
+            Map<String, String> replaceMap = new HashMap<String, String>();
+            replaceMap.putAll(violet016CompatibilityMap);
+
+            // fix framework elements
+            replaceMap.put("com.horstmann.violet.BentStyleChoiceList", BentStyleChoiceList.class.getName());
+            replaceMap.put("com.horstmann.violet.LineStyleChoiceList", LineStyleChoiceList.class.getName());
+            replaceMap.put("com.horstmann.violet.ArrowheadChoiceList", ArrowheadChoiceList.class.getName());
 
-        // fix framework elements
-        replaceMap.put(BentStyleChoiceList.class.getName(), "com.horstmann.violet.BentStyleChoiceList");
-        replaceMap.put(LineStyleChoiceList.class.getName(), "com.horstmann.violet.LineStyleChoiceList");
-        replaceMap.put(ArrowheadChoiceList.class.getName(), "com.horstmann.violet.ArrowheadChoiceList");
-        // fix common elements package
-        replaceMap.put(DiagramLinkNode.class.getName(), "com.horstmann.violet.DiagramLinkNode");
-        replaceMap.put(NoteEdge.class.getName(), "com.horstmann.violet.NoteEdge");
-        replaceMap.put(NoteNode.class.getName(), "com.horstmann.violet.NoteNode");
-        replaceMap.put(PointNode.class.getName(), "com.horstmann.violet.PointNode");
+            // fix common elements package
+            replaceMap.put("com.horstmann.violet.DiagramLinkNode", DiagramLinkNode.class.getName());
+            replaceMap.put("com.horstmann.violet.NoteEdge", NoteEdge.class.getName());
+            replaceMap.put("com.horstmann.violet.NoteNode", NoteNode.class.getName());
+            replaceMap.put("com.horstmann.violet.PointNode", PointNode.class.getName());
 
-        StringFilterOutputStream filteredOutputStream = new StringFilterOutputStream(out, replaceMap);
-        return filteredOutputStream;
+            fromViolet016Replacer = new MultiStringReplacer(replaceMap);
+        }
+        return fromViolet016Replacer;
+    }
 
+    /**
+     * @return replacer built once from the current strings to the Violet 0.16 ones
+     */
+    private static synchronized MultiStringReplacer getToViolet016Replacer()
+    {
+        if (toViolet016Replacer == null)
+        {
+            Map<String, String> replaceMap = new HashMap<String, String>();
+            replaceMap.putAll(getReversedMap(violet016CompatibilityMap));
+
+            // fix framework elements
+            replaceMap.put(BentStyleChoiceList.class.getName(), "com.horstmann.violet.BentStyleChoiceList");
+            replaceMap.put(LineStyleChoiceList.class.getName(), "com.horstmann.violet.LineStyleChoiceList");
+            replaceMap.put(ArrowheadChoiceList.class.getName(), "com.horstmann.violet.ArrowheadChoiceList");
+            // fix common elements package
+            replaceMap.put(DiagramLinkNode.class.getName(), "com.horstmann.violet.DiagramLinkNode");
+            replaceMap.put(NoteEdge.class.getName(), "com.horstmann.violet.NoteEdge");
+            replaceMap.put(NoteNode.class.getName(), "com.horstmann.violet.NoteNode");
+            replaceMap.put(PointNode.class.getName(), "com.horstmann.violet.PointNode");
+
+            toViolet016Replacer = new MultiStringReplacer(replaceMap);
+        }
+        return toViolet016Replacer;
     }
 
     /**
@@ -167,9 +168,11 @@ public class Violet016BackportFormatService
      * 
      * @param entries
      */
-    public static void addViolet016CompatibilityEntries(Map<String, String> entries)
+    public static synchronized void addViolet016CompatibilityEntries(Map<String, String> entries)
     {
         violet016CompatibilityMap.putAll(entries);
+        fromViolet016Replacer = null;
+        toViolet016Replacer = null;
     }
 
     /**
@@ -198,4 +201,12 @@ public class Violet016BackportFormatService
      */
     private static Map<String, String> violet016CompatibilityMap = new HashMap<String, String>();
 
+    /** Built from violet016CompatibilityMap when first needed */
+    private static MultiStringReplacer fromViolet016Replacer;
+
+    /** Built from violet016CompatibilityMap when first needed */
+    private static MultiStringReplacer toViolet016Replacer;
+
+    private static final String ENCODING = "UTF-8";
+
 }
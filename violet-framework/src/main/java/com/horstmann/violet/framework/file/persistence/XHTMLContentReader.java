@@ -0,0 +1,206 @@
+package com.horstmann.violet.framework.file.persistence;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the diagram XML embedded in a Violet XHTML file.
+ *
+ * The HTML is scanned once, up to the &lt;script id="content"&gt; element, and the characters of this
+ * element are then returned as they come with their CDATA markers removed. Only a small buffer is
+ * kept in memory whatever the size of the file.
+ */
+class XHTMLContentReader extends Reader
+{
+
+    /**
+     * @param in HTML document, closed with this reader
+     */
+    public XHTMLContentReader(Reader in)
+    {
+        this.in = in;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException
+    {
+        if (!this.inContent)
+        {
+            if (this.contentEnded)
+            {
+                return -1;
+            }
+            skipToContent();
+        }
+        int count = 0;
+        while (count < len && this.inContent)
+        {
+            if (!fill(1))
+            {
+                this.inContent = false;
+                this.contentEnded = true;
+                break;
+            }
+            char c = this.buffer[this.position];
+            if ('<' == c && startsWith(CDATA_START, false))
+            {
+                this.position += CDATA_START.length();
+                continue;
+            }
+            if ('<' == c && startsWith(SCRIPT_END, true))
+            {
+                this.inContent = false;
+                this.contentEnded = true;
+                break;
+            }
+            if (']' == c && startsWith(CDATA_END, false))
+            {
+                this.position += CDATA_END.length();
+                continue;
+            }
+            cbuf[off + count] = c;
+            ++this.position;
+            ++count;
+        }
+        return (0 == count && this.contentEnded) ? -1 : count;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.in.close();
+    }
+
+    /**
+     * Moves just after the start tag of the content script
+     *
+     * @throws IOException if the document has no content script
+     */
+    private void skipToContent() throws IOException
+    {
+        while (fill(1))
+        {
+            if ('<' != this.buffer[this.position] || !startsWith(SCRIPT_START, true))
+            {
+                ++this.position;
+                continue;
+            }
+            this.position += SCRIPT_START.length();
+            String attributes = readTagAttributes();
+            if (CONTENT_ID_PATTERN.matcher(attributes).find())
+            {
+                this.inContent = true;
+                return;
+            }
+        }
+        throw new IOException("No diagram content found in this XHTML document");
+    }
+
+    /**
+     * @return the rest of the current tag, up to its closing '&gt;'
+     */
+    private String readTagAttributes() throws IOException
+    {
+        StringBuilder attributes = new StringBuilder();
+        char quote = 0;
+        while (fill(1))
+        {
+            char c = this.buffer[this.position++];
+            if (0 == quote && '>' == c)
+            {
+                break;
+            }
+            if ('"' == c || '\'' == c)
+            {
+                quote = (0 == quote) ? c : (quote == c ? 0 : quote);
+            }
+            attributes.append(c);
+        }
+        return attributes.toString();
+    }
+
+    /**
+     * @param text
+     * @param ignoreCase
+     * @return true if the unread characters start with the given text
+     */
+    private boolean startsWith(String text, boolean ignoreCase) throws IOException
+    {
+        if (!fill(text.length()))
+        {
+            return false;
+        }
+        for (int i = 0; i < text.length(); ++i)
+        {
+            char c = this.buffer[this.position + i];
+            if (ignoreCase)
+            {
+                c = Character.toLowerCase(c);
+            }
+            if (c != text.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes sure that at least count characters are available in the buffer
+     *
+     * @param count
+     * @return false if the end of the document comes before
+     */
+    private boolean fill(int count) throws IOException
+    {
+        while (this.limit - this.position < count)
+        {
+            if (this.endOfStream)
+            {
+                return false;
+            }
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+            this.limit -= this.position;
+            this.position = 0;
+            int read = this.in.read(this.buffer, this.limit, this.buffer.length - this.limit);
+            if (-1 == read)
+            {
+                this.endOfStream = true;
+            }
+            else
+            {
+                this.limit += read;
+            }
+        }
+        return true;
+    }
+
+    private final Reader in;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private boolean endOfStream;
+
+    private boolean inContent;
+
+    private boolean contentEnded;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String SCRIPT_START = "<script";
+
+    private static final String SCRIPT_END = "</script";
+
+    private static final String CDATA_START = "<![CDATA[";
+
+    private static final String CDATA_END = "]]>";
+
+    private static final Pattern CONTENT_ID_PATTERN = Pattern.compile("(^|\\s)id\\s*=\\s*[\"']?content([\"'\\s/]|$)",
+            Pattern.CASE_INSENSITIVE);
+
+}
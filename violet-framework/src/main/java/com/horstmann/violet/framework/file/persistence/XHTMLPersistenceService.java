@@ -1,20 +1,30 @@
 package com.horstmann.violet.framework.file.persistence;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
-
-import javax.imageio.ImageIO;
-import javax.swing.text.MutableAttributeSet;
-import javax.swing.text.html.HTML;
-import javax.swing.text.html.HTMLEditorKit;
+import java.math.BigInteger;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.apache.commons.codec.binary.Base64OutputStream;
 
@@ -30,8 +40,6 @@ public class XHTMLPersistenceService implements IFilePersistenceService
 
     private static final String TEMPLATE_FILE = "XHTMLFileTemplate.violet.html";
 
-    private static final String IMAGE_TYPE = "png";
-
     private static final String HTML_INLINE_IMAGE_PREFIX = "data:image/png;base64,";
 
     private static final String TEMPLATE_VERSION_KEY = "${version}";
@@ -40,157 +48,512 @@ public class XHTMLPersistenceService implements IFilePersistenceService
 
     private static final String TEMPLATE_XMLCONTENT_KEY = "${content}";
 
-    private XStreamBasedPersistenceService xstreamService = new XStreamBasedPersistenceService();
+    /**
+     * System property giving the scale of the embedded diagram image, from 0 (excluded) to 1
+     */
+    public static final String PREVIEW_SCALE_PROPERTY = "violet.preview.scale";
+
+    /**
+     * System property which, when true, lets saved documents get their diagram image on a
+     * background thread after their XML
+     */
+    public static final String PREVIEW_DEFERRED_PROPERTY = "violet.preview.deferred";
+
+    private StaxPersistenceService xstreamService = new StaxPersistenceService();
 
     @InjectedBean
     private VersionChecker versionChecker;
     
+    /**
+     * Writes the template segments, the graph XML and the base64 image one after the other
+     * straight to the output stream, so that the whole file is never held in memory.
+     */
     @Override
     public void write(IGraph graph, OutputStream out)
+    {
+        writeDocument(graph, null, Preview.NOW, out, null, null);
+    }
+
+    /**
+     * Writes a document as write() does, unless previews are deferred (see PREVIEW_DEFERRED_PROPERTY).
+     * Then, the XML is written and flushed at once, and the diagram image is drawn from a copy of the
+     * graph on a background thread, which closes the stream at the end. The graph can be edited as
+     * soon as this method returns, but the document is only complete once the returned future is
+     * done. If the application stops meanwhile, the document is left without its image but can
+     * still be read.
+     * 
+     * @param graph
+     * @param out
+     * @param previewCache image of the last document written to the same file, reused if the
+     *        document is the same up to the image
+     * @param whenWritten run on the background thread once the document is complete and closed
+     * @return the background write, or null if the document has been written at once, in which
+     *         case whenWritten is not run
+     */
+    public Future<?> writeWithDeferredPreview(IGraph graph, OutputStream out, PreviewCache previewCache,
+            Runnable whenWritten)
+    {
+        if (!IS_PREVIEW_DEFERRED)
+        {
+            writeDocument(graph, null, Preview.NOW, out, previewCache, null);
+            return null;
+        }
+        return writeDocument(null, getContent(graph), Preview.DEFERRED, out, previewCache, whenWritten);
+    }
+
+    /**
+     * @param graph
+     * @return the graph XML, as embedded in the documents
+     */
+    public String getContent(IGraph graph)
+    {
+        StringWriter writer = new StringWriter();
+        this.xstreamService.write(graph, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Writes a document without the diagram image from XML returned by getContent. As the graph
+     * itself is not needed anymore, this can be done from any thread while the graph is edited.
+     * 
+     * @param content graph XML
+     * @param out
+     */
+    public void writeWithoutImage(String content, OutputStream out)
+    {
+        writeDocument(null, content, Preview.NONE, out, null, null);
+    }
+
+    /**
+     * @param graph graph to write, or null to write the given content
+     * @param content graph XML, used when no graph is given
+     * @param preview how the diagram image is written
+     * @param out closed once the document is written
+     * @param previewCache last image written to the same file, or null
+     * @param whenWritten run once a deferred image has been written
+     * @return the background write of a deferred image, or null if the document is complete
+     */
+    private Future<?> writeDocument(IGraph graph, String content, Preview preview, OutputStream out,
+            PreviewCache previewCache, Runnable whenWritten)
     {
         try
         {
-            OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
-        	InputStream templateAsStream = this.getClass().getResourceAsStream(TEMPLATE_FILE);
-            String template = getInputStreamContent(templateAsStream);
-            ByteArrayOutputStream graphOutputStream = new ByteArrayOutputStream();
-            xstreamService.write(graph, graphOutputStream);
-            String graphString = graphOutputStream.toString();
-            ByteArrayOutputStream imageOutputStream = new ByteArrayOutputStream();
-            Base64OutputStream base64ImageOutputStream = new Base64OutputStream(imageOutputStream);
-            ImageIO.write(FileExportService.getImage(graph), IMAGE_TYPE, base64ImageOutputStream);
-            String imageString = HTML_INLINE_IMAGE_PREFIX + imageOutputStream.toString();
-            template = template.replace(TEMPLATE_VERSION_KEY, this.versionChecker.getAppVersionNumber());
-            template = template.replace(TEMPLATE_XMLCONTENT_KEY, graphString);
-            template = template.replace(TEMPLATE_IMAGE_KEY, imageString);
-            writer.write(new String(template.getBytes()));
-            templateAsStream.close();
-            imageOutputStream.close();
-            base64ImageOutputStream.close();
+            // Everything before the image identifies it
+            MessageDigest digest = MessageDigest.getInstance(PREVIEW_KEY_ALGORITHM);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new DigestOutputStream(out, digest), "UTF-8"));
+            List<String> segments = getTemplateSegments();
+            for (int i = 0; i < segments.size(); i++)
+            {
+                String aSegment = segments.get(i);
+                if (TEMPLATE_VERSION_KEY.equals(aSegment))
+                {
+                    writer.write(this.versionChecker.getAppVersionNumber());
+                }
+                else if (TEMPLATE_XMLCONTENT_KEY.equals(aSegment))
+                {
+                    if (null != graph)
+                    {
+                        this.xstreamService.write(graph, writer);
+                    }
+                    else
+                    {
+                        writer.write(content);
+                    }
+                }
+                else if (TEMPLATE_IMAGE_KEY.equals(aSegment))
+                {
+                    if (Preview.NONE == preview)
+                    {
+                        continue;
+                    }
+                    writer.write(HTML_INLINE_IMAGE_PREFIX);
+                    writer.flush();
+                    String previewKey = new BigInteger(1, digest.digest()).toString(16);
+                    byte[] image = null != previewCache ? previewCache.get(previewKey) : null;
+                    if (null != image)
+                    {
+                        writePreview(image, out);
+                    }
+                    else if (Preview.DEFERRED == preview)
+                    {
+                        out.flush();
+                        return writeDeferredPreview(content, previewKey, previewCache,
+                                segments.subList(i + 1, segments.size()), writer, out, whenWritten);
+                    }
+                    else
+                    {
+                        renderPreview(graph, out, previewKey, previewCache);
+                    }
+                }
+                else
+                {
+                    writer.write(aSegment);
+                }
+            }
             writer.close();
+            return null;
         }
         catch (IOException e)
         {
             throw new RuntimeException(e);
         }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new RuntimeException(e);
+        }
     }
 
-    @Override
-    public IGraph read(InputStream in) throws IOException
+    /**
+     * Renders the diagram image on the preview thread from a graph read back from its XML, then
+     * writes it and the end of the document
+     * 
+     * @param content graph XML
+     * @param previewKey
+     * @param previewCache where the image is kept for the next write, or null
+     * @param segments template segments after the image
+     * @param writer document writer, flushed
+     * @param out document stream
+     * @param whenWritten run once the document is closed
+     * @return the background write, which fails with the error met
+     */
+    private Future<?> writeDeferredPreview(final String content, final String previewKey,
+            final PreviewCache previewCache, final List<String> segments, final Writer writer, final OutputStream out,
+            final Runnable whenWritten)
     {
-        InputStreamReader reader = new InputStreamReader(in, "UTF-8");
-    	XHTMLPersistenceServiceParserGetter kit = new XHTMLPersistenceServiceParserGetter();
-        HTMLEditorKit.Parser parser = kit.getParser();
-        StringWriter writer = new StringWriter();
-        HTMLEditorKit.ParserCallback callback = new XHTMLPersistenceServiceParserCallback(writer);
-        parser.parse(reader, callback, true);
-        String xmlContent = writer.toString();
-        InputStream xmlContentStream = new ByteArrayInputStream(xmlContent.getBytes());
-        IGraph graph = this.xstreamService.read(xmlContentStream);
-        reader.close();
-        xmlContentStream.close();
-        reader.close();
-        writer.close();
-        return graph;
+        return getPreviewExecutor().submit(new Callable<Void>()
+        {
+            @Override
+            public Void call() throws Exception
+            {
+                try
+                {
+                    try
+                    {
+                        IGraph graph = xstreamService.read(new StringReader(content));
+                        renderPreview(graph, out, previewKey, previewCache);
+                        for (String aSegment : segments)
+                        {
+                            writer.write(aSegment);
+                        }
+                    }
+                    finally
+                    {
+                        writer.close();
+                    }
+                }
+                catch (Exception e)
+                {
+                    LOGGER.log(Level.WARNING, "Unable to write the diagram image", e);
+                    throw e;
+                }
+                if (null != whenWritten)
+                {
+                    whenWritten.run();
+                }
+                return null;
+            }
+        });
     }
 
-    private String getInputStreamContent(InputStream in) throws IOException
+    /**
+     * Encodes the diagram image into the document as it is rendered. A copy is kept in the cache
+     * only if the image is small enough.
+     * 
+     * @param graph
+     * @param out document stream
+     * @param previewKey key under which the image is cached
+     * @param previewCache where the image is kept for the next write, or null
+     * @throws IOException
+     */
+    private static void renderPreview(IGraph graph, OutputStream out, String previewKey, PreviewCache previewCache)
+            throws IOException
     {
-        BufferedInputStream bis = new BufferedInputStream(in);
-        ByteArrayOutputStream buf = new ByteArrayOutputStream();
-        int result = bis.read();
-        while (result != -1)
+        // Base64 output is plain ASCII, which is the same in UTF-8
+        Base64OutputStream base64ImageOutputStream = new Base64OutputStream(new NonClosingOutputStream(out));
+        CachingOutputStream imageOut = new CachingOutputStream(base64ImageOutputStream, null != previewCache);
+        FileExportService.exportToPng(graph, PREVIEW_SCALE, imageOut);
+        base64ImageOutputStream.close();
+        byte[] image = imageOut.getCopy();
+        if (null != image)
         {
-            byte b = (byte) result;
-            buf.write(b);
-            result = bis.read();
+            previewCache.put(previewKey, image);
         }
-        String content = buf.toString("UTF-8");
-        bis.close();
-        buf.close();
-        in.close();
-        return content;
     }
 
-    private class XHTMLPersistenceServiceParserGetter extends HTMLEditorKit
+    /**
+     * @param image PNG image
+     * @param out
+     * @throws IOException
+     */
+    private static void writePreview(byte[] image, OutputStream out) throws IOException
+    {
+        // Base64 output is plain ASCII, which is the same in UTF-8
+        Base64OutputStream base64ImageOutputStream = new Base64OutputStream(new NonClosingOutputStream(out));
+        base64ImageOutputStream.write(image);
+        base64ImageOutputStream.close();
+    }
+
+    /**
+     * @return single daemon thread which renders deferred diagram images, one after the other
+     */
+    private static synchronized ExecutorService getPreviewExecutor()
     {
-        public HTMLEditorKit.Parser getParser()
+        if (null == previewExecutor)
         {
-            return super.getParser();
+            previewExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "Preview");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
         }
+        return previewExecutor;
     }
 
-    private class XHTMLPersistenceServiceParserCallback extends HTMLEditorKit.ParserCallback
+    /**
+     * @return the scale set by PREVIEW_SCALE_PROPERTY, or 1 if it is not valid
+     */
+    private static double getPreviewScale()
     {
+        try
+        {
+            double scale = Double.parseDouble(System.getProperty(PREVIEW_SCALE_PROPERTY, "1"));
+            if (scale > 0 && scale <= 1)
+            {
+                return scale;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Default scale
+        }
+        return 1;
+    }
 
-        private Writer out;
+    /**
+     * How the diagram image is written
+     */
+    private enum Preview
+    {
+        /** No image */
+        NONE,
+        /** Image rendered before the document is closed */
+        NOW,
+        /** Image rendered later on the preview thread, if it is not cached */
+        DEFERRED
+    }
 
-        private boolean inHeader = false;
+    /**
+     * Only the content script of the document is parsed, as it is read.
+     */
+    @Override
+    public IGraph read(InputStream in) throws IOException
+    {
+        Reader reader = new XHTMLContentReader(new InputStreamReader(in, "UTF-8"));
+        try
+        {
+            return this.xstreamService.read(reader);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
 
-        public XHTMLPersistenceServiceParserCallback(Writer out)
+    /**
+     * @return the template split into its text parts and keys, in document order
+     */
+    private static List<String> getTemplateSegments() throws IOException
+    {
+        synchronized (XHTMLPersistenceService.class)
         {
-            this.out = out;
+            if (null == templateSegments)
+            {
+                templateSegments = splitTemplate(getTemplateContent());
+            }
+            return templateSegments;
         }
+    }
 
-        public void handleStartTag(HTML.Tag tag, MutableAttributeSet attributes, int position)
+    private static List<String> splitTemplate(String template)
+    {
+        List<String> segments = new ArrayList<String>();
+        String[] keys = {TEMPLATE_VERSION_KEY, TEMPLATE_XMLCONTENT_KEY, TEMPLATE_IMAGE_KEY};
+        int start = 0;
+        while (true)
         {
-            if (!tag.equals(HTML.Tag.SCRIPT))
+            int keyIndex = -1;
+            String key = null;
+            for (String aKey : keys)
             {
-                return;
+                int index = template.indexOf(aKey, start);
+                if (-1 != index && (-1 == keyIndex || index < keyIndex))
+                {
+                    keyIndex = index;
+                    key = aKey;
+                }
             }
-            if (!attributes.containsAttribute(HTML.getAttributeKey("id"), "content"))
+            if (null == key)
             {
-                return;
+                break;
             }
-            this.inHeader = true;
+            segments.add(template.substring(start, keyIndex));
+            segments.add(key);
+            start = keyIndex + key.length();
         }
+        segments.add(template.substring(start));
+        return segments;
+    }
 
-        public void handleEndTag(HTML.Tag tag, int position)
+    private static String getTemplateContent() throws IOException
+    {
+        Reader reader = new InputStreamReader(XHTMLPersistenceService.class.getResourceAsStream(TEMPLATE_FILE), "UTF-8");
+        try
         {
-            if (tag.equals(HTML.Tag.SCRIPT))
+            StringBuilder content = new StringBuilder();
+            char[] buffer = new char[4096];
+            int read = reader.read(buffer);
+            while (read != -1)
             {
-                if (this.inHeader)
-                {
-                    this.inHeader = false;
-                }
+                content.append(buffer, 0, read);
+                read = reader.read(buffer);
             }
-            // work around bug in the parser that fails to call flush
-            if (tag.equals(HTML.Tag.HTML)) this.flush();
+            return content.toString();
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Lets an encoder be closed to write its last bytes while the file goes on
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream
+    {
+
+        public NonClosingOutputStream(OutputStream out)
+        {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            this.out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            flush();
+        }
+
+    }
+
+    /**
+     * Copies what goes through it as long as it stays under PREVIEW_CACHE_LIMIT
+     */
+    private static class CachingOutputStream extends FilterOutputStream
+    {
+
+        public CachingOutputStream(OutputStream out, boolean isCopied)
+        {
+            super(out);
+            this.copy = isCopied ? new ByteArrayOutputStream() : null;
         }
-        
 
         @Override
-        public void handleComment(char[] text, int position)
+        public void write(int b) throws IOException
         {
-            if (this.inHeader)
+            this.out.write(b);
+            if (null != this.copy)
             {
-                try
-                {
-                    String xmlContent = new String(text);
-                    xmlContent = xmlContent.replace("<![CDATA[", "");
-                    xmlContent = xmlContent.replace("]]>", "");
-                    out.write(xmlContent);
-                    out.flush();
-                }
-                catch (IOException ex)
-                {
-                    throw new RuntimeException(ex);
-                }
+                this.copy.write(b);
+                checkCopySize();
             }
         }
 
-        public void flush()
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
         {
-            try
+            this.out.write(b, off, len);
+            if (null != this.copy)
             {
-                out.flush();
+                this.copy.write(b, off, len);
+                checkCopySize();
             }
-            catch (IOException e)
+        }
+
+        /**
+         * @return the bytes written, or null if they were too many
+         */
+        public byte[] getCopy()
+        {
+            return null != this.copy ? this.copy.toByteArray() : null;
+        }
+
+        private void checkCopySize()
+        {
+            if (this.copy.size() > PREVIEW_CACHE_LIMIT)
             {
-                throw new RuntimeException(e);
+                this.copy = null;
             }
         }
 
+        private ByteArrayOutputStream copy;
+
+    }
+
+    /**
+     * Diagram image written last time to a file, kept by whoever writes this file so that it is
+     * released with it
+     */
+    public static class PreviewCache
+    {
+
+        /**
+         * @param previewKey digest of the document up to the image
+         * @return the image written with this key, or null
+         */
+        private synchronized byte[] get(String previewKey)
+        {
+            return previewKey.equals(this.previewKey) ? this.image : null;
+        }
+
+        private synchronized void put(String previewKey, byte[] image)
+        {
+            this.previewKey = previewKey;
+            this.image = image;
+        }
+
+        private String previewKey;
+
+        private byte[] image;
+
     }
 
+    /** Template split at its keys, loaded once */
+    private static List<String> templateSegments;
+
+    private static ExecutorService previewExecutor;
+
+    /**
+     * Largest image kept in a preview cache, in bytes
+     */
+    private static final int PREVIEW_CACHE_LIMIT = 1024 * 1024;
+
+    private static final String PREVIEW_KEY_ALGORITHM = "SHA-1";
+
+    private static final double PREVIEW_SCALE = getPreviewScale();
+
+    private static final boolean IS_PREVIEW_DEFERRED = Boolean.getBoolean(PREVIEW_DEFERRED_PROPERTY);
+
+    private static final Logger LOGGER = Logger.getLogger(XHTMLPersistenceService.class.getName());
+
 }
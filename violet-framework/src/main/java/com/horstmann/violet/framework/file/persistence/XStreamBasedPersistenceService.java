@@ -6,6 +6,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -14,8 +15,10 @@ import com.horstmann.violet.framework.injection.bean.ManiocFramework.InjectedBea
 import com.horstmann.violet.framework.injection.bean.ManiocFramework.ManagedBean;
 import com.horstmann.violet.framework.plugin.IDiagramPlugin;
 import com.horstmann.violet.framework.plugin.PluginRegistry;
+import com.horstmann.violet.framework.util.SerializableEnumeration;
 import com.horstmann.violet.product.diagram.property.LineStyleChoiceList;
 import com.horstmann.violet.product.diagram.abstracts.IGraph;
+import com.horstmann.violet.product.diagram.abstracts.Id;
 import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
 import com.horstmann.violet.product.diagram.abstracts.node.INode;
 import com.horstmann.violet.product.diagram.property.ArrowheadChoiceList;
@@ -27,7 +30,7 @@ import com.thoughtworks.xstream.io.xml.DomDriver;
 public class XStreamBasedPersistenceService implements IFilePersistenceService {
 	
 	@InjectedBean
-	private PluginRegistry pluginRegistry;
+	protected PluginRegistry pluginRegistry;
 	
 	public XStreamBasedPersistenceService() {
 		BeanInjector.getInjector().inject(this);
@@ -36,9 +39,7 @@ public class XStreamBasedPersistenceService implements IFilePersistenceService {
 	@Override
 	public IGraph read(InputStream in) throws IOException {
 		InputStreamReader reader = new InputStreamReader(in);
-		XStream xStream = new XStream(new DomDriver("UTF-8"));
-		xStream = getConfiguredXStream(xStream);
-		Object fromXML = xStream.fromXML(reader);
+		Object fromXML = getXStream().fromXML(reader);
 		IGraph graph = (IGraph) fromXML;
 		Collection<INode> allNodes = graph.getAllNodes();
 		for (INode aNode : allNodes) {
@@ -53,17 +54,38 @@ public class XStreamBasedPersistenceService implements IFilePersistenceService {
 	public void write(IGraph graph, OutputStream out) {
 		try {
 			OutputStreamWriter writer = new OutputStreamWriter(out);
-			XStream xStream = new XStream(new DomDriver("UTF-8"));
-			xStream = getConfiguredXStream(xStream);
-			xStream.toXML(graph, writer);
+			getXStream().toXML(graph, writer);
 			writer.close();
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
+
+	/**
+	 * XStream is thread safe once configured, so one instance is built for the plugins registered
+	 * and shared by all the services until another plugin is registered.
+	 * 
+	 * @return XStream configured for the diagram plugins currently registered
+	 */
+	protected XStream getXStream() {
+		synchronized (XStreamBasedPersistenceService.class) {
+			int revision = this.pluginRegistry.getRevision();
+			if (null == cachedXStream || revision != cachedRevision) {
+				cachedXStream = getConfiguredXStream(new XStream(new DomDriver("UTF-8")));
+				cachedRevision = revision;
+			}
+			return cachedXStream;
+		}
+	}
 	
-	private XStream getConfiguredXStream(XStream xStream) {
-		xStream.autodetectAnnotations(true);
+	/**
+	 * Configures an XStream for the diagram plugins currently registered. Its annotations are processed
+	 * here rather than on the fly, which would not be thread safe.
+	 * 
+	 * @param xStream
+	 * @return the same XStream
+	 */
+	protected XStream getConfiguredXStream(XStream xStream) {
 		xStream.setMode(XStream.ID_REFERENCES);
 		xStream.useAttributeFor(Point2D.Double.class, "x");
 		xStream.useAttributeFor(Point2D.Double.class, "y");
@@ -71,10 +93,14 @@ public class XStreamBasedPersistenceService implements IFilePersistenceService {
 		xStream.addImmutableType(ArrowheadChoiceList.class);
         xStream.addImmutableType(LineStyleChoiceList.class);
         xStream.addImmutableType(BentStyleChoiceList.class);
+		List<Class<?>> annotatedClasses = new ArrayList<Class<?>>();
+		annotatedClasses.add(Id.class);
+		annotatedClasses.add(SerializableEnumeration.class);
 		List<IDiagramPlugin> diagramPlugins = this.pluginRegistry.getDiagramPlugins();
 		for (IDiagramPlugin aPlugin : diagramPlugins) {
 			Class<? extends IGraph> graphClass = aPlugin.getGraphClass();
 			xStream.alias(graphClass.getSimpleName(), graphClass);
+			annotatedClasses.add(graphClass);
 			try {
 				IGraph aDummyGraph = graphClass.newInstance();
 				List<IEdge> edgePrototypes = aDummyGraph.getEdgePrototypes();
@@ -82,16 +108,24 @@ public class XStreamBasedPersistenceService implements IFilePersistenceService {
 				for (IEdge anEdgePrototype : edgePrototypes) {
 					Class<? extends IEdge> edgeClass = anEdgePrototype.getClass();
 					xStream.alias(edgeClass.getSimpleName(), anEdgePrototype.getClass());
+					annotatedClasses.add(edgeClass);
 				}
 				for (INode aNodePrototype : nodePrototypes) {
 					Class<? extends INode> nodeClass = aNodePrototype.getClass();
 					xStream.alias(nodeClass.getSimpleName(), aNodePrototype.getClass());
+					annotatedClasses.add(nodeClass);
 				}
 			} catch (Exception e) {
 				throw new RuntimeException(e);
 			}
 		}
+		xStream.processAnnotations(annotatedClasses.toArray(new Class<?>[annotatedClasses.size()]));
 		return xStream;
 	}
 
+	/** XStream configured for the registry revision cachedRevision */
+	private static XStream cachedXStream;
+
+	private static int cachedRevision;
+
 }
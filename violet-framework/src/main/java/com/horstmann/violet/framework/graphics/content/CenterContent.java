@@ -39,7 +39,7 @@ public class CenterContent extends Content
     {
         updateOffsetPoint();
         super.refreshDown();
-        content.refreshDown();
+        content.refreshDownIfInvalid();
     }
 
     @Override
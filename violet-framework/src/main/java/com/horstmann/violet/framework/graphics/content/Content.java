@@ -13,6 +13,14 @@ import java.util.ArrayList;
  */
 public abstract class Content
 {
+    public interface RefreshListener
+    {
+        /**
+         * This function is called when the dimensions of the element have been recalculated
+         */
+        void onRefresh();
+    }
+
     /**
      * Checks whether a point contained in the element
      * @param point
@@ -42,17 +50,36 @@ public abstract class Content
     }
 
     /**
-     * @return bounds of this element
+     * @return bounds of this element, shared until the size changes so it must not be modified
      */
     public final Rectangle2D getBounds()
     {
-        return new Rectangle2D.Double(getX(),getY(),getWidth(),getHeight());
+        if(null == bounds)
+        {
+            bounds = new Rectangle2D.Double(getX(),getY(),getWidth(),getHeight());
+        }
+        return bounds;
     }
 
     /**
-     * @return minimal bounds of this element
+     * @return minimal bounds of this element, measured again only after invalidate()
+     * and shared until then so it must not be modified
      */
     public Rectangle2D getMinimalBounds()
+    {
+        if(null == minimalBounds)
+        {
+            minimalBounds = measureMinimalBounds();
+        }
+        return minimalBounds;
+    }
+
+    /**
+     * Measures the minimal bounds of this element
+     * @return minimal bounds of this element
+     * @see Content#getMinimalBounds()
+     */
+    protected Rectangle2D measureMinimalBounds()
     {
         return new Rectangle2D.Double(getX(),getY(),minWidth,minHeight);
     }
@@ -100,6 +127,8 @@ public abstract class Content
             throw new IllegalArgumentException("min width can only be a positive number");
         }
         this.minWidth = minWidth;
+        this.bounds = null;
+        invalidate();
         refreshUp();
     }
 
@@ -113,6 +142,8 @@ public abstract class Content
             throw new IllegalArgumentException("min height can only be a positive number");
         }
         this.minHeight = minHeight;
+        this.bounds = null;
+        invalidate();
         refreshUp();
     }
 
@@ -132,8 +163,13 @@ public abstract class Content
     {
         for (Content parent: parents )
         {
+            parent.invalidate();
             parent.refreshUp();
         }
+        for (RefreshListener refreshListener : refreshListeners)
+        {
+            refreshListener.onRefresh();
+        }
     }
 
     /**
@@ -142,6 +178,33 @@ public abstract class Content
     protected void refreshDown()
     {}
 
+    /**
+     * Recalculates dimensions of objects subordinate and self, unless neither the size
+     * nor anything inside this element changed since the last time
+     */
+    protected final void refreshDownIfInvalid()
+    {
+        if(!layoutValid)
+        {
+            refreshDown();
+            layoutValid = true;
+        }
+    }
+
+    /**
+     * Forgets the measured minimal bounds and the layout of this element and of
+     * all elements containing it, because something inside this element changed
+     */
+    protected final void invalidate()
+    {
+        minimalBounds = null;
+        layoutValid = false;
+        for (Content parent: parents)
+        {
+            parent.invalidate();
+        }
+    }
+
     /**
      * sets the width of the element
      * @param width
@@ -152,7 +215,12 @@ public abstract class Content
         {
             throw new IllegalArgumentException("width can only be a positive number");
         }
-        this.width = width;
+        if(this.width != width)
+        {
+            this.width = width;
+            this.bounds = null;
+            this.layoutValid = false;
+        }
     }
 
     /**
@@ -165,7 +233,12 @@ public abstract class Content
         {
             throw new IllegalArgumentException("height can only be a positive number");
         }
-        this.height = height;
+        if(this.height != height)
+        {
+            this.height = height;
+            this.bounds = null;
+            this.layoutValid = false;
+        }
     }
 
     /**
@@ -191,10 +264,37 @@ public abstract class Content
         refresh();
     }
 
+    /**
+     * adds a listener notified each time the dimensions of this element are recalculated
+     * @param refreshListener
+     */
+    public final void addRefreshListener(RefreshListener refreshListener)
+    {
+        if(null == refreshListener)
+        {
+            throw new NullPointerException("RefreshListener can't be null");
+        }
+        refreshListeners.add(refreshListener);
+    }
+
+    /**
+     * removes a listener added by addRefreshListener
+     * @param refreshListener
+     */
+    public final void removeRefreshListener(RefreshListener refreshListener)
+    {
+        refreshListeners.remove(refreshListener);
+    }
+
     private ArrayList<Content> parents = new ArrayList<Content>();
+    private ArrayList<RefreshListener> refreshListeners = new ArrayList<RefreshListener>();
 
     private double minWidth = 0;
     private double minHeight = 0;
     private double width = 0;
     private double height = 0;
+
+    private Rectangle2D bounds;
+    private Rectangle2D minimalBounds;
+    private boolean layoutValid = false;
 }
@@ -53,7 +53,7 @@ public abstract class ContentInsideShape extends Content
     @Override
     protected void refreshDown()
     {
-        content.refreshDown();
+        content.refreshDownIfInvalid();
         super.refreshDown();
     }
 
@@ -98,6 +98,10 @@ public abstract class ContentInsideShape extends Content
         {
             throw new NullPointerException("Shape can't be null");
         }
+        if(null == this.shape || !this.shape.getBounds().equals(shape.getBounds()))
+        {
+            invalidate();
+        }
         this.shape = shape;
     }
 
@@ -126,6 +130,7 @@ public abstract class ContentInsideShape extends Content
 
         content.addParent(this);
         this.content = content;
+        invalidate();
         refreshUp();
     }
 
@@ -54,12 +54,12 @@ public class HorizontalLayout extends Layout
     }
 
     /**
-     * @return minimal bounds of this element
+     * @see Content#measureMinimalBounds()
      */
     @Override
-    public Rectangle2D getMinimalBounds()
+    protected Rectangle2D measureMinimalBounds()
     {
-        Rectangle2D selfMinimalBounds = super.getMinimalBounds();
+        Rectangle2D selfMinimalBounds = super.measureMinimalBounds();
 
         double width = 0;
         double height = 0;
@@ -90,7 +90,7 @@ public class HorizontalLayout extends Layout
         for (Content content: getContents())
         {
             content.setHeight(height);
-            content.refreshDown();
+            content.refreshDownIfInvalid();
         }
     }
 }
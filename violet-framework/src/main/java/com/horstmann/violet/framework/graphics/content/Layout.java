@@ -47,6 +47,7 @@ public abstract class Layout extends Content
         }
         content.addParent(this);
         contents.add(content);
+        invalidate();
         refresh();
     }
 
@@ -62,6 +63,7 @@ public abstract class Layout extends Content
         }
         content.removeParent(this);
         contents.remove(content);
+        invalidate();
         refresh();
     }
 
@@ -103,7 +105,7 @@ public abstract class Layout extends Content
     {
         for (Content content: getContents())
         {
-            content.refreshDown();
+            content.refreshDownIfInvalid();
         }
         super.refreshDown();
     }
@@ -65,7 +65,7 @@ public class PaddingContent extends Content
     @Override
     protected void refreshDown()
     {
-        content.refreshDown();
+        content.refreshDownIfInvalid();
         super.refreshDown();
     }
 
@@ -44,13 +44,13 @@ public class RelativeLayout extends Layout
         }
 
         /**
-         * @return minimal bounds of this element
+         * @see Content#measureMinimalBounds()
          */
         @Override
-        public Rectangle2D getMinimalBounds()
+        protected Rectangle2D measureMinimalBounds()
         {
             Rectangle2D contentMinimalBounds = content.getMinimalBounds();
-            Rectangle2D selfMinimalBounds = super.getMinimalBounds();
+            Rectangle2D selfMinimalBounds = super.measureMinimalBounds();
 
             return new Rectangle2D.Double(
                     position.getX(),
@@ -82,6 +82,7 @@ public class RelativeLayout extends Layout
             {
                 this.position.setLocation(Math.max(0, position.getX()),Math.max(0, position.getY()));
             }
+            invalidate();
             refreshUp();
         }
 
@@ -176,12 +177,12 @@ public class RelativeLayout extends Layout
     }
 
     /**
-     * @return minimal bounds of this element
+     * @see Content#measureMinimalBounds()
      */
     @Override
-    public Rectangle2D getMinimalBounds()
+    protected Rectangle2D measureMinimalBounds()
     {
-        Rectangle2D selfMinimalBounds = super.getMinimalBounds();
+        Rectangle2D selfMinimalBounds = super.measureMinimalBounds();
 
         double maxX = selfMinimalBounds.getWidth();
         double maxY = selfMinimalBounds.getHeight();
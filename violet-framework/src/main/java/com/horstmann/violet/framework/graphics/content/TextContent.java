@@ -28,6 +28,7 @@ public class TextContent extends Content implements LineText.ChangeListener
     @Override
     public void onChange()
     {
+        invalidate();
         refresh();
     }
 
@@ -61,12 +62,28 @@ public class TextContent extends Content implements LineText.ChangeListener
     }
 
     /**
-     * @return minimal bounds of this element
+     * @see Content#getMinimalBounds()
      */
+    @Override
     public Rectangle2D getMinimalBounds()
+    {
+        if(measuredTextBounds != text.getBounds())
+        {
+            // the text was measured again without notifying a change, e.g. after a new padding
+            invalidate();
+        }
+        return super.getMinimalBounds();
+    }
+
+    /**
+     * @see Content#measureMinimalBounds()
+     */
+    @Override
+    protected Rectangle2D measureMinimalBounds()
     {
         Rectangle2D textMinimalBounds = text.getBounds();
-        Rectangle2D contentMinimalBounds = super.getMinimalBounds();
+        Rectangle2D contentMinimalBounds = super.measureMinimalBounds();
+        measuredTextBounds = textMinimalBounds;
         return new Rectangle2D.Double(
                 contentMinimalBounds.getX(),
                 contentMinimalBounds.getY(),
@@ -86,4 +103,5 @@ public class TextContent extends Content implements LineText.ChangeListener
     }
 
     private LineText text;
+    private Rectangle2D measuredTextBounds;
 }
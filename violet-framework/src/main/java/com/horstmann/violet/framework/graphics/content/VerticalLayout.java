@@ -54,12 +54,12 @@ public class VerticalLayout extends Layout
     }
 
     /**
-     * @return minimal bounds of this element
+     * @see Content#measureMinimalBounds()
      */
     @Override
-    public Rectangle2D getMinimalBounds()
+    protected Rectangle2D measureMinimalBounds()
     {
-        Rectangle2D selfMinimalBounds = super.getMinimalBounds();
+        Rectangle2D selfMinimalBounds = super.measureMinimalBounds();
 
         double height = 0;
         double width = 0;
@@ -90,7 +90,7 @@ public class VerticalLayout extends Layout
         for (Content content: getContents())
         {
             content.setWidth(width);
-            content.refreshDown();
+            content.refreshDownIfInvalid();
         }
     }
 }
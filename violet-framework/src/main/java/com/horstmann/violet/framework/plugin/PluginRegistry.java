@@ -2,6 +2,7 @@ package com.horstmann.violet.framework.plugin;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.horstmann.violet.framework.injection.bean.ManiocFramework.ManagedBean;
 
@@ -30,6 +31,16 @@ public class PluginRegistry
     public void register(IDiagramPlugin newDiagramPlugin)
     {
         this.diagramPlugins.add(newDiagramPlugin);
+        this.revision = REVISIONS.incrementAndGet();
+    }
+    
+    /**
+     * @return a number which changes each time a plugin is registered, so that what is built from the
+     * plugins (i.e. XStream configuration) can be kept until then
+     */
+    public int getRevision()
+    {
+        return this.revision;
     }
     
     /**
@@ -42,5 +53,10 @@ public class PluginRegistry
     /** diagram plugins */
     private List<IDiagramPlugin> diagramPlugins = new ArrayList<IDiagramPlugin>();
 
+    /** current revision, never shared with another registry */
+    private volatile int revision = REVISIONS.incrementAndGet();
+
+    private static final AtomicInteger REVISIONS = new AtomicInteger();
+
 
 }
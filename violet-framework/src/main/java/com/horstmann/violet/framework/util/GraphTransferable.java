@@ -0,0 +1,102 @@
+package com.horstmann.violet.framework.util;
+
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.horstmann.violet.framework.file.persistence.StaxPersistenceService;
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+
+/**
+ * This class is used to hold graph elements while on the clipboard.
+ *
+ * Pastes made in the same application get the graph itself, which is never changed once on the
+ * clipboard. Other applications get it as XML, which is only written the first time they ask for it.
+ */
+public class GraphTransferable implements Transferable, ClipboardOwner
+{
+
+    /**
+     * @param graph graph holding copies of the elements put on the clipboard
+     * @param persistenceService used to write the graph as XML
+     */
+    public GraphTransferable(IGraph graph, StaxPersistenceService persistenceService)
+    {
+        this.graph = graph;
+        this.persistenceService = persistenceService;
+    }
+
+    /**
+     * @return graph holding the elements on the clipboard, which has to be copied before its elements are used
+     */
+    public IGraph getGraph()
+    {
+        return this.graph;
+    }
+
+    @Override
+    public DataFlavor[] getTransferDataFlavors()
+    {
+        return new DataFlavor[]
+        {
+                GRAPH_FLAVOR, DataFlavor.stringFlavor
+        };
+    }
+
+    @Override
+    public boolean isDataFlavorSupported(DataFlavor flavor)
+    {
+        return GRAPH_FLAVOR.equals(flavor) || DataFlavor.stringFlavor.equals(flavor);
+    }
+
+    @Override
+    public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException
+    {
+        if (GRAPH_FLAVOR.equals(flavor))
+        {
+            return this;
+        }
+        if (DataFlavor.stringFlavor.equals(flavor))
+        {
+            return getXmlContent();
+        }
+        throw new UnsupportedFlavorException(flavor);
+    }
+
+    @Override
+    public void lostOwnership(Clipboard clipboard, Transferable contents)
+    {
+        // Nothing to release
+    }
+
+    /**
+     * @return the graph as XML, written on the first call
+     */
+    private synchronized String getXmlContent()
+    {
+        if (null == this.xmlContent)
+        {
+            StringWriter writer = new StringWriter();
+            this.persistenceService.write(this.graph, writer);
+            this.xmlContent = writer.toString();
+        }
+        return this.xmlContent;
+    }
+
+    private final IGraph graph;
+
+    private final StaxPersistenceService persistenceService;
+
+    private String xmlContent;
+
+    /**
+     * Flavor of graph elements copied from this application, which never leave it
+     */
+    public static final DataFlavor GRAPH_FLAVOR = new DataFlavor(DataFlavor.javaJVMLocalObjectMimeType + ";class="
+            + GraphTransferable.class.getName(), "Violet graph");
+
+}
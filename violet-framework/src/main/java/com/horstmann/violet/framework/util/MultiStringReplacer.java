@@ -0,0 +1,166 @@
+package com.horstmann.violet.framework.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replaces all the occurrences of several strings in a single pass over a character stream.
+ *
+ * The searched strings are put in a tree of characters built once. At each position of the stream,
+ * the longest searched string starting there is replaced and the text after it is searched again, so
+ * replaced text is never replaced twice whatever the order of the strings. Only the length of the
+ * longest searched string is kept in memory ahead of what has been written.
+ */
+public class MultiStringReplacer
+{
+
+    /**
+     * @param replaceMap key = searched string / value = replace string. Empty keys are ignored.
+     */
+    public MultiStringReplacer(Map<String, String> replaceMap)
+    {
+        for (Map.Entry<String, String> anEntry : replaceMap.entrySet())
+        {
+            String searchedStr = anEntry.getKey();
+            if (searchedStr == null || searchedStr.isEmpty() || anEntry.getValue() == null)
+            {
+                continue;
+            }
+            Node node = this.root;
+            for (int i = 0; i < searchedStr.length(); i++)
+            {
+                node = node.getOrAddChild(searchedStr.charAt(i));
+            }
+            node.replaceStr = anEntry.getValue();
+            this.maxLength = Math.max(this.maxLength, searchedStr.length());
+        }
+    }
+
+    /**
+     * Copies a stream, with all the searched strings replaced. Neither stream is closed.
+     *
+     * @param in
+     * @param out
+     * @throws IOException
+     */
+    public void replace(Reader in, Writer out) throws IOException
+    {
+        char[] buffer = new char[Math.max(BUFFER_SIZE, 2 * this.maxLength)];
+        int start = 0;
+        int end = 0;
+        boolean isEndOfStream = false;
+        while (!isEndOfStream || start < end)
+        {
+            if (!isEndOfStream)
+            {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+                int numRead = in.read(buffer, end, buffer.length - end);
+                if (numRead < 0)
+                {
+                    isEndOfStream = true;
+                }
+                else
+                {
+                    end += numRead;
+                }
+            }
+            // Until the end of the stream, only positions followed by the longest searched string are looked at
+            int limit = isEndOfStream ? end : end - this.maxLength + 1;
+            int copyFrom = start;
+            while (start < limit)
+            {
+                Node match = null;
+                int matchLength = 0;
+                Node node = this.root;
+                for (int i = start; i < end && node != null; i++)
+                {
+                    node = node.getChild(buffer[i]);
+                    if (node != null && node.replaceStr != null)
+                    {
+                        match = node;
+                        matchLength = i - start + 1;
+                    }
+                }
+                if (match == null)
+                {
+                    start++;
+                    continue;
+                }
+                out.write(buffer, copyFrom, start - copyFrom);
+                out.write(match.replaceStr);
+                start += matchLength;
+                copyFrom = start;
+            }
+            out.write(buffer, copyFrom, start - copyFrom);
+        }
+        out.flush();
+    }
+
+    /**
+     * @param input
+     * @return the string with all the searched strings replaced
+     */
+    public String replace(String input)
+    {
+        StringWriter out = new StringWriter(input.length());
+        try
+        {
+            replace(new StringReader(input), out);
+        }
+        catch (IOException e)
+        {
+            // Can't happen with strings
+            throw new RuntimeException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Character of a searched string, which ends this string if it has a replace string
+     */
+    private static class Node
+    {
+        Node getChild(char c)
+        {
+            if (this.children == null)
+            {
+                return null;
+            }
+            return this.children.get(c);
+        }
+
+        Node getOrAddChild(char c)
+        {
+            if (this.children == null)
+            {
+                this.children = new HashMap<Character, Node>();
+            }
+            Node child = this.children.get(c);
+            if (child == null)
+            {
+                child = new Node();
+                this.children.put(c, child);
+            }
+            return child;
+        }
+
+        private Map<Character, Node> children;
+
+        private String replaceStr;
+    }
+
+    private final Node root = new Node();
+
+    /** Length of the longest searched string */
+    private int maxLength = 1;
+
+    private static final int BUFFER_SIZE = 8192;
+
+}
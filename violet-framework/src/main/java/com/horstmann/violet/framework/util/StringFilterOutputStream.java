@@ -21,13 +21,15 @@
 
 package com.horstmann.violet.framework.util;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
-import java.util.Iterator;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * This class is an outputstream filter. It means that it will filter the given inputstream and replace all the key ocurrences
@@ -49,9 +51,18 @@ public class StringFilterOutputStream extends ByteArrayOutputStream
      * @param replaceMap pairs of key/value to filter
      */
     public StringFilterOutputStream(OutputStream out, Map<String, String> replaceMap)
+    {
+        this(out, new MultiStringReplacer(replaceMap));
+    }
+
+    /**
+     * @param out outputstream to filter
+     * @param replacer replaces keys by values
+     */
+    public StringFilterOutputStream(OutputStream out, MultiStringReplacer replacer)
     {
         super();
-        this.replaceMap = replaceMap;
+        this.replacer = replacer;
         this.originalOutputStream = out;
     }
 
@@ -62,47 +73,23 @@ public class StringFilterOutputStream extends ByteArrayOutputStream
      */
     public void close() throws IOException
     {
-        String filteredContent = getFilteredContent(this.toString("UTF-8"), this.replaceMap);
-        try
-        {
-            this.originalOutputStream.write(filteredContent.getBytes("UTF-8"));
-        }
-        catch (UnsupportedEncodingException ex)
-        {
-            ex.printStackTrace();
-            this.originalOutputStream.write(filteredContent.getBytes());
-        }
-        this.originalOutputStream.close();
+        Reader content = new InputStreamReader(new ByteArrayInputStream(this.buf, 0, this.count), ENCODING);
+        Writer filteredContent = new OutputStreamWriter(this.originalOutputStream, ENCODING);
+        this.replacer.replace(content, filteredContent);
+        filteredContent.close();
         super.close();
     }
 
     /**
-     * Filters a string and replaces all key courrences issed from the map by its valye
-     * 
-     * @param input string
-     * @param replaceMap key = searchedString / value = replaceString
-     * @return filtered string
+     * Replaces in a single pass all key ocurrences issued from the map by its value
      */
-    private String getFilteredContent(String input, Map<String, String> replaceMap)
-    {
-        Set<String> set = replaceMap.keySet();
-        for (Iterator<String> iter = set.iterator(); iter.hasNext();)
-        {
-            String searchedStr = iter.next();
-            String replaceStr = replaceMap.get(searchedStr);
-            input = input.replaceAll(searchedStr, replaceStr);
-        }
-        return input;
-    }
-
-    /**
-     * Map containing pairs of key/value as searchedString/replaceString
-     */
-    private Map<String, String> replaceMap;
+    private MultiStringReplacer replacer;
 
     /**
      * The outputstream to filter
      */
     private OutputStream originalOutputStream;
 
+    private static final String ENCODING = "UTF-8";
+
 }
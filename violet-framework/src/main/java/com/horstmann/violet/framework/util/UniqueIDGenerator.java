@@ -1,11 +1,14 @@
 package com.horstmann.violet.framework.util;
 
-import java.util.UUID;
+import com.horstmann.violet.product.diagram.abstracts.Id;
 
 public class UniqueIDGenerator
 {
-    public static synchronized String getNewId()
+    /**
+     * @return the value of a new Id, which doesn't need any lock anymore
+     */
+    public static String getNewId()
     {
-        return UUID.randomUUID().toString();
+        return new Id().getValue();
     }
 }
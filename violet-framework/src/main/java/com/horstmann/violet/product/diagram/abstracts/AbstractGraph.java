@@ -29,7 +29,13 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
 import com.horstmann.violet.product.diagram.abstracts.node.INode;
@@ -60,31 +66,54 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
         {
             edge.reconstruction();
         }
+        invalidateNodeHierarchy();
+        edgesByNode = null;
+        invalidateSpatialIndex();
     }
 
     @Override
     public INode findNode(Point2D p)
     {
-        for (INode n : getAllNodes())
+        if (!isSpatialIndexSupported())
         {
-            Point2D locationOnGraph = n.getLocationOnGraph();
-            Rectangle2D bounds = n.getBounds();
-            Rectangle2D boundsToCheck = new Rectangle2D.Double(locationOnGraph.getX(), locationOnGraph.getY(), bounds.getWidth(),
-                    bounds.getHeight());
-            if (boundsToCheck.contains(p))
+            for (INode n : getAllNodes())
             {
-                return n;
+                if (getBoundsOnGraph(n).contains(p))
+                {
+                    return n;
+                }
             }
+            return null;
         }
-        return null;
+        refreshSpatialIndex();
+        INode foundNode = null;
+        for (INode n : getNodeIndex().getCandidates(p))
+        {
+            if (getBoundsOnGraph(n).contains(p) && (null == foundNode || isBefore(n, foundNode)))
+            {
+                foundNode = n;
+            }
+        }
+        return foundNode;
     }
 
     @Override
     public INode findNode(Id id)
     {
-        for (INode n : getAllNodes())
+        getAllNodes();
+        INode foundNode = nodesById.get(id);
+        if (null != foundNode && foundNode.getId().equals(id))
+        {
+            return foundNode;
+        }
+        // Ids can be changed after the node_old has been added, so the map may be out of date
+        for (INode n : allNodes)
         {
-            if (n.getId().equals(id)) return n;
+            if (n.getId().equals(id))
+            {
+                invalidateNodeHierarchy();
+                return n;
+            }
         }
         return null;
     }
@@ -92,7 +121,13 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
     @Override
     public IEdge findEdge(Point2D p)
     {
-        for (IEdge e : edges)
+        Collection<IEdge> edgesToCheck = edges;
+        if (isSpatialIndexSupported())
+        {
+            refreshSpatialIndex();
+            edgesToCheck = getEdgeIndex().getCandidates(p);
+        }
+        for (IEdge e : edgesToCheck)
         {
             if (e.contains(p)) return e;
         }
@@ -108,52 +143,143 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
         }
         return null;
     }
-    
-    
 
+    @Override
+    public Collection<INode> findNodes(Rectangle2D area)
+    {
+        Set<INode> candidates = null;
+        if (isSpatialIndexSupported())
+        {
+            refreshSpatialIndex();
+            candidates = Collections.newSetFromMap(new IdentityHashMap<INode, Boolean>());
+            candidates.addAll(getNodeIndex().getCandidates(area));
+        }
+        List<INode> foundNodes = new ArrayList<INode>();
+        for (INode n : getAllNodes())
+        {
+            if ((null == candidates || candidates.contains(n)) && getBoundsOnGraph(n).intersects(area))
+            {
+                foundNodes.add(n);
+            }
+        }
+        return foundNodes;
+    }
+
+    @Override
+    public Collection<IEdge> findEdges(Rectangle2D area)
+    {
+        if (!isSpatialIndexSupported())
+        {
+            return new ArrayList<IEdge>(edges);
+        }
+        refreshSpatialIndex();
+        return getEdgeIndex().getCandidates(area);
+    }
+
+    @Override
+    public void onNodeBoundsChanged(INode node)
+    {
+        ++geometryRevision;
+        if (isSpatialIndexValid)
+        {
+            getNodesToReindex().add(node);
+        }
+    }
+
+    @Override
+    public void onNodeHierarchyChanged(INode node)
+    {
+        ++geometryRevision;
+        invalidateNodeHierarchy();
+        if (isSpatialIndexValid)
+        {
+            getNodesToReindex().add(node);
+        }
+    }
+
+    @Override
+    public void onNodeZChanged(INode node)
+    {
+        drawList = null;
+    }
+
+    @Override
+    public void onEdgeBoundsChanged(IEdge edge)
+    {
+        ++geometryRevision;
+        if (isSpatialIndexValid && getEdgeIndex().contains(edge))
+        {
+            getEdgesToReindex().add(edge);
+        }
+    }
+
+
+    @Override
+    public long getGeometryRevision()
+    {
+        return geometryRevision;
+    }
 
     @Override
     public void draw(Graphics2D graphics)
+    {
+        draw(graphics, null);
+    }
+
+    @Override
+    public void draw(Graphics2D graphics, Rectangle2D clip)
     {
         graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        List<INode> specialNodes = new ArrayList<INode>();
+        if (!isSpatialIndexSupported())
+        {
+            // Nothing tells when node_old bounds change, so edges are laid out again on each drawing
+            ++geometryRevision;
+        }
 
-        int count = 0;
-        int z = 0;
-        Collection<INode> nodes = getAllNodes();
-        while (count < nodes.size())
+        Rectangle2D area = null;
+        Set<INode> visibleRootNodes = null;
+        List<IEdge> edgesToDraw = edges;
+        if (null != clip)
         {
-            for (INode node : nodes)
+            // Grown a little to keep shadows and borders drawn outside node_old bounds
+            area = new Rectangle2D.Double(clip.getX() - CLIP_MARGIN, clip.getY() - CLIP_MARGIN,
+                    clip.getWidth() + 2 * CLIP_MARGIN, clip.getHeight() + 2 * CLIP_MARGIN);
+            // A node_old is drawn by its root, so a root is visible as soon as one of its descendants is
+            visibleRootNodes = Collections.newSetFromMap(new IdentityHashMap<INode, Boolean>());
+            for (INode aNode : findNodes(area))
             {
-                if (node.getZ() == z)
+                INode root = aNode;
+                while (null != root.getParent())
                 {
-                    if (node instanceof NoteNode)
-                    {
-                        specialNodes.add(node);
-                    }
-                    else
-                    {
-                        if(null == node.getParent())
-                        {
-                            node.draw(graphics);
-                        }
-                    }
-                    count++;
+                    root = root.getParent();
                 }
+                visibleRootNodes.add(root);
             }
-            z++;
+            edgesToDraw = new ArrayList<IEdge>(findEdges(area));
         }
 
-        for (int i = 0; i < edges.size(); i++)
+        for (INode node : getDrawList())
         {
-            IEdge e = (IEdge) edges.get(i);
+            if (null == visibleRootNodes || visibleRootNodes.contains(node))
+            {
+                node.draw(graphics);
+            }
+        }
+
+        for (int i = 0; i < edgesToDraw.size(); i++)
+        {
+            IEdge e = (IEdge) edgesToDraw.get(i);
             e.draw(graphics);
         }
         // Special node are always drawn upon other elements
-        for (INode n : specialNodes)
+        for (INode n : getSpecialNodes())
         {
+            if (null != area && !getBoundsOnGraph(n).intersects(area))
+            {
+                continue;
+            }
             // Translate graphics if node_old has parent
             Point2D nodeLocationOnGraph = n.getLocationOnGraph();
             Point2D nodeLocation = n.getLocation();
@@ -175,6 +301,18 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
     public Rectangle2D getClipBounds()
     {
         Rectangle2D r = minBounds;
+        if (isSpatialIndexSupported())
+        {
+            // Kept up to date with the spatial index instead of going through every element
+            refreshSpatialIndex();
+            Rectangle2D elementBounds = getElementBounds().getBounds();
+            if (null != elementBounds)
+            {
+                if (r == null) r = elementBounds;
+                else r.add(elementBounds);
+            }
+            return r == null ? new Rectangle2D.Double() : new Rectangle2D.Double(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+        }
         for (INode n : nodes)
         {
             Rectangle2D b = n.getBounds();
@@ -203,20 +341,31 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
     @Override
     public Collection<INode> getAllNodes()
     {
-        List<INode> fifo = new ArrayList<INode>();
-        List<INode> allNodes = new ArrayList<INode>();
-        fifo.addAll(nodes);
-        allNodes.addAll(nodes);
-        while (!fifo.isEmpty())
+        if (null == allNodes)
         {
-            INode nodeToInspect = fifo.remove(0);
-            List<INode> children = nodeToInspect.getChildren();
-            fifo.addAll(children);
-            allNodes.addAll(children);
+            // The list is rebuilt instead of being modified so that callers can keep iterating on the previous one
+            List<INode> nodeList = new ArrayList<INode>(nodes);
+            for (int i = 0; i < nodeList.size(); ++i)
+            {
+                nodeList.addAll(nodeList.get(i).getChildren());
+            }
+            // Let's have children first
+            Collections.reverse(nodeList);
+            Set<INode> nodeSet = Collections.newSetFromMap(new IdentityHashMap<INode, Boolean>(nodeList.size()));
+            nodeSet.addAll(nodeList);
+            Map<Id, INode> nodeMap = new HashMap<Id, INode>(nodeList.size() * 2);
+            for (INode aNode : nodeList)
+            {
+                if (null != aNode.getId())
+                {
+                    nodeMap.put(aNode.getId(), aNode);
+                }
+            }
+            allNodes = Collections.unmodifiableList(nodeList);
+            allNodeSet = nodeSet;
+            nodesById = nodeMap;
         }
-        // Let's have children first
-        Collections.reverse(allNodes);
-        return Collections.unmodifiableCollection(allNodes);
+        return allNodes;
     }
 
     @Override
@@ -225,6 +374,17 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
         return Collections.unmodifiableCollection(edges);
     }
 
+    @Override
+    public Collection<IEdge> getConnectedEdges(INode node)
+    {
+        List<IEdge> connectedEdges = getEdgesByNode().get(node);
+        if (null == connectedEdges)
+        {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(connectedEdges);
+    }
+
     @Override
     public boolean addNode(INode newNode, Point2D p)
     {
@@ -235,6 +395,7 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
         {
             newNode.setLocation(p);
             nodes.add(newNode);
+            onNodeHierarchyChanged(newNode);
             return true;
         }
         // Case 2 : attached to an existing node_old
@@ -250,6 +411,7 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
         newNode.setLocation(p);
         newNode.setParent(null);
         nodes.add(newNode);
+        onNodeHierarchyChanged(newNode);
         return true;
     }
 
@@ -262,6 +424,7 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
             if (this.nodes.contains(aNodeToRemove))
             {
                 this.nodes.remove(aNodeToRemove);
+                onNodeHierarchyChanged(aNodeToRemove);
             }
         }
         // Step 1b : Remove node attach to other node as children
@@ -278,12 +441,11 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
         }
         // Step 2 : Disconnect edges
         List<IEdge> edgesToRemove = new ArrayList<IEdge>();
-        Collection<INode> allNodes = getAllNodes();
         for (IEdge anEdge : this.edges)
         {
             INode startingNode = anEdge.getStartNode();
             INode endingNode = anEdge.getEndNode();
-            boolean isEdgeStillConnected = (allNodes.contains(startingNode) && allNodes.contains(endingNode));
+            boolean isEdgeStillConnected = (containsNode(startingNode) && containsNode(endingNode));
             if (!isEdgeStillConnected)
             {
                 edgesToRemove.add(anEdge);
@@ -297,12 +459,11 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
     public boolean connect(IEdge e, INode start, Point2D startLocation, INode end, Point2D endLocation, Point2D[] transitionPoints)
     {
         // Step 1 : find if node exist
-        Collection<INode> allNodes = getAllNodes();
-        if (start != null && !allNodes.contains(start))
+        if (start != null && !containsNode(start))
         {
             addNode(start, start.getLocation());
         }
-        if (end != null && !allNodes.contains(end))
+        if (end != null && !containsNode(end))
         {
             addNode(end, end.getLocation());
         }
@@ -316,6 +477,15 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
         {
             e.setId(new Id());
             edges.add(e);
+            ++geometryRevision;
+            if (null != edgesByNode)
+            {
+                addConnectedEdge(e);
+            }
+            if (isSpatialIndexValid)
+            {
+                getEdgesToReindex().add(e);
+            }
 
             start.onConnectedEdge(e);
             if(end != null)
@@ -329,6 +499,97 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
         return false;
     }
 
+    @Override
+    public void restoreNodes(Collection<INode> nodesToRestore)
+    {
+        Set<Id> restoredIds = new HashSet<Id>();
+        for (INode aNode : nodesToRestore)
+        {
+            List<INode> tree = new ArrayList<INode>();
+            tree.add(aNode);
+            for (int i = 0; i < tree.size(); ++i)
+            {
+                tree.get(i).setGraph(this);
+                tree.addAll(tree.get(i).getChildren());
+                restoredIds.add(tree.get(i).getId());
+            }
+        }
+        // Node_old moved into a restored tree are not directly attached to the graph anymore
+        List<INode> previousNodes = new ArrayList<INode>(this.nodes);
+        this.nodes.clear();
+        for (INode aNode : previousNodes)
+        {
+            INode replacement = null;
+            for (INode aNodeToRestore : nodesToRestore)
+            {
+                if (aNodeToRestore.getId().equals(aNode.getId()))
+                {
+                    replacement = aNodeToRestore;
+                }
+            }
+            if (null != replacement)
+            {
+                this.nodes.add(replacement);
+            }
+            else if (!restoredIds.contains(aNode.getId()))
+            {
+                this.nodes.add(aNode);
+            }
+        }
+        for (INode aNodeToRestore : nodesToRestore)
+        {
+            aNodeToRestore.setParent(null);
+            if (!this.nodes.contains(aNodeToRestore))
+            {
+                this.nodes.add(aNodeToRestore);
+            }
+            aNodeToRestore.reconstruction();
+        }
+        invalidateNodeHierarchy();
+
+        List<IEdge> edgesToRemove = new ArrayList<IEdge>();
+        for (IEdge anEdge : this.edges)
+        {
+            INode startNode = findNode(anEdge.getStartNode().getId());
+            INode endNode = findNode(anEdge.getEndNode().getId());
+            if (null == startNode || null == endNode)
+            {
+                edgesToRemove.add(anEdge);
+                continue;
+            }
+            anEdge.setStartNode(startNode);
+            anEdge.setEndNode(endNode);
+        }
+        this.edges.removeAll(edgesToRemove);
+        edgesByNode = null;
+        invalidateSpatialIndex();
+        for (INode aNodeToRestore : nodesToRestore)
+        {
+            onNodeHierarchyChanged(aNodeToRestore);
+        }
+    }
+
+    @Override
+    public void restoreEdges(Collection<IEdge> edgesToRestore)
+    {
+        for (IEdge anEdge : edgesToRestore)
+        {
+            IEdge previousEdge = findEdge(anEdge.getId());
+            if (null != previousEdge)
+            {
+                this.edges.set(this.edges.indexOf(previousEdge), anEdge);
+            }
+            else
+            {
+                this.edges.add(anEdge);
+            }
+            anEdge.reconstruction();
+        }
+        ++geometryRevision;
+        edgesByNode = null;
+        invalidateSpatialIndex();
+    }
+
     @Override
     public void removeEdge(IEdge... edgesToRemove)
     {
@@ -339,6 +600,17 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
             startingNode.removeConnection(anEdgeToRemove);
             endingNode.removeConnection(anEdgeToRemove);
             this.edges.remove(anEdgeToRemove);
+            ++geometryRevision;
+            if (null != edgesByNode)
+            {
+                removeConnectedEdge(anEdgeToRemove);
+            }
+            if (isSpatialIndexValid)
+            {
+                getEdgeIndex().remove(anEdgeToRemove);
+                getEdgesToReindex().remove(anEdgeToRemove);
+                getElementBounds().remove(anEdgeToRemove);
+            }
         }
     }
 
@@ -369,10 +641,461 @@ public abstract class AbstractGraph implements Serializable, Cloneable, IGraph
     public void setGridSticker(IGridSticker positionCorrector)
     {
         this.gridSticker = positionCorrector;
+        ++geometryRevision;
+    }
+
+    /**
+     * @param node
+     * @return true if the node_old is in getAllNodes()
+     */
+    private boolean containsNode(INode node)
+    {
+        getAllNodes();
+        return allNodeSet.contains(node);
+    }
+
+    /**
+     * Forces the list of all the node and the id map to be rebuilt on next call to getAllNodes()
+     */
+    private void invalidateNodeHierarchy()
+    {
+        allNodes = null;
+        allNodeSet = null;
+        nodesById = null;
+        drawList = null;
+        noteNodes = null;
+    }
+
+    /**
+     * @return node directly attached to the graph, except special node, sorted by z level
+     */
+    private List<INode> getDrawList()
+    {
+        if (null == drawList)
+        {
+            List<INode> sortedNodes = new ArrayList<INode>();
+            List<INode> notes = new ArrayList<INode>();
+            for (INode aNode : getAllNodes())
+            {
+                if (aNode instanceof NoteNode)
+                {
+                    notes.add(aNode);
+                }
+                else if (null == aNode.getParent())
+                {
+                    sortedNodes.add(aNode);
+                }
+            }
+            // Stable sort, so node on the same level keep the getAllNodes() order
+            Collections.sort(sortedNodes, Z_COMPARATOR);
+            drawList = sortedNodes;
+            noteNodes = notes;
+            sortNoteNodes();
+        }
+        return drawList;
+    }
+
+    /**
+     * Note z levels depend on the node_old they are attached to, so they are sorted again when the
+     * geometry of the graph has changed since the last sort
+     * 
+     * @return special node (i.e. notes), sorted by z level
+     */
+    private List<INode> getSpecialNodes()
+    {
+        getDrawList();
+        if (noteNodesRevision != geometryRevision)
+        {
+            sortNoteNodes();
+        }
+        return noteNodes;
+    }
+
+    private void sortNoteNodes()
+    {
+        Collections.sort(noteNodes, Z_COMPARATOR);
+        noteNodesRevision = geometryRevision;
+    }
+
+    /**
+     * @return edges connected to each node_old, built from the edge list if needed (i.e. after deserialization)
+     */
+    private Map<INode, List<IEdge>> getEdgesByNode()
+    {
+        if (null == edgesByNode)
+        {
+            edgesByNode = new IdentityHashMap<INode, List<IEdge>>();
+            for (IEdge anEdge : edges)
+            {
+                addConnectedEdge(anEdge);
+            }
+        }
+        return edgesByNode;
+    }
+
+    /**
+     * Adds an edge at the end of the lists of its start and end node_old, so the lists keep the edge list order
+     * 
+     * @param edge
+     */
+    private void addConnectedEdge(IEdge edge)
+    {
+        INode startNode = edge.getStartNode();
+        INode endNode = edge.getEndNode();
+        if (null != startNode)
+        {
+            getConnectedEdgeList(startNode).add(edge);
+        }
+        if (null != endNode && endNode != startNode)
+        {
+            getConnectedEdgeList(endNode).add(edge);
+        }
+    }
+
+    private void removeConnectedEdge(IEdge edge)
+    {
+        for (INode aNode : new INode[] {edge.getStartNode(), edge.getEndNode()})
+        {
+            List<IEdge> connectedEdges = edgesByNode.get(aNode);
+            if (null == connectedEdges)
+            {
+                continue;
+            }
+            connectedEdges.remove(edge);
+            if (connectedEdges.isEmpty())
+            {
+                edgesByNode.remove(aNode);
+            }
+        }
+    }
+
+    private List<IEdge> getConnectedEdgeList(INode node)
+    {
+        List<IEdge> connectedEdges = edgesByNode.get(node);
+        if (null == connectedEdges)
+        {
+            connectedEdges = new ArrayList<IEdge>();
+            edgesByNode.put(node, connectedEdges);
+        }
+        return connectedEdges;
+    }
+
+    /**
+     * Tells if the spatial index can be used to find elements. Graphs whose node_old bounds
+     * are computed from other elements should return false. Edge paths are then computed
+     * again each time the graph is drawn.
+     * 
+     * @return true by default
+     */
+    protected boolean isSpatialIndexSupported()
+    {
+        return true;
+    }
+
+    /**
+     * Forces the spatial index to be rebuilt on next search
+     */
+    protected final void invalidateSpatialIndex()
+    {
+        isSpatialIndexValid = false;
+    }
+
+    /**
+     * Brings the spatial index up to date with the nodes and the edges which have changed since the last search
+     */
+    private void refreshSpatialIndex()
+    {
+        SpatialIndex<INode> nodeIndex = getNodeIndex();
+        SpatialIndex<IEdge> edgeIndex = getEdgeIndex();
+        BoundsUnion<Object> elementBounds = getElementBounds();
+        Set<INode> nodesToReindex = getNodesToReindex();
+        Set<IEdge> edgesToReindex = getEdgesToReindex();
+        if (!isSpatialIndexValid)
+        {
+            nodeIndex.clear();
+            edgeIndex.clear();
+            elementBounds.clear();
+            nodesToReindex.clear();
+            edgesToReindex.clear();
+            for (INode aNode : getAllNodes())
+            {
+                nodeIndex.put(aNode, getBoundsOnGraph(aNode));
+            }
+            for (INode aNode : nodes)
+            {
+                elementBounds.put(aNode, aNode.getBounds());
+            }
+            for (IEdge anEdge : edges)
+            {
+                edgeIndex.put(anEdge, getIndexedBounds(anEdge));
+                elementBounds.put(anEdge, anEdge.getBounds());
+            }
+            isSpatialIndexValid = true;
+            return;
+        }
+        // Computing bounds may lazily build node_old contents and notify changes again, so work on copies
+        if (!nodesToReindex.isEmpty())
+        {
+            List<INode> changedNodes = new ArrayList<INode>(nodesToReindex);
+            nodesToReindex.clear();
+            Set<INode> reindexedNodes = Collections.newSetFromMap(new IdentityHashMap<INode, Boolean>());
+            for (INode aNode : changedNodes)
+            {
+                boolean isAttached = isAttached(aNode);
+                reindexNodeTree(aNode, isAttached, reindexedNodes);
+                // Only the nodes directly in the graph count in its bounds, and children can resize them
+                if (!isAttached || null != aNode.getParent())
+                {
+                    elementBounds.remove(aNode);
+                }
+                if (isAttached)
+                {
+                    INode root = aNode;
+                    while (null != root.getParent())
+                    {
+                        root = root.getParent();
+                    }
+                    elementBounds.put(root, root.getBounds());
+                }
+            }
+            // Edges follow their nodes
+            for (IEdge anEdge : edges)
+            {
+                if (reindexedNodes.contains(anEdge.getStartNode()) || reindexedNodes.contains(anEdge.getEndNode()))
+                {
+                    edgesToReindex.add(anEdge);
+                }
+            }
+        }
+        if (!edgesToReindex.isEmpty())
+        {
+            List<IEdge> changedEdges = new ArrayList<IEdge>(edgesToReindex);
+            edgesToReindex.clear();
+            for (IEdge anEdge : changedEdges)
+            {
+                edgeIndex.put(anEdge, getIndexedBounds(anEdge));
+                elementBounds.put(anEdge, anEdge.getBounds());
+            }
+        }
+    }
+
+    /**
+     * Updates the bounds of a node_old and of all its children in the spatial index
+     * 
+     * @param node
+     * @param isAttached false if the node_old has been removed from the graph
+     * @param reindexedNodes node already updated
+     */
+    private void reindexNodeTree(INode node, boolean isAttached, Set<INode> reindexedNodes)
+    {
+        if (!reindexedNodes.add(node))
+        {
+            return;
+        }
+        if (isAttached)
+        {
+            getNodeIndex().put(node, getBoundsOnGraph(node));
+        }
+        else
+        {
+            getNodeIndex().remove(node);
+        }
+        for (INode aChild : node.getChildren())
+        {
+            reindexNodeTree(aChild, isAttached, reindexedNodes);
+        }
+    }
+
+    /**
+     * @param node
+     * @return true if the node_old can be reached from the graph through its parents
+     */
+    private boolean isAttached(INode node)
+    {
+        INode child = node;
+        INode parent = node.getParent();
+        while (null != parent)
+        {
+            if (!parent.getChildren().contains(child))
+            {
+                return false;
+            }
+            child = parent;
+            parent = parent.getParent();
+        }
+        return nodes.contains(child);
+    }
+
+    /**
+     * Tells if a node_old comes before another one in getAllNodes(), that is to say if it is deeper
+     * in the hierarchy or, at the same depth, if it comes later in its parent's children
+     * 
+     * @param node
+     * @param otherNode
+     * @return true if node comes first
+     */
+    private boolean isBefore(INode node, INode otherNode)
+    {
+        List<Integer> path = getHierarchyPath(node);
+        List<Integer> otherPath = getHierarchyPath(otherNode);
+        if (path.size() != otherPath.size())
+        {
+            return path.size() > otherPath.size();
+        }
+        for (int i = 0; i < path.size(); ++i)
+        {
+            int comparison = path.get(i).compareTo(otherPath.get(i));
+            if (0 != comparison)
+            {
+                return 0 < comparison;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param node
+     * @return positions of the node_old and of its parents in their parent's children, starting from the graph
+     */
+    private List<Integer> getHierarchyPath(INode node)
+    {
+        List<Integer> path = new ArrayList<Integer>();
+        INode child = node;
+        INode parent = node.getParent();
+        while (null != parent)
+        {
+            path.add(0, parent.getChildren().indexOf(child));
+            child = parent;
+            parent = parent.getParent();
+        }
+        path.add(0, nodes.indexOf(child));
+        return path;
+    }
+
+    /**
+     * @param node
+     * @return node_old bounds with its location on graph
+     */
+    private static Rectangle2D getBoundsOnGraph(INode node)
+    {
+        Point2D locationOnGraph = node.getLocationOnGraph();
+        Rectangle2D bounds = node.getBounds();
+        return new Rectangle2D.Double(locationOnGraph.getX(), locationOnGraph.getY(), bounds.getWidth(), bounds.getHeight());
+    }
+
+    /**
+     * Edges are indexed with an area larger than their path, so that they are still found while
+     * their contact points are not yet updated or when the mouse is a little beside them
+     * 
+     * @param edge
+     * @return area where the edge can be found
+     */
+    private static Rectangle2D getIndexedBounds(IEdge edge)
+    {
+        INode startNode = edge.getStartNode();
+        INode endNode = edge.getEndNode();
+        Rectangle2D indexedBounds = new Rectangle2D.Double();
+        if (null != startNode && null != endNode)
+        {
+            indexedBounds.setRect(edge.getBounds());
+            indexedBounds.add(getBoundsOnGraph(startNode));
+            indexedBounds.add(getBoundsOnGraph(endNode));
+        }
+        for (Point2D aTransitionPoint : edge.getTransitionPoints())
+        {
+            indexedBounds.add(aTransitionPoint);
+        }
+        indexedBounds.setRect(
+                indexedBounds.getX() - EDGE_INDEX_MARGIN,
+                indexedBounds.getY() - EDGE_INDEX_MARGIN,
+                indexedBounds.getWidth() + 2 * EDGE_INDEX_MARGIN,
+                indexedBounds.getHeight() + 2 * EDGE_INDEX_MARGIN
+        );
+        return indexedBounds;
+    }
+
+    private SpatialIndex<INode> getNodeIndex()
+    {
+        if (null == nodeIndex)
+        {
+            nodeIndex = new SpatialIndex<INode>();
+        }
+        return nodeIndex;
+    }
+
+    private SpatialIndex<IEdge> getEdgeIndex()
+    {
+        if (null == edgeIndex)
+        {
+            edgeIndex = new SpatialIndex<IEdge>();
+        }
+        return edgeIndex;
+    }
+
+    /**
+     * @return bounds of the nodes directly in the graph and of the edges, updated with the spatial index
+     */
+    private BoundsUnion<Object> getElementBounds()
+    {
+        if (null == elementBounds)
+        {
+            elementBounds = new BoundsUnion<Object>();
+        }
+        return elementBounds;
+    }
+
+    private Set<INode> getNodesToReindex()
+    {
+        if (null == nodesToReindex)
+        {
+            nodesToReindex = new HashSet<INode>();
+        }
+        return nodesToReindex;
+    }
+
+    private Set<IEdge> getEdgesToReindex()
+    {
+        if (null == edgesToReindex)
+        {
+            edgesToReindex = new HashSet<IEdge>();
+        }
+        return edgesToReindex;
     }
 
     private ArrayList<INode> nodes;
     private ArrayList<IEdge> edges;
     private transient Rectangle2D minBounds;
     private transient IGridSticker gridSticker;
+
+    private transient List<INode> allNodes;
+    private transient Set<INode> allNodeSet;
+    private transient Map<Id, INode> nodesById;
+    private transient Map<INode, List<IEdge>> edgesByNode;
+    private transient List<INode> drawList;
+    private transient List<INode> noteNodes;
+    private transient long noteNodesRevision;
+
+    private transient SpatialIndex<INode> nodeIndex;
+    private transient SpatialIndex<IEdge> edgeIndex;
+    private transient BoundsUnion<Object> elementBounds;
+    private transient Set<INode> nodesToReindex;
+    private transient Set<IEdge> edgesToReindex;
+    private transient boolean isSpatialIndexValid;
+
+    private transient long geometryRevision;
+
+    private static final Comparator<INode> Z_COMPARATOR = new Comparator<INode>()
+    {
+        @Override
+        public int compare(INode n1, INode n2)
+        {
+            return Integer.compare(n1.getZ(), n2.getZ());
+        }
+    };
+
+    /** Space around the clip area in which elements are still drawn */
+    private static final int CLIP_MARGIN = 10;
+
+    /** Covers the mouse tolerance of edges and the self loops drawn outside their node_old */
+    private static final int EDGE_INDEX_MARGIN = 32;
 }
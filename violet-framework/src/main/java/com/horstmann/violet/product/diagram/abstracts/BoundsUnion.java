@@ -0,0 +1,120 @@
+package com.horstmann.violet.product.diagram.abstracts;
+
+import java.awt.geom.Rectangle2D;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the smallest rectangle holding the bounds of a set of elements while they move.
+ *
+ * Growing is done at once. The union is only computed again from all the elements when an
+ * element which was touching one of its sides moves inwards or is removed.
+ *
+ * @param <T> type of elements
+ */
+public class BoundsUnion<T>
+{
+    /**
+     * Adds an element or moves it if it is already there
+     *
+     * @param element
+     * @param bounds area covered by the element
+     */
+    public void put(T element, Rectangle2D bounds)
+    {
+        if (null == element)
+        {
+            throw new NullPointerException("element can't be null");
+        }
+        if (null == bounds)
+        {
+            throw new NullPointerException("bounds can't be null");
+        }
+        Rectangle2D newBounds = new Rectangle2D.Double(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+        Rectangle2D previousBounds = entries.put(element, newBounds);
+        if (!isUnionValid)
+        {
+            return;
+        }
+        if (null != previousBounds && isOnSide(previousBounds) && !newBounds.contains(previousBounds))
+        {
+            isUnionValid = false;
+            return;
+        }
+        if (null == union)
+        {
+            union = new Rectangle2D.Double(newBounds.getX(), newBounds.getY(), newBounds.getWidth(), newBounds.getHeight());
+        }
+        else
+        {
+            union.add(newBounds);
+        }
+    }
+
+    /**
+     * @param element
+     */
+    public void remove(T element)
+    {
+        Rectangle2D previousBounds = entries.remove(element);
+        if (null != previousBounds && isUnionValid && isOnSide(previousBounds))
+        {
+            isUnionValid = false;
+        }
+    }
+
+    /**
+     * Removes all elements
+     */
+    public void clear()
+    {
+        entries.clear();
+        union = null;
+        isUnionValid = true;
+    }
+
+    /**
+     * @return smallest rectangle holding all the element bounds, or null if there is no element
+     */
+    public Rectangle2D getBounds()
+    {
+        if (!isUnionValid)
+        {
+            union = null;
+            for (Rectangle2D someBounds : entries.values())
+            {
+                if (null == union)
+                {
+                    union = new Rectangle2D.Double(someBounds.getX(), someBounds.getY(), someBounds.getWidth(), someBounds.getHeight());
+                }
+                else
+                {
+                    union.add(someBounds);
+                }
+            }
+            isUnionValid = true;
+        }
+        if (null == union)
+        {
+            return null;
+        }
+        return new Rectangle2D.Double(union.getX(), union.getY(), union.getWidth(), union.getHeight());
+    }
+
+    /**
+     * @param bounds
+     * @return true if the union may shrink without these bounds
+     */
+    private boolean isOnSide(Rectangle2D bounds)
+    {
+        return bounds.getMinX() <= union.getMinX() || bounds.getMinY() <= union.getMinY()
+                || bounds.getMaxX() >= union.getMaxX() || bounds.getMaxY() >= union.getMaxY();
+    }
+
+    private final Map<T, Rectangle2D> entries = new HashMap<T, Rectangle2D>();
+
+    /** Union of the entries when isUnionValid is true */
+    private Rectangle2D union;
+
+    private boolean isUnionValid = true;
+}
@@ -46,6 +46,15 @@ public interface IGraph
     public abstract Collection<IEdge> getAllEdges();
 
 
+    /**
+     * Gets the edges starting or ending on a node_old.
+     * 
+     * @param node a node_old of this graph
+     * @return an unmodifiable collection of the edges, ordered as in getAllEdges()
+     */
+    public abstract Collection<IEdge> getConnectedEdges(INode node);
+
+
     /**
      * Removes one or more edges from this graph.
      * 
@@ -83,6 +92,22 @@ public interface IGraph
      */
     public abstract boolean connect(IEdge e, INode start, Point2D startLocation, INode end, Point2D endLocation, Point2D[] transitionPoints);
 
+    /**
+     * Puts back saved node_old trees directly attached to the graph, replacing the node_old having the same ids,
+     * without the checks done when the user adds a node_old. Edges are then connected to the node_old having
+     * the ids of their start and end node_old, and the ones whose node_old are gone are removed.
+     * 
+     * @param nodesToRestore node_old without parent, with their children
+     */
+    public abstract void restoreNodes(Collection<INode> nodesToRestore);
+
+    /**
+     * Puts back saved edges, replacing the edges having the same ids, without the checks done by connect().
+     * 
+     * @param edgesToRestore edges whose start and end node_old are already in the graph
+     */
+    public abstract void restoreEdges(Collection<IEdge> edgesToRestore);
+
 
     /**
      * Finds a node_old by its id. This internal method should only be used by network features (for the moment because
@@ -120,6 +145,63 @@ public interface IGraph
      */
     public abstract IEdge findEdge(Point2D p);
 
+    /**
+     * Finds the node whose bounds intersect the given area.
+     * 
+     * @param area a rectangle on the graph
+     * @return the found node, ordered as in getAllNodes()
+     */
+    public abstract Collection<INode> findNodes(Rectangle2D area);
+
+
+    /**
+     * Finds the edges which may pass through the given area.
+     * 
+     * @param area a rectangle on the graph
+     * @return the found edges, ordered as in getAllEdges()
+     */
+    public abstract Collection<IEdge> findEdges(Rectangle2D area);
+
+
+    /**
+     * Notifies the graph that a node_old has been moved or resized
+     * 
+     * @param node the modified node_old
+     */
+    public abstract void onNodeBoundsChanged(INode node);
+
+
+    /**
+     * Notifies the graph that a node_old has been added to or removed from another node_old
+     * 
+     * @param node the child node_old
+     */
+    public abstract void onNodeHierarchyChanged(INode node);
+
+
+    /**
+     * Notifies the graph that the z level of a node_old has been changed
+     * 
+     * @param node the modified node_old
+     */
+    public abstract void onNodeZChanged(INode node);
+
+
+    /**
+     * Notifies the graph that the path of an edge has been changed (i.e. its transition points)
+     * 
+     * @param edge the modified edge
+     */
+    public abstract void onEdgeBoundsChanged(IEdge edge);
+
+    /**
+     * Gets a number which changes each time a node_old or an edge of the graph may have been
+     * moved, resized, added or removed. Edges use it to know when their path must be computed again.
+     * 
+     * @return the geometry revision
+     */
+    public abstract long getGeometryRevision();
+
     /**
      * Draws the graph
      * 
@@ -128,6 +210,15 @@ public interface IGraph
     public abstract void draw(Graphics2D g2);
 
 
+    /**
+     * Draws the elements of the graph which are visible in the given area
+     * 
+     * @param g2 the graphics context
+     * @param clip the visible area, in graph coordinates (null to draw the whole graph)
+     */
+    public abstract void draw(Graphics2D g2, Rectangle2D clip);
+
+
     /**
      * Gets the smallest rectangle enclosing the graph
      * 
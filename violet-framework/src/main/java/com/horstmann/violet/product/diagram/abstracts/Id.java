@@ -1,6 +1,8 @@
 package com.horstmann.violet.product.diagram.abstracts;
 
-import com.horstmann.violet.framework.util.UniqueIDGenerator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 
 /**
@@ -10,6 +12,10 @@ import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
  * 
  * But be careful and don't abuse of this programming pattern
  * 
+ * New ids are made of a random number drawn once per session and of a counter, and are compared as numbers. Their string
+ * value is only built when asked for, i.e. when the id is saved. Ids read from files keep their value, whatever its format
+ * (older files use UUIDs).
+ *
  * @author Alexandre de Pellegrin
  * 
  */
@@ -21,7 +27,9 @@ public class Id
      */
     public Id()
     {
-        this.value = UniqueIDGenerator.getNewId();
+        this.session = SESSION;
+        this.number = COUNTER.incrementAndGet();
+        this.isNumeric = true;
     }
 
     /**
@@ -29,6 +37,10 @@ public class Id
      */
     public String getValue()
     {
+        if (null == this.value && this.isNumeric)
+        {
+            this.value = format(this.session, this.number);
+        }
         return value;
     }
 
@@ -40,19 +52,36 @@ public class Id
     public void setValue(String value)
     {
         this.value = value;
+        this.isNumeric = false;
+        this.isParsed = false;
     }
 
     @Override
     public boolean equals(Object obj)
     {
         if (obj == null) return false;
-        if (value != null) return value.equals(((Id) obj).value);
+        if (obj == this) return true;
+        Id other = (Id) obj;
+        if (isNumeric() && other.isNumeric())
+        {
+            return this.number == other.number && this.session == other.session;
+        }
+        if (isNumeric() || other.isNumeric())
+        {
+            return false;
+        }
+        if (value != null) return value.equals(other.value);
         return false;
     }
 
     @Override
     public int hashCode()
     {
+        if (isNumeric())
+        {
+            long hash = this.number * 31 + this.session;
+            return (int) (hash ^ (hash >>> 32));
+        }
         if (value != null)
         {
             return value.hashCode();
@@ -63,18 +92,99 @@ public class Id
     @Override
     public String toString()
     {
+        String value = getValue();
         if (value != null)
         {
             return value;
         }
         return super.toString();
     }
-    
+
     @Override
     public Id clone() throws CloneNotSupportedException {
-    	Id clone = new Id();
-    	clone.value = this.value + "";
-    	return clone;
+    	return new Id(this);
+    }
+
+    /**
+     * Copy constructor, which doesn't draw a new number
+     *
+     * @param id
+     */
+    private Id(Id id)
+    {
+        this.value = id.value;
+        this.session = id.session;
+        this.number = id.number;
+        this.isNumeric = id.isNumeric;
+        this.isParsed = id.isParsed;
+    }
+
+    /**
+     * Called by XStream before writing the id, so that its value is there
+     *
+     * @return this id
+     */
+    private Object writeReplace()
+    {
+        getValue();
+        return this;
+    }
+
+    /**
+     * Ids read from a file or set from a string are compared as numbers again if they have the format
+     * of generated ones, so that they stay equal to the ids they have been saved from
+     *
+     * @return true if this id is made of a session number and a counter
+     */
+    private boolean isNumeric()
+    {
+        if (!this.isNumeric && !this.isParsed && null != this.value)
+        {
+            this.isParsed = true;
+            if (NUMERIC_VALUE_LENGTH == this.value.length() && '-' == this.value.charAt(HEX_LENGTH)
+                    && isHex(this.value, 0, HEX_LENGTH) && isHex(this.value, HEX_LENGTH + 1, NUMERIC_VALUE_LENGTH))
+            {
+                this.session = Long.parseUnsignedLong(this.value.substring(0, HEX_LENGTH), 16);
+                this.number = Long.parseUnsignedLong(this.value.substring(HEX_LENGTH + 1), 16);
+                this.isNumeric = true;
+            }
+        }
+        return this.isNumeric;
+    }
+
+    /**
+     * @param session
+     * @param number
+     * @return both numbers as 16 lower case hexadecimal digits separated by a dash
+     */
+    private static String format(long session, long number)
+    {
+        char[] chars = new char[NUMERIC_VALUE_LENGTH];
+        for (int i = HEX_LENGTH - 1; i >= 0; --i)
+        {
+            chars[i] = HEX_DIGITS[(int) (session & 0xF)];
+            session >>>= 4;
+        }
+        chars[HEX_LENGTH] = '-';
+        for (int i = NUMERIC_VALUE_LENGTH - 1; i > HEX_LENGTH; --i)
+        {
+            chars[i] = HEX_DIGITS[(int) (number & 0xF)];
+            number >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    private static boolean isHex(String text, int start, int end)
+    {
+        for (int i = start; i < end; ++i)
+        {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f'))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -82,4 +192,26 @@ public class Id
      */
     @XStreamAsAttribute
     private String value;
+
+    /** Number drawn by the session which has created this id */
+    private transient long session;
+
+    /** Counter value, unique in its session */
+    private transient long number;
+
+    /** True if session and number are set */
+    private transient boolean isNumeric;
+
+    /** True once value has been checked for the generated id format */
+    private transient boolean isParsed;
+
+    private static final long SESSION = new Random().nextLong() ^ System.currentTimeMillis();
+
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private static final int HEX_LENGTH = 16;
+
+    private static final int NUMERIC_VALUE_LENGTH = 2 * HEX_LENGTH + 1;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 }
@@ -0,0 +1,377 @@
+package com.horstmann.violet.product.diagram.abstracts;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A uniform grid which splits the graph in square cells and remembers which elements
+ * lie in each cell. It is used to find the few elements that may be under a point or
+ * inside an area without looking at every element of the graph.
+ *
+ * Candidates are always returned in the order the elements were first put in the index.
+ * Bounds are only used to select candidates, so the caller still has to check them.
+ *
+ * @param <T> type of indexed elements
+ */
+public class SpatialIndex<T>
+{
+    /**
+     * Constructs an empty index with the default cell size
+     */
+    public SpatialIndex()
+    {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs an empty index
+     *
+     * @param cellSize width and height of a cell
+     */
+    public SpatialIndex(double cellSize)
+    {
+        if (0 >= cellSize)
+        {
+            throw new IllegalArgumentException("cell size can only be a positive number");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds an element to the index or moves it if it is already indexed
+     *
+     * @param element
+     * @param bounds area covered by the element
+     */
+    public void put(T element, Rectangle2D bounds)
+    {
+        if (null == element)
+        {
+            throw new NullPointerException("element can't be null");
+        }
+        if (null == bounds)
+        {
+            throw new NullPointerException("bounds can't be null");
+        }
+        Entry<T> entry = entries.get(element);
+        if (null == entry)
+        {
+            entry = new Entry<T>(element, nextOrder++);
+            entries.put(element, entry);
+        }
+        else
+        {
+            unlink(entry);
+        }
+        entry.bounds = new Rectangle2D.Double(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+        link(entry);
+    }
+
+    /**
+     * Removes an element from the index
+     *
+     * @param element
+     */
+    public void remove(T element)
+    {
+        Entry<T> entry = entries.remove(element);
+        if (null != entry)
+        {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Removes all elements from the index
+     */
+    public void clear()
+    {
+        entries.clear();
+        cells.clear();
+        oversizedEntries.clear();
+        nextOrder = 0;
+    }
+
+    /**
+     * @param element
+     * @return true if the element is indexed
+     */
+    public boolean contains(T element)
+    {
+        return entries.containsKey(element);
+    }
+
+    /**
+     * @return number of indexed elements
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * @param point
+     * @return elements whose indexed bounds contain the given point
+     */
+    public List<T> getCandidates(Point2D point)
+    {
+        List<Entry<T>> found = new ArrayList<Entry<T>>();
+        List<Entry<T>> cell = cells.get(getCellKey(getColumn(point.getX()), getRow(point.getY())));
+        if (null != cell)
+        {
+            for (Entry<T> entry : cell)
+            {
+                if (isInside(point, entry.bounds))
+                {
+                    found.add(entry);
+                }
+            }
+        }
+        for (Entry<T> entry : oversizedEntries)
+        {
+            if (isInside(point, entry.bounds))
+            {
+                found.add(entry);
+            }
+        }
+        return toElements(found);
+    }
+
+    /**
+     * @param area
+     * @return elements whose indexed bounds intersect the given area
+     */
+    public List<T> getCandidates(Rectangle2D area)
+    {
+        List<Entry<T>> found = new ArrayList<Entry<T>>();
+        long minColumn = getColumn(area.getMinX());
+        long maxColumn = getColumn(area.getMaxX());
+        long minRow = getRow(area.getMinY());
+        long maxRow = getRow(area.getMaxY());
+        if (!isFinite(area) || getCellCount(minColumn, maxColumn, minRow, maxRow) > cells.size())
+        {
+            for (Entry<T> entry : entries.values())
+            {
+                if (isIntersecting(area, entry.bounds))
+                {
+                    found.add(entry);
+                }
+            }
+            return toElements(found);
+        }
+        Set<Entry<T>> visited = Collections.newSetFromMap(new IdentityHashMap<Entry<T>, Boolean>());
+        for (long column = minColumn; column <= maxColumn; ++column)
+        {
+            for (long row = minRow; row <= maxRow; ++row)
+            {
+                List<Entry<T>> cell = cells.get(getCellKey(column, row));
+                if (null == cell)
+                {
+                    continue;
+                }
+                for (Entry<T> entry : cell)
+                {
+                    if (isIntersecting(area, entry.bounds) && visited.add(entry))
+                    {
+                        found.add(entry);
+                    }
+                }
+            }
+        }
+        for (Entry<T> entry : oversizedEntries)
+        {
+            if (isIntersecting(area, entry.bounds))
+            {
+                found.add(entry);
+            }
+        }
+        return toElements(found);
+    }
+
+    /**
+     * Puts an entry in all the cells covered by its bounds
+     *
+     * @param entry
+     */
+    private void link(Entry<T> entry)
+    {
+        Rectangle2D bounds = entry.bounds;
+        if (!isFinite(bounds))
+        {
+            insertSorted(oversizedEntries, entry);
+            return;
+        }
+        long minColumn = getColumn(bounds.getMinX());
+        long maxColumn = getColumn(bounds.getMaxX());
+        long minRow = getRow(bounds.getMinY());
+        long maxRow = getRow(bounds.getMaxY());
+        if (getCellCount(minColumn, maxColumn, minRow, maxRow) > MAX_CELLS_PER_ENTRY)
+        {
+            insertSorted(oversizedEntries, entry);
+            return;
+        }
+        for (long column = minColumn; column <= maxColumn; ++column)
+        {
+            for (long row = minRow; row <= maxRow; ++row)
+            {
+                Long key = getCellKey(column, row);
+                List<Entry<T>> cell = cells.get(key);
+                if (null == cell)
+                {
+                    cell = new ArrayList<Entry<T>>();
+                    cells.put(key, cell);
+                }
+                insertSorted(cell, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes an entry from all the cells covered by its bounds
+     *
+     * @param entry
+     */
+    private void unlink(Entry<T> entry)
+    {
+        Rectangle2D bounds = entry.bounds;
+        if (oversizedEntries.remove(entry))
+        {
+            return;
+        }
+        long minColumn = getColumn(bounds.getMinX());
+        long maxColumn = getColumn(bounds.getMaxX());
+        long minRow = getRow(bounds.getMinY());
+        long maxRow = getRow(bounds.getMaxY());
+        for (long column = minColumn; column <= maxColumn; ++column)
+        {
+            for (long row = minRow; row <= maxRow; ++row)
+            {
+                Long key = getCellKey(column, row);
+                List<Entry<T>> cell = cells.get(key);
+                if (null == cell)
+                {
+                    continue;
+                }
+                cell.remove(entry);
+                if (cell.isEmpty())
+                {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private void insertSorted(List<Entry<T>> list, Entry<T> entry)
+    {
+        int position = Collections.binarySearch(list, entry, ORDER_COMPARATOR);
+        if (0 > position)
+        {
+            list.add(-position - 1, entry);
+        }
+    }
+
+    private List<T> toElements(List<Entry<T>> found)
+    {
+        Collections.sort(found, ORDER_COMPARATOR);
+        List<T> elements = new ArrayList<T>(found.size());
+        for (Entry<T> entry : found)
+        {
+            elements.add(entry.element);
+        }
+        return elements;
+    }
+
+    private long getColumn(double x)
+    {
+        return (long) Math.floor(x / cellSize);
+    }
+
+    private long getRow(double y)
+    {
+        return (long) Math.floor(y / cellSize);
+    }
+
+    private static double getCellCount(long minColumn, long maxColumn, long minRow, long maxRow)
+    {
+        return ((double) maxColumn - minColumn + 1) * ((double) maxRow - minRow + 1);
+    }
+
+    private static Long getCellKey(long column, long row)
+    {
+        return Long.valueOf((column << 32) ^ (row & 0xffffffffL));
+    }
+
+    private static boolean isFinite(Rectangle2D bounds)
+    {
+        return !Double.isNaN(bounds.getX()) && !Double.isInfinite(bounds.getX()) &&
+               !Double.isNaN(bounds.getY()) && !Double.isInfinite(bounds.getY()) &&
+               !Double.isNaN(bounds.getWidth()) && !Double.isInfinite(bounds.getWidth()) &&
+               !Double.isNaN(bounds.getHeight()) && !Double.isInfinite(bounds.getHeight());
+    }
+
+    /**
+     * Unlike Rectangle2D#contains, the borders of the bounds are inside
+     */
+    private static boolean isInside(Point2D point, Rectangle2D bounds)
+    {
+        if (!isFinite(bounds))
+        {
+            return true;
+        }
+        return bounds.getMinX() <= point.getX() && point.getX() <= bounds.getMaxX() &&
+               bounds.getMinY() <= point.getY() && point.getY() <= bounds.getMaxY();
+    }
+
+    /**
+     * Unlike Rectangle2D#intersects, empty bounds and touching borders intersect
+     */
+    private static boolean isIntersecting(Rectangle2D area, Rectangle2D bounds)
+    {
+        if (!isFinite(bounds))
+        {
+            return true;
+        }
+        return bounds.getMinX() <= area.getMaxX() && area.getMinX() <= bounds.getMaxX() &&
+               bounds.getMinY() <= area.getMaxY() && area.getMinY() <= bounds.getMaxY();
+    }
+
+    private static class Entry<T>
+    {
+        Entry(T element, long order)
+        {
+            this.element = element;
+            this.order = order;
+        }
+
+        private final T element;
+        private final long order;
+        private Rectangle2D bounds;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final Comparator<Entry> ORDER_COMPARATOR = new Comparator<Entry>()
+    {
+        @Override
+        public int compare(Entry e1, Entry e2)
+        {
+            return Long.compare(e1.order, e2.order);
+        }
+    };
+
+    private final double cellSize;
+    private final Map<T, Entry<T>> entries = new HashMap<T, Entry<T>>();
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<Long, List<Entry<T>>>();
+    private final List<Entry<T>> oversizedEntries = new ArrayList<Entry<T>>();
+    private long nextOrder = 0;
+
+    public static final double DEFAULT_CELL_SIZE = 256;
+    private static final int MAX_CELLS_PER_ENTRY = 64;
+}
@@ -184,6 +184,10 @@ public abstract class AbstractEdge implements IEdge
         }
         this.transitionPoints = transitionPoints;
         refreshContactPoints();
+        if(null != startNode)
+        {
+            startNode.getGraph().onEdgeBoundsChanged(this);
+        }
     }
     
     @Override
@@ -201,8 +205,16 @@ public abstract class AbstractEdge implements IEdge
     @Override
     public Rectangle2D getBounds()
     {
-        Line2D conn = getConnectionPoints();
+        validateContactPoints();
         Rectangle2D r = new Rectangle2D.Double();
+        if(null != contactPoints && contactPoints.length > 1)
+        {
+            Point2D first = contactPoints[0];
+            Point2D last = contactPoints[contactPoints.length - 1];
+            r.setFrameFromDiagonal(first.getX(), first.getY(), last.getX(), last.getY());
+            return r;
+        }
+        Line2D conn = getConnectionPoints();
         r.setFrameFromDiagonal(conn.getX1(), conn.getY1(), conn.getX2(), conn.getY2());
         return r;
     }
@@ -314,10 +326,35 @@ public abstract class AbstractEdge implements IEdge
         };
     }
 
-    private void refreshContactPoints()
+    /**
+     * Computes the contact points again, right now if the edge is connected
+     */
+    protected final void refreshContactPoints()
     {
+        contactPointsGraph = null;
         if(null != startNode && null != endNode && null != startLocation && null != endLocation)
         {
+            validateContactPoints();
+        }
+    }
+
+    /**
+     * Computes the contact points again only if the geometry of the graph has changed
+     * since they were last computed
+     */
+    protected final void validateContactPoints()
+    {
+        if(null == startNode || null == endNode)
+        {
+            return;
+        }
+        IGraph graph = startNode.getGraph();
+        long geometryRevision = graph.getGeometryRevision();
+        if(null == contactPoints || graph != contactPointsGraph || geometryRevision != contactPointsRevision)
+        {
+            // Stored first, so that a change made while computing is seen on next call
+            contactPointsGraph = graph;
+            contactPointsRevision = geometryRevision;
             updateContactPoints();
         }
     }
@@ -325,6 +362,12 @@ public abstract class AbstractEdge implements IEdge
     /** Points of contact path */
     protected transient Point2D[] contactPoints;
 
+    /** Graph whose geometry was used to compute the contact points */
+    private transient IGraph contactPointsGraph;
+
+    /** Geometry revision of this graph when the contact points were computed */
+    private transient long contactPointsRevision;
+
     /** Edge's current id (unique in all the graph) */
     private Id id;
 
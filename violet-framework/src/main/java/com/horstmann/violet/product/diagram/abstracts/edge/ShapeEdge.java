@@ -51,16 +51,24 @@ public abstract class ShapeEdge extends ColorableEdge
 
     public boolean contains(Point2D aPoint)
     {
-        final double MAX_DIST = 10;
+        Shape p = getShape();
+        Rectangle2D bounds = p.getBounds2D();
+        if (aPoint.getX() < bounds.getMinX() - MAX_DIST || aPoint.getX() > bounds.getMaxX() + MAX_DIST
+                || aPoint.getY() < bounds.getMinY() - MAX_DIST || aPoint.getY() > bounds.getMaxY() + MAX_DIST)
+        {
+            return false;
+        }
 
         // the end points may contain small node, so don't
         // match them
         Line2D conn = getConnectionPoints();
         if (aPoint.distance(conn.getP1()) <= MAX_DIST || aPoint.distance(conn.getP2()) <= MAX_DIST) return false;
 
-        Shape p = getShape();
         BasicStroke fatStroke = new BasicStroke((float) (2 * MAX_DIST));
         Shape fatPath = fatStroke.createStrokedShape(p);
         return fatPath.contains(aPoint);
     }
+
+    /** Greatest distance between the edge and a point said to be on it */
+    protected static final double MAX_DIST = 10;
 }
@@ -150,16 +150,7 @@ public abstract class AbstractNode implements INode
      */
     protected List<IEdge> getConnectedEdges()
     {
-        List<IEdge> connectedEdges = new ArrayList<IEdge>();
-        IGraph currentGraph = getGraph();
-        for (IEdge anEdge : currentGraph.getAllEdges()) {
-            INode start = anEdge.getStartNode();
-            INode end = anEdge.getEndNode();
-            if (this.equals(start) || this.equals(end)) {
-                connectedEdges.add(anEdge);
-            }
-        }
-        return connectedEdges;
+        return new ArrayList<IEdge>(getGraph().getConnectedEdges(this));
     }
 
     @Override
@@ -196,6 +187,9 @@ public abstract class AbstractNode implements INode
                 ((AbstractNode) parent).onChildChangeLocation(this);
             }
         }
+        if (null != graph) {
+            graph.onNodeBoundsChanged(this);
+        }
     }
 
     protected void onChildChangeLocation(INode child) {
@@ -343,6 +337,9 @@ public abstract class AbstractNode implements INode
     {
         if (node.getParent() != this) return;
         getChildren().remove(node);
+        if (null != graph) {
+            graph.onNodeHierarchyChanged(node);
+        }
     }
 
     @Override
@@ -391,6 +388,9 @@ public abstract class AbstractNode implements INode
         getChildren().add(index, node);
         node.setParent(this);
         node.setGraph(getGraph());
+        if (null != graph) {
+            graph.onNodeHierarchyChanged(node);
+        }
         return true;
     }
 
@@ -415,6 +415,9 @@ public abstract class AbstractNode implements INode
     public void setZ(int z)
     {
         this.z = z;
+        if (null != graph) {
+            graph.onNodeZChanged(this);
+        }
     }
 
     @Override
@@ -452,6 +455,16 @@ public abstract class AbstractNode implements INode
     protected final void setContent(Content content)
     {
         this.content = content;
+        if (null != content) {
+            content.addRefreshListener(new Content.RefreshListener() {
+                @Override
+                public void onRefresh() {
+                    if (null != graph) {
+                        graph.onNodeBoundsChanged(AbstractNode.this);
+                    }
+                }
+            });
+        }
     }
 
     private transient Content content;
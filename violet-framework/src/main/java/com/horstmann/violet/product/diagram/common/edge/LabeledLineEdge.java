@@ -1,5 +1,6 @@
 package com.horstmann.violet.product.diagram.common.edge;
 
+import com.horstmann.violet.framework.graphics.content.Content;
 import com.horstmann.violet.framework.graphics.content.TextContent;
 import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
 import com.horstmann.violet.product.diagram.abstracts.edge.bentstyle.BentStyle;
@@ -8,6 +9,7 @@ import com.horstmann.violet.product.diagram.property.text.SingleLineText;
 import com.horstmann.violet.product.diagram.abstracts.Direction;
 
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 
@@ -28,9 +30,9 @@ public class LabeledLineEdge extends ArrowheadEdge
         centerLabel = new SingleLineText();
         endLabel = new SingleLineText();
 
-        startTextContent = new TextContent(startLabel);
-        centerTextContent = new TextContent(centerLabel);
-        endTextContent = new TextContent(endLabel);
+        startTextContent = createTextContent(startLabel);
+        centerTextContent = createTextContent(centerLabel);
+        endTextContent = createTextContent(endLabel);
     }
 
     protected LabeledLineEdge(LabeledLineEdge cloned)
@@ -40,9 +42,9 @@ public class LabeledLineEdge extends ArrowheadEdge
         this.centerLabel = cloned.centerLabel.clone();
         this.endLabel = cloned.endLabel.clone();
 
-        startTextContent = new TextContent(startLabel);
-        centerTextContent = new TextContent(centerLabel);
-        endTextContent = new TextContent(endLabel);
+        startTextContent = createTextContent(startLabel);
+        centerTextContent = createTextContent(centerLabel);
+        endTextContent = createTextContent(endLabel);
     }
 
     @Override
@@ -68,15 +70,36 @@ public class LabeledLineEdge extends ArrowheadEdge
 	@Override
 	protected void createContentStructure() {
 		super.createContentStructure();
-		startTextContent = new TextContent(startLabel);
-		centerTextContent = new TextContent(centerLabel);
-		endTextContent = new TextContent(endLabel);
+		startTextContent = createTextContent(startLabel);
+		centerTextContent = createTextContent(centerLabel);
+		endTextContent = createTextContent(endLabel);
 		
 		startLabel.reconstruction();
 		centerLabel.reconstruction();
 		endLabel.reconstruction();
 	}
 	
+    /**
+     * @param label
+     * @return content of the label, which tells the graph when its size changes the edge bounds
+     */
+    private TextContent createTextContent(SingleLineText label)
+    {
+        TextContent textContent = new TextContent(label);
+        textContent.addRefreshListener(new Content.RefreshListener()
+        {
+            @Override
+            public void onRefresh()
+            {
+                if(null != getStartNode() && null != getStartNode().getGraph())
+                {
+                    getStartNode().getGraph().onEdgeBoundsChanged(LabeledLineEdge.this);
+                }
+            }
+        });
+        return textContent;
+    }
+
 	@Override
 	public void setTextColor(Color textColor) {
 		super.setTextColor(textColor);
@@ -105,7 +128,54 @@ public class LabeledLineEdge extends ArrowheadEdge
         drawContent(graphics, endTextContent, contactPoints[contactPoints.length-1], contactPoints[contactPoints.length-2], false);
     }
 
+    /**
+     * Labels have no width limit, so their area is added to the path bounds
+     *
+     * @return bounds of the path and of the labels which are not empty
+     */
+    @Override
+    public Rectangle2D getBounds()
+    {
+        Rectangle2D bounds = new Rectangle2D.Double();
+        bounds.setRect(super.getBounds());
+        addContentBounds(bounds, startLabel, startTextContent, contactPoints[0], contactPoints[1], false);
+        addContentBounds(bounds, centerLabel, centerTextContent, contactPoints[contactPoints.length/2-1], contactPoints[contactPoints.length/2], true);
+        addContentBounds(bounds, endLabel, endTextContent, contactPoints[contactPoints.length-1], contactPoints[contactPoints.length-2], false);
+        return bounds;
+    }
+
     private void drawContent(Graphics2D graphics, TextContent textContent, Point2D startPoint, Point2D endPoint, boolean center)
+    {
+        AffineTransform transform = new AffineTransform();
+        Rectangle2D area = getContentArea(textContent, startPoint, endPoint, center, transform);
+        AffineTransform oldTransform = graphics.getTransform();
+        graphics.transform(transform);
+        textContent.draw(graphics, new Point2D.Double(area.getX(), area.getY()));
+        graphics.setTransform(oldTransform);
+    }
+
+    private void addContentBounds(Rectangle2D bounds, SingleLineText label, TextContent textContent, Point2D startPoint, Point2D endPoint, boolean center)
+    {
+        if(label.toDisplay().isEmpty())
+        {
+            return;
+        }
+        AffineTransform transform = new AffineTransform();
+        Rectangle2D area = getContentArea(textContent, startPoint, endPoint, center, transform);
+        bounds.add(transform.createTransformedShape(area).getBounds2D());
+    }
+
+    /**
+     * Places a label next to a segment of the path
+     *
+     * @param textContent
+     * @param startPoint
+     * @param endPoint
+     * @param center true to place it in the middle of the segment, false to place it at its start
+     * @param transform set to the rotation applied to the label along free and straight paths
+     * @return label area, before this rotation
+     */
+    private Rectangle2D getContentArea(TextContent textContent, Point2D startPoint, Point2D endPoint, boolean center, AffineTransform transform)
     {
         Rectangle2D textBounds = textContent.getBounds();
         Direction direction = new Direction(startPoint, endPoint);
@@ -124,7 +194,8 @@ public class LabeledLineEdge extends ArrowheadEdge
             y = startPoint.getY();
         }
 
-        if(BentStyle.FREE == getBentStyle() || BentStyle.STRAIGHT == getBentStyle())
+        BentStyle bentStyle = getPathBentStyle();
+        if(BentStyle.FREE == bentStyle || BentStyle.STRAIGHT == bentStyle)
         {
             double tan = Math.atan2(direction.getY(), direction.getX());
             if(0>direction.getX())
@@ -132,63 +203,53 @@ public class LabeledLineEdge extends ArrowheadEdge
                 tan+=Math.PI;
             }
 
-            graphics.translate(x,y);
-            graphics.rotate(tan);
+            transform.translate(x,y);
+            transform.rotate(tan);
             if(center)
             {
-            	textContent.draw(graphics, new Point2D.Double(-textContent.getWidth() / 2, -textContent.getHeight()));
+                return new Rectangle2D.Double(-textContent.getWidth() / 2, -textContent.getHeight(), textContent.getWidth(), textContent.getHeight());
+            }
+            if(0>direction.getX())
+            {
+                return new Rectangle2D.Double(-LABEL_GAP - textContent.getWidth(), -textContent.getHeight(), textContent.getWidth(), textContent.getHeight());
+            }
+            return new Rectangle2D.Double(LABEL_GAP, -textContent.getHeight(), textContent.getWidth(), textContent.getHeight());
+        }
+
+        if(center)
+        {
+            if(Direction.NORTH.equals(nearestDirection) || Direction.SOUTH.equals(nearestDirection))
+            {
+                y -= textBounds.getHeight()/2;
             }
             else
             {
-                if(0>direction.getX())
-                {
-                    textContent.draw(graphics, new Point2D.Double(-LABEL_GAP - textContent.getWidth(),-textContent.getHeight()));
-                }
-                else
-                {
-                    textContent.draw(graphics, new Point2D.Double(LABEL_GAP,-textContent.getHeight()));
-                }
+                x -= textBounds.getWidth()/2;
+                y -= textBounds.getHeight();
             }
-            graphics.rotate(-tan);
-            graphics.translate(-x,-y);
         }
         else
         {
-            if(center)
+            if(Direction.EAST.equals(nearestDirection))
             {
-                if(Direction.NORTH.equals(nearestDirection) || Direction.SOUTH.equals(nearestDirection))
-                {
-                    y -= textBounds.getHeight()/2;
-                }
-                else
-                {
-                    x -= textBounds.getWidth()/2;
-                    y -= textBounds.getHeight();
-                }
+                x += LABEL_GAP;
+                y -= textBounds.getHeight();
             }
-            else
+            else if(Direction.WEST.equals(nearestDirection))
             {
-                if(Direction.EAST.equals(nearestDirection))
-                {
-                    x += LABEL_GAP;
-                    y -= textBounds.getHeight();
-                }
-                else if(Direction.WEST.equals(nearestDirection))
-                {
-                    x -= textBounds.getWidth() + LABEL_GAP;
-                    y -= textBounds.getHeight();
-                }
-                else if(Direction.SOUTH.equals(nearestDirection))
-                {
-                    y += LABEL_GAP;
-                }
-                else if(Direction.NORTH.equals(nearestDirection))
-                {
-                    y -= textBounds.getHeight() + LABEL_GAP;
-                }
+                x -= textBounds.getWidth() + LABEL_GAP;
+                y -= textBounds.getHeight();
+            }
+            else if(Direction.SOUTH.equals(nearestDirection))
+            {
+                y += LABEL_GAP;
+            }
+            else if(Direction.NORTH.equals(nearestDirection))
+            {
+                y -= textBounds.getHeight() + LABEL_GAP;
             }
-            textContent.draw(graphics, new Point2D.Double(x,y));
         }
+        return new Rectangle2D.Double(x, y, textBounds.getWidth(), textBounds.getHeight());
     }
 
     public LineText getStartLabel()
@@ -80,7 +80,7 @@ public abstract class LineEdge extends ShapeEdge
      */
     public void draw(Graphics2D graphics)
     {
-        updateContactPoints();
+        validateContactPoints();
 
         Color oldColor = graphics.getColor();
         Stroke oldStroke = graphics.getStroke();
@@ -95,22 +95,93 @@ public abstract class LineEdge extends ShapeEdge
     @Override
     public Shape getShape()
     {
+        validateContactPoints();
         return getPath();
     }
 
-    protected GeneralPath getPath()
+    /**
+     * Tells if a point is near one of the segments of the edge. Unlike ShapeEdge, which strokes
+     * the whole shape for each point, it only measures distances to the cached contact points.
+     * Subclasses whose shape is not the path through the contact points must override it.
+     *
+     * @param aPoint the point to test
+     * @return true if the point is on the edge, but not near its ends
+     */
+    @Override
+    public boolean contains(Point2D aPoint)
     {
-        GeneralPath path = new GeneralPath();
-        path.moveTo(contactPoints[0].getX(), contactPoints[0].getY());
+        validateContactPoints();
+        getPath();
+        if (!pathBounds.contains(aPoint))
+        {
+            return false;
+        }
 
+        // the end points may contain small node, so don't
+        // match them
+        Point2D startPoint = contactPoints[0];
+        Point2D endPoint = contactPoints[contactPoints.length - 1];
+        if (aPoint.distance(startPoint) <= MAX_DIST || aPoint.distance(endPoint) <= MAX_DIST)
+        {
+            return false;
+        }
+
+        double maxDistanceSq = MAX_DIST * MAX_DIST;
         for (int i = 1; i < contactPoints.length; ++i)
         {
-            path.lineTo(contactPoints[i].getX(), contactPoints[i].getY());
+            if (Line2D.ptSegDistSq(contactPoints[i - 1].getX(), contactPoints[i - 1].getY(),
+                    contactPoints[i].getX(), contactPoints[i].getY(), aPoint.getX(), aPoint.getY()) <= maxDistanceSq)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the path through the current contact points, built once for them
+     */
+    protected GeneralPath getPath()
+    {
+        if (null == path || pathContactPoints != contactPoints)
+        {
+            path = new GeneralPath();
+            path.moveTo(contactPoints[0].getX(), contactPoints[0].getY());
+
+            for (int i = 1; i < contactPoints.length; ++i)
+            {
+                path.lineTo(contactPoints[i].getX(), contactPoints[i].getY());
+            }
+            pathBounds = path.getBounds2D();
+            pathBounds.setRect(pathBounds.getX() - MAX_DIST, pathBounds.getY() - MAX_DIST,
+                    pathBounds.getWidth() + 2 * MAX_DIST, pathBounds.getHeight() + 2 * MAX_DIST);
+            pathBentStyle = getBentStyle();
+            pathContactPoints = contactPoints;
         }
         return path;
     }
 
+    /**
+     * @return the bent style of the current path, resolved if the bent style is AUTO
+     */
+    protected final BentStyle getPathBentStyle()
+    {
+        getPath();
+        return pathBentStyle;
+    }
+
     protected void updateContactPoints()
+    {
+        BentStyle bentStyle = getBentStyle();
+        updateContactPoints(bentStyle);
+        // The AUTO bent style depends on the contact points, which may have moved enough to change it
+        if (!bentStyle.equals(getBentStyle()))
+        {
+            updateContactPoints(getBentStyle());
+        }
+    }
+
+    private void updateContactPoints(BentStyle bentStyle)
     {
         Line2D connectionPoints = getConnectionPoints();
 
@@ -137,7 +208,7 @@ public abstract class LineEdge extends ShapeEdge
             points.add(endingPoint);
 
             Point2D[] bentStylePointsAsArray = points.toArray(new Point2D[points.size()]);
-            points = getBentStyle().getPath(bentStylePointsAsArray);
+            points = bentStyle.getPath(bentStylePointsAsArray);
             contactPoints = new Point2D[points.size()];
             points.toArray(contactPoints);
         }
@@ -162,6 +233,7 @@ public abstract class LineEdge extends ShapeEdge
     {
         this.bentStyleChoiceList = (BentStyleChoiceList)bentStyleChoiceList;
         this.selectedBentStyle = this.bentStyleChoiceList.getSelectedPos();
+        refreshContactPoints();
     }
 
     /**
@@ -246,6 +318,7 @@ public abstract class LineEdge extends ShapeEdge
         if(bentStyleChoiceList.setSelectedValue(bentStyle))
         {
             this.selectedBentStyle = bentStyleChoiceList.getSelectedPos();
+            refreshContactPoints();
         }
     }
 
@@ -255,6 +328,11 @@ public abstract class LineEdge extends ShapeEdge
     private int selectedBentStyle;
     private int selectedLineStyle;
 
+    private transient GeneralPath path;
+    private transient Rectangle2D pathBounds;
+    private transient Point2D[] pathContactPoints;
+    private transient BentStyle pathBentStyle;
+
     public static final int SELF_LOOP_GAP_X = 20;
     public static final int SELF_LOOP_GAP_Y = 22;
 }
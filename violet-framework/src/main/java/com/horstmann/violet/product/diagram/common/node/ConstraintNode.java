@@ -150,7 +150,9 @@ public class ConstraintNode extends ColorableNode
         fold.lineTo((float) bounds.getMaxX() - FOLD_X, (float) bounds.getY() + FOLD_X);
         fold.lineTo((float) bounds.getMaxX(), (float) (bounds.getY() + FOLD_Y));
         fold.closePath();
-        graphics.setColor(ThemeManager.getInstance().getTheme().getWhiteColor());
+        // No theme when rendered without GUI
+        ThemeManager themeManager = ThemeManager.getInstance();
+        graphics.setColor(null != themeManager ? themeManager.getTheme().getWhiteColor() : Color.WHITE);
         graphics.fill(fold);
         graphics.setColor(getBorderColor());
         graphics.draw(fold);
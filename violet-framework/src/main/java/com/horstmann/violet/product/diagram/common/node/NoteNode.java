@@ -115,7 +115,9 @@ public class NoteNode extends ColorableNode
         fold.lineTo((float) bounds.getMaxX() - FOLD_X, (float) bounds.getY() + FOLD_X);
         fold.lineTo((float) bounds.getMaxX(), (float) (bounds.getY() + FOLD_Y));
         fold.closePath();
-        graphics.setColor(ThemeManager.getInstance().getTheme().getWhiteColor());
+        // No theme when rendered without GUI
+        ThemeManager themeManager = ThemeManager.getInstance();
+        graphics.setColor(null != themeManager ? themeManager.getTheme().getWhiteColor() : Color.WHITE);
         graphics.fill(fold);
         graphics.setColor(getBorderColor());
         graphics.draw(fold);
@@ -153,7 +155,7 @@ public class NoteNode extends ColorableNode
     @Override
     public int getZ()
     {
-        for (IEdge e : getGraph().getAllEdges())
+        for (IEdge e : getConnectedEdges())
         {
             if (e.getStartNode() == this)
             {
@@ -0,0 +1,497 @@
+package com.horstmann.violet.product.diagram.property.text;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lays out and draws the small HTML subset produced by the text decorators
+ * (b, i, u, font size, br and center) with TextLayout instead of the Swing HTML engine.
+ *
+ * Other tags are not markup and are drawn as they are. Laid out texts are immutable
+ * and shared through a cache, so the same text with the same font is only laid out once.
+ *
+ * @see com.horstmann.violet.product.diagram.property.text.decorator.OneLineText#toDisplay()
+ */
+public final class HtmlTextLayout
+{
+    private HtmlTextLayout(List<Line> lines)
+    {
+        this.lines = lines;
+        double maxWidth = 0;
+        double totalHeight = 0;
+        for (Line line : lines)
+        {
+            maxWidth = Math.max(maxWidth, line.width);
+            totalHeight += line.height;
+        }
+        this.width = maxWidth;
+        this.height = totalHeight;
+    }
+
+    /**
+     * Returns the laid out text, from the cache when the same text was already laid out with this font
+     *
+     * @param text text which may contain decorator tags
+     * @param font base font
+     * @return laid out text
+     */
+    public static HtmlTextLayout getLayout(String text, Font font)
+    {
+        if (null == text)
+        {
+            text = "";
+        }
+        if (null == font)
+        {
+            throw new NullPointerException("font can't be null");
+        }
+        CacheKey key = new CacheKey(text, font);
+        synchronized (CACHE)
+        {
+            HtmlTextLayout layout = CACHE.get(key);
+            if (null != layout)
+            {
+                return layout;
+            }
+        }
+        HtmlTextLayout layout = new Parser(font).parse(text);
+        synchronized (CACHE)
+        {
+            CACHE.put(key, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * @return width of the widest line
+     */
+    public double getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * @return height of all lines
+     */
+    public double getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * @return number of lines
+     */
+    public int getLineCount()
+    {
+        return lines.size();
+    }
+
+    /**
+     * Draws the text with the current color of the graphics
+     *
+     * @param graphics
+     * @param x left side of the text
+     * @param y top of the text
+     */
+    public void draw(Graphics2D graphics, double x, double y)
+    {
+        double baseline = y;
+        for (Line line : lines)
+        {
+            baseline += line.ascent;
+            if (null != line.layout)
+            {
+                double lineX = x;
+                if (line.centered)
+                {
+                    lineX += (width - line.width) / 2;
+                }
+                line.layout.draw(graphics, (float) lineX, (float) baseline);
+            }
+            baseline += line.height - line.ascent;
+        }
+    }
+
+    /**
+     * A laid out line of text
+     */
+    private static class Line
+    {
+        Line(TextLayout layout, boolean centered)
+        {
+            this.layout = layout;
+            this.centered = centered;
+            this.width = layout.getAdvance();
+            this.ascent = layout.getAscent();
+            this.height = Math.ceil(layout.getAscent() + layout.getDescent() + layout.getLeading());
+        }
+
+        Line(LineMetrics metrics)
+        {
+            this.layout = null;
+            this.centered = false;
+            this.width = 0;
+            this.ascent = metrics.getAscent();
+            this.height = Math.ceil(metrics.getHeight());
+        }
+
+        private final TextLayout layout;
+        private final boolean centered;
+        private final double width;
+        private final double ascent;
+
+        /**
+         * Rounded up so that lines start on whole pixels, like the lines of a component
+         */
+        private final double height;
+    }
+
+    /**
+     * Splits the text in lines of styled runs
+     */
+    private static class Parser
+    {
+        Parser(Font baseFont)
+        {
+            this.baseFont = baseFont;
+        }
+
+        HtmlTextLayout parse(String text)
+        {
+            int position = 0;
+            while (position < text.length())
+            {
+                char character = text.charAt(position);
+                if ('<' == character)
+                {
+                    Matcher matcher = TAG_PATTERN.matcher(text).region(position, text.length());
+                    if (matcher.lookingAt())
+                    {
+                        onTag(!matcher.group(1).isEmpty(), matcher.group(2).toLowerCase(Locale.ENGLISH), matcher.group(3));
+                        position = matcher.end();
+                        continue;
+                    }
+                }
+                else if ('&' == character)
+                {
+                    Matcher matcher = ENTITY_PATTERN.matcher(text).region(position, text.length());
+                    if (matcher.lookingAt())
+                    {
+                        String entity = decodeEntity(matcher.group(1));
+                        if (null != entity)
+                        {
+                            appendText(entity);
+                            position = matcher.end();
+                            continue;
+                        }
+                    }
+                }
+                if (Character.isWhitespace(character))
+                {
+                    appendSpace();
+                }
+                else
+                {
+                    appendText(String.valueOf(character));
+                }
+                ++position;
+            }
+            if (0 < lineText.length() || lines.isEmpty())
+            {
+                endLine();
+            }
+            return new HtmlTextLayout(Collections.unmodifiableList(lines));
+        }
+
+        private void onTag(boolean closing, String name, String attributes)
+        {
+            if ("b".equals(name))
+            {
+                bold += closing ? (0 < bold ? -1 : 0) : 1;
+            }
+            else if ("i".equals(name))
+            {
+                italic += closing ? (0 < italic ? -1 : 0) : 1;
+            }
+            else if ("u".equals(name))
+            {
+                underline += closing ? (0 < underline ? -1 : 0) : 1;
+            }
+            else if ("font".equals(name))
+            {
+                if (closing)
+                {
+                    if (!sizes.isEmpty())
+                    {
+                        sizes.remove(sizes.size() - 1);
+                    }
+                }
+                else
+                {
+                    sizes.add(getSizeIndex(attributes));
+                }
+            }
+            else if ("br".equals(name))
+            {
+                endLine();
+            }
+            else if ("center".equals(name))
+            {
+                if (0 < lineText.length())
+                {
+                    endLine();
+                }
+                centered += closing ? (0 < centered ? -1 : 0) : 1;
+            }
+        }
+
+        private void appendSpace()
+        {
+            if (0 < lineText.length() && !pendingSpace)
+            {
+                pendingSpace = true;
+                pendingSpaceAttributes = getAttributes();
+            }
+        }
+
+        private void appendText(String text)
+        {
+            if (pendingSpace)
+            {
+                append(" ", pendingSpaceAttributes);
+                pendingSpace = false;
+            }
+            append(text, getAttributes());
+        }
+
+        private void append(String text, Map<TextAttribute, Object> attributes)
+        {
+            int start = lineText.length();
+            lineText.append(text);
+            lineRuns.add(new Run(start, lineText.length(), attributes));
+        }
+
+        private void endLine()
+        {
+            if (0 == lineText.length())
+            {
+                lines.add(new Line(getFont().getLineMetrics(" ", FONT_RENDER_CONTEXT)));
+            }
+            else
+            {
+                AttributedString attributedString = new AttributedString(lineText.toString());
+                for (Run run : lineRuns)
+                {
+                    attributedString.addAttributes(run.attributes, run.start, run.end);
+                }
+                TextLayout layout = new TextLayout(attributedString.getIterator(), FONT_RENDER_CONTEXT);
+                lines.add(new Line(layout, 0 < centered));
+            }
+            lineText.setLength(0);
+            lineRuns.clear();
+            pendingSpace = false;
+        }
+
+        private Map<TextAttribute, Object> getAttributes()
+        {
+            Map<TextAttribute, Object> attributes = new LinkedHashMap<TextAttribute, Object>();
+            attributes.put(TextAttribute.FONT, getFont());
+            if (0 < underline)
+            {
+                attributes.put(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
+            }
+            return attributes;
+        }
+
+        private Font getFont()
+        {
+            int style = baseFont.getStyle();
+            if (0 < bold)
+            {
+                style |= Font.BOLD;
+            }
+            if (0 < italic)
+            {
+                style |= Font.ITALIC;
+            }
+            int sizeIndex = sizes.isEmpty() ? BASE_SIZE_INDEX : sizes.get(sizes.size() - 1);
+            float size = baseFont.getSize2D() * FONT_SIZES[sizeIndex] / FONT_SIZES[BASE_SIZE_INDEX];
+            if (style == baseFont.getStyle() && size == baseFont.getSize2D())
+            {
+                return baseFont;
+            }
+            return baseFont.deriveFont(style, size);
+        }
+
+        /**
+         * @param attributes attributes of a font tag
+         * @return index in FONT_SIZES given by the size attribute as HTML understands it
+         */
+        private int getSizeIndex(String attributes)
+        {
+            int current = sizes.isEmpty() ? BASE_SIZE_INDEX : sizes.get(sizes.size() - 1);
+            if (null == attributes)
+            {
+                return current;
+            }
+            Matcher matcher = SIZE_PATTERN.matcher(attributes);
+            if (!matcher.find())
+            {
+                return current;
+            }
+            int value = Integer.parseInt(matcher.group(2));
+            int index;
+            if ("+".equals(matcher.group(1)))
+            {
+                index = RELATIVE_SIZE_INDEX + value;
+            }
+            else if ("-".equals(matcher.group(1)))
+            {
+                index = RELATIVE_SIZE_INDEX - value;
+            }
+            else
+            {
+                index = value - 1;
+            }
+            return Math.max(0, Math.min(FONT_SIZES.length - 1, index));
+        }
+
+        private static String decodeEntity(String entity)
+        {
+            if (entity.startsWith("#"))
+            {
+                try
+                {
+                    return new String(Character.toChars(Integer.parseInt(entity.substring(1))));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    return null;
+                }
+            }
+            return ENTITIES.get(entity.toLowerCase(Locale.ENGLISH));
+        }
+
+        private final Font baseFont;
+        private final List<Line> lines = new ArrayList<Line>();
+        private final StringBuilder lineText = new StringBuilder();
+        private final List<Run> lineRuns = new ArrayList<Run>();
+        private final List<Integer> sizes = new ArrayList<Integer>();
+        private int bold = 0;
+        private int italic = 0;
+        private int underline = 0;
+        private int centered = 0;
+        private boolean pendingSpace = false;
+        private Map<TextAttribute, Object> pendingSpaceAttributes;
+    }
+
+    /**
+     * Part of a line with the same style
+     */
+    private static class Run
+    {
+        Run(int start, int end, Map<TextAttribute, Object> attributes)
+        {
+            this.start = start;
+            this.end = end;
+            this.attributes = attributes;
+        }
+
+        private final int start;
+        private final int end;
+        private final Map<TextAttribute, Object> attributes;
+    }
+
+    private static class CacheKey
+    {
+        CacheKey(String text, Font font)
+        {
+            this.text = text;
+            this.font = font;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object)
+            {
+                return true;
+            }
+            if (!(object instanceof CacheKey))
+            {
+                return false;
+            }
+            CacheKey other = (CacheKey) object;
+            return text.equals(other.text) && font.equals(other.font);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * text.hashCode() + font.hashCode();
+        }
+
+        private final String text;
+        private final Font font;
+    }
+
+    private final List<Line> lines;
+    private final double width;
+    private final double height;
+
+    /**
+     * Font sizes of the HTML size attribute, from 1 to 7
+     */
+    private static final float[] FONT_SIZES = {8, 10, 12, 14, 18, 24, 36};
+    private static final int BASE_SIZE_INDEX = 2;
+
+    /**
+     * Like the Swing HTML engine, relative sizes are counted from size 4 and not from the size of the text
+     */
+    private static final int RELATIVE_SIZE_INDEX = 3;
+
+    private static final Pattern TAG_PATTERN = Pattern.compile("<(/?)(b|i|u|font|br|center|html)(\\s[^<>]*)?/?>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ENTITY_PATTERN = Pattern.compile("&(#[0-9]{1,7}|[a-zA-Z]+);");
+    private static final Pattern SIZE_PATTERN = Pattern.compile("size\\s*=\\s*[\"']?([+-]?)([0-9]+)", Pattern.CASE_INSENSITIVE);
+    private static final Map<String, String> ENTITIES = new LinkedHashMap<String, String>();
+
+    static
+    {
+        ENTITIES.put("lt", "<");
+        ENTITIES.put("gt", ">");
+        ENTITIES.put("amp", "&");
+        ENTITIES.put("quot", "\"");
+        ENTITIES.put("apos", "'");
+        ENTITIES.put("nbsp", "\u00a0");
+        ENTITIES.put("laquo", "\u00ab");
+        ENTITIES.put("raquo", "\u00bb");
+    }
+
+    /**
+     * Texts are measured independently of the zoom, so that a text always has the same size in the diagram
+     */
+    private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, true, true);
+
+    private static final int CACHE_SIZE = 2048;
+    private static final Map<CacheKey, HtmlTextLayout> CACHE = new LinkedHashMap<CacheKey, HtmlTextLayout>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, HtmlTextLayout> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    };
+}
@@ -3,7 +3,6 @@ package com.horstmann.violet.product.diagram.property.text;
 import com.horstmann.violet.product.diagram.property.text.decorator.OneLineText;
 
 import javax.swing.*;
-import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
@@ -45,11 +44,7 @@ public abstract class LineText implements Serializable, Cloneable, EditableText
     }
 
     protected LineText(final LineText lineText) throws CloneNotSupportedException {
-        getLabel().setHorizontalAlignment(lineText.getLabel().getHorizontalAlignment());
-        getLabel().setVerticalAlignment(lineText.getLabel().getVerticalAlignment());
-        getLabel().setForeground(lineText.getLabel().getForeground());
-        getLabel().setBorder(lineText.getLabel().getBorder());
-        getLabel().setText(lineText.getLabel().getText());
+        label = new TextLabel(lineText.getLabel());
         converter = lineText.converter;
     }
     
@@ -146,7 +141,7 @@ public abstract class LineText implements Serializable, Cloneable, EditableText
      * @param right
      */
     public final void setPadding(int top, int left, int bottom, int right) {
-        getLabel().setBorder(new EmptyBorder(top, left, bottom, right));
+        getLabel().setPadding(new Insets(top, left, bottom, right));
         refresh();
     }
 
@@ -176,7 +171,7 @@ public abstract class LineText implements Serializable, Cloneable, EditableText
      * @param rect
      */
     public final void draw(Graphics2D graphics, Rectangle2D rect) {
-        getLabel().setBounds(0, 0, (int) rect.getWidth(), (int) rect.getHeight());
+        paintSize = new Dimension((int) rect.getWidth(), (int) rect.getHeight());
         draw(graphics, new Point2D.Double(rect.getX(), rect.getY()));
     }
 
@@ -187,8 +182,11 @@ public abstract class LineText implements Serializable, Cloneable, EditableText
      * @param point
      */
     public final void draw(Graphics2D graphics, Point2D point) {
+        if (null == paintSize) {
+            return;
+        }
         graphics.translate(point.getX(), point.getY());
-        getLabel().paint(graphics);
+        getLabel().paint(graphics, paintSize.getWidth(), paintSize.getHeight());
         graphics.translate(-point.getX(), -point.getY());
     }
 
@@ -198,7 +196,7 @@ public abstract class LineText implements Serializable, Cloneable, EditableText
      * @param graphics
      */
     public final void draw(Graphics2D graphics) {
-        getLabel().setBounds(0, 0, (int) getBounds().getWidth(), (int) getBounds().getHeight());
+        paintSize = new Dimension((int) getBounds().getWidth(), (int) getBounds().getHeight());
         draw(graphics, new Point2D.Double(0, 0));
     }
 
@@ -242,21 +240,16 @@ public abstract class LineText implements Serializable, Cloneable, EditableText
      * Recalculate preferred size for text
      */
     private void refresh() {
-        if (getLabel().getText().isEmpty()) {
-            this.bounds = new Rectangle2D.Double(0, 0, 0, 0);
-        } else {
-            Dimension dimension = getLabel().getPreferredSize();
-            this.bounds = new Rectangle2D.Double(0, 0, dimension.getWidth(), dimension.getHeight());
-        }
+        this.bounds = getLabel().getPreferredBounds();
     }
 
     /**
      * @return label
-     * @see JLabel
+     * @see TextLabel
      */
-    private JLabel getLabel() {
-        if (null == label || null == label.getText()) {
-            label = new JLabel("");
+    private TextLabel getLabel() {
+        if (null == label) {
+            label = new TextLabel();
         }
         return label;
     }
@@ -283,8 +276,9 @@ public abstract class LineText implements Serializable, Cloneable, EditableText
     public static final int RIGHT = SwingConstants.RIGHT;
 
     protected transient Converter converter;
-    private transient JLabel label;
+    private transient TextLabel label;
     private transient Rectangle2D bounds;
+    private transient Dimension paintSize;
 
     private transient List<ChangeListener> changeListeners;
 }
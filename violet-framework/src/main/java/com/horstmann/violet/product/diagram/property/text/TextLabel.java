@@ -0,0 +1,164 @@
+package com.horstmann.violet.product.diagram.property.text;
+
+import javax.swing.SwingConstants;
+import javax.swing.UIManager;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Lightweight replacement of the JLabel which used to paint LineText.
+ * It keeps the same defaults and layout rules but draws with HtmlTextLayout.
+ *
+ * @see HtmlTextLayout
+ */
+class TextLabel
+{
+    TextLabel()
+    {
+        Font defaultFont = UIManager.getFont("Label.font");
+        Color defaultForeground = UIManager.getColor("Label.foreground");
+        this.font = (null != defaultFont) ? defaultFont : DEFAULT_FONT;
+        this.foreground = (null != defaultForeground) ? defaultForeground : Color.BLACK;
+    }
+
+    TextLabel(TextLabel textLabel)
+    {
+        this.font = textLabel.font;
+        this.text = textLabel.text;
+        this.foreground = textLabel.foreground;
+        this.padding = (Insets) textLabel.padding.clone();
+        this.horizontalAlignment = textLabel.horizontalAlignment;
+        this.verticalAlignment = textLabel.verticalAlignment;
+    }
+
+    String getText()
+    {
+        return text;
+    }
+
+    void setText(String text)
+    {
+        this.text = (null == text) ? "" : text;
+        this.layout = null;
+    }
+
+    Color getForeground()
+    {
+        return foreground;
+    }
+
+    void setForeground(Color foreground)
+    {
+        this.foreground = foreground;
+    }
+
+    Insets getPadding()
+    {
+        return (Insets) padding.clone();
+    }
+
+    void setPadding(Insets padding)
+    {
+        this.padding = (Insets) padding.clone();
+    }
+
+    int getHorizontalAlignment()
+    {
+        return horizontalAlignment;
+    }
+
+    void setHorizontalAlignment(int horizontalAlignment)
+    {
+        this.horizontalAlignment = horizontalAlignment;
+    }
+
+    int getVerticalAlignment()
+    {
+        return verticalAlignment;
+    }
+
+    void setVerticalAlignment(int verticalAlignment)
+    {
+        this.verticalAlignment = verticalAlignment;
+    }
+
+    /**
+     * @return size of the text with its padding, rounded up like a component size
+     */
+    Rectangle2D getPreferredBounds()
+    {
+        if (text.isEmpty())
+        {
+            return new Rectangle2D.Double(0, 0, 0, 0);
+        }
+        HtmlTextLayout textLayout = getLayout();
+        return new Rectangle2D.Double(0, 0,
+                Math.ceil(textLayout.getWidth()) + padding.left + padding.right,
+                Math.ceil(textLayout.getHeight()) + padding.top + padding.bottom
+        );
+    }
+
+    /**
+     * Draws the text aligned in an area starting at (0, 0)
+     *
+     * @param graphics
+     * @param width of the area
+     * @param height of the area
+     */
+    void paint(Graphics2D graphics, double width, double height)
+    {
+        if (text.isEmpty())
+        {
+            return;
+        }
+        HtmlTextLayout textLayout = getLayout();
+        double x = padding.left + getAlignmentFactor(horizontalAlignment) * (width - padding.left - padding.right - textLayout.getWidth());
+        double y = padding.top + getAlignmentFactor(verticalAlignment) * (height - padding.top - padding.bottom - textLayout.getHeight());
+
+        Color oldColor = graphics.getColor();
+        graphics.setColor(foreground);
+        textLayout.draw(graphics, x, y);
+        graphics.setColor(oldColor);
+    }
+
+    private HtmlTextLayout getLayout()
+    {
+        if (null == layout)
+        {
+            layout = HtmlTextLayout.getLayout(text, font);
+        }
+        return layout;
+    }
+
+    /**
+     * @param alignment SwingConstants alignment
+     * @return part of the free space placed before the text
+     */
+    private static double getAlignmentFactor(int alignment)
+    {
+        switch (alignment)
+        {
+            case SwingConstants.CENTER:
+                return 0.5;
+            case SwingConstants.RIGHT:
+            case SwingConstants.TRAILING:
+            case SwingConstants.BOTTOM:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    private final Font font;
+    private String text = "";
+    private Color foreground;
+    private Insets padding = new Insets(0, 0, 0, 0);
+    private int horizontalAlignment = SwingConstants.LEADING;
+    private int verticalAlignment = SwingConstants.CENTER;
+    private HtmlTextLayout layout;
+
+    private static final Font DEFAULT_FONT = new Font(Font.DIALOG, Font.PLAIN, 12);
+}
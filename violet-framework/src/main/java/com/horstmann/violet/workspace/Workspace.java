@@ -97,7 +97,7 @@ public class Workspace implements IWorkspace
                 updateTitle(false);
             }
         });
-        getAWTComponent().prepareLayout();
+        // The editor part and the side bar are built when the workspace is displayed
     }
 
     /**
@@ -170,6 +170,7 @@ public class Workspace implements IWorkspace
         behaviorManager.addBehavior(new ChangeToolByWeelBehavior(graphToolsBar));
         behaviorManager.addBehavior(new ShowMenuOnRightClickBehavior(this.graphEditor));
         behaviorManager.addBehavior(new UndoRedoCompoundBehavior(this.graphEditor));
+        behaviorManager.addBehavior(new EditJournalBehavior(this.graphEditor, this.getGraphFile().getEditJournal()));
         behaviorManager.addBehavior(new CutCopyPasteBehavior(this.graphEditor));
         behaviorManager.addBehavior(new SwingRepaintingBehavior(this.graphEditor));
         behaviorManager.addBehavior(new ColorizeBehavior(this, colorChoiceBar));
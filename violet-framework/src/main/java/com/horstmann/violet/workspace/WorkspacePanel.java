@@ -33,8 +33,17 @@ public class WorkspacePanel extends JPanel
         this.workspace = workspace;
     }
 
+    /**
+     * Builds the editor part and the side bar of the workspace, and puts them in this panel.
+     * Does nothing if it has already been done.
+     */
     public void prepareLayout()
     {
+        if (this.isLayoutPrepared)
+        {
+            return;
+        }
+        this.isLayoutPrepared = true;
         LayoutManager layout = new BorderLayout();
         setLayout(layout);
         JScrollPane scrollGPanel = getScrollableEditorPart();
@@ -46,6 +55,17 @@ public class WorkspacePanel extends JPanel
         refreshDisplay();
     }
 
+    /**
+     * The layout is prepared the first time this panel is displayed, so that workspaces which are
+     * opened but never shown don't build their editor part
+     */
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        prepareLayout();
+    }
+
     
     
 
@@ -138,6 +158,7 @@ public class WorkspacePanel extends JPanel
     private JScrollPane scrollableSideBar;
     private JScrollPane scrollableEditorPart;
     private JScrollPane scrollableStatusBar;
+    private boolean isLayoutPrepared = false;
 
 
 }
@@ -59,6 +59,11 @@ public class EditorPart extends JPanel implements IEditorPart
      */
     private IEditorPartBehaviorManager behaviorManager = new EditorPartBehaviorManager();
 
+    /**
+     * Collects the areas to repaint.
+     */
+    private IEditorPartDamageTracker damageTracker = new EditorPartDamageTracker(this);
+
     /**
      * Factor used to grow drawing area.
      */
@@ -296,25 +301,50 @@ public class EditorPart extends JPanel implements IEditorPart
     @Override
     protected void paintComponent(final Graphics g)
     {
-        final boolean valid = getSwingComponent().isValid();
-        if (valid)
+        if (!getSwingComponent().isValid())
         {
-            return;
+            getSwingComponent().revalidate(); // to inform parent scrollpane container
         }
-        getSwingComponent().revalidate(); // to inform parent scrollpane container
         final Graphics2D g2 = (Graphics2D) g;
+        final Rectangle2D visibleGraphBounds = getVisibleGraphBounds(g);
         g2.scale(zoom, zoom);
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
         if (grid.isVisible())
         {
             grid.paint(g2);
         }
+        else if (null != visibleGraphBounds)
+        {
+            // Only a part of the editor may be repainted, so the previous drawing has to be erased
+            g2.setColor(getBackground());
+            g2.fill(visibleGraphBounds);
+        }
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        graph.draw(g2);
+        graph.draw(g2, visibleGraphBounds);
         for (final IEditorPartBehavior behavior : this.behaviorManager.getBehaviors())
         {
             behavior.onPaint(g2);
         }
+        damageTracker.onPaint();
+    }
+
+    /**
+     * @param g graphics context, not yet scaled
+     * @return the area to paint, in graph coordinates, or null if the whole graph has to be painted
+     */
+    private Rectangle2D getVisibleGraphBounds(final Graphics g)
+    {
+        Rectangle visibleBounds = g.getClipBounds();
+        if (null == visibleBounds)
+        {
+            visibleBounds = getVisibleRect();
+        }
+        if (visibleBounds.isEmpty())
+        {
+            return null;
+        }
+        return new Rectangle2D.Double(visibleBounds.getX() / zoom, visibleBounds.getY() / zoom,
+                visibleBounds.getWidth() / zoom, visibleBounds.getHeight() / zoom);
     }
 
     @Override
@@ -329,4 +359,24 @@ public class EditorPart extends JPanel implements IEditorPart
         return this.behaviorManager;
     }
 
+    @Override
+    public IEditorPartDamageTracker getDamageTracker()
+    {
+        return this.damageTracker;
+    }
+
+    /**
+     * All the repaint requests end here, so the tracker knows every area to repaint
+     */
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height)
+    {
+        super.repaint(tm, x, y, width, height);
+        // Also called by the JPanel constructor, before the tracker exists
+        if (null != this.damageTracker)
+        {
+            this.damageTracker.addRepaintedArea(new Rectangle(x, y, width, height));
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.horstmann.violet.workspace.editorpart;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import javax.swing.JComponent;
+
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+
+public class EditorPartDamageTracker implements IEditorPartDamageTracker
+{
+
+    public EditorPartDamageTracker(IEditorPart editorPart)
+    {
+        this.editorPart = editorPart;
+    }
+
+    @Override
+    public void addDamagedNode(INode node)
+    {
+        // Parents can be resized by their children so the whole tree is repainted
+        INode root = node;
+        while (null != root.getParent())
+        {
+            root = root.getParent();
+        }
+        addDamagedNodeTree(root);
+    }
+
+    private void addDamagedNodeTree(INode node)
+    {
+        addDamagedArea(getBoundsOnGraph(node));
+        for (IEdge anEdge : editorPart.getGraph().getConnectedEdges(node))
+        {
+            addDamagedEdge(anEdge);
+        }
+        for (INode aChild : node.getChildren())
+        {
+            addDamagedNodeTree(aChild);
+        }
+    }
+
+    @Override
+    public void addDamagedEdge(IEdge edge)
+    {
+        INode startNode = edge.getStartNode();
+        INode endNode = edge.getEndNode();
+        if (null == startNode || null == endNode)
+        {
+            return;
+        }
+        // Contact points are only updated when the edge is drawn, so the edge may be anywhere between its node
+        Rectangle2D edgeArea = new Rectangle2D.Double();
+        edgeArea.setRect(edge.getBounds());
+        edgeArea.add(getBoundsOnGraph(startNode));
+        edgeArea.add(getBoundsOnGraph(endNode));
+        for (Point2D aTransitionPoint : edge.getTransitionPoints())
+        {
+            edgeArea.add(aTransitionPoint);
+        }
+        addDamagedArea(grow(edgeArea, EDGE_MARGIN));
+    }
+
+    @Override
+    public void addDamagedArea(Rectangle2D area)
+    {
+        if (null == damagedArea)
+        {
+            damagedArea = new Rectangle2D.Double(area.getX(), area.getY(), area.getWidth(), area.getHeight());
+        }
+        else
+        {
+            damagedArea.add(area);
+        }
+    }
+
+    @Override
+    public void repaintDamagedArea()
+    {
+        JComponent component = editorPart.getSwingComponent();
+        IGraph graph = editorPart.getGraph();
+        // Events which leave the graph geometry as it is can't change its bounds
+        long geometryRevision = graph.getGeometryRevision();
+        if (null == lastGraphBounds || geometryRevision != lastGeometryRevision)
+        {
+            lastGeometryRevision = geometryRevision;
+            Rectangle2D graphBounds = graph.getClipBounds();
+            if (!graphBounds.equals(lastGraphBounds))
+            {
+                lastGraphBounds = graphBounds;
+                isGraphBoundsChanged = true;
+                component.revalidate();
+            }
+        }
+        Rectangle2D selectionArea = getSelectionArea();
+        if (null != selectionArea)
+        {
+            addDamagedArea(selectionArea);
+        }
+        if (null != paintedSelectionArea)
+        {
+            addDamagedArea(paintedSelectionArea);
+        }
+        if (null == damagedArea)
+        {
+            return;
+        }
+        Rectangle2D area = grow(damagedArea, MARGIN);
+        damagedArea = null;
+        double zoom = editorPart.getZoomFactor();
+        int x = (int) Math.floor(area.getX() * zoom);
+        int y = (int) Math.floor(area.getY() * zoom);
+        int width = (int) Math.ceil(area.getMaxX() * zoom) - x;
+        int height = (int) Math.ceil(area.getMaxY() * zoom) - y;
+        component.repaint(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void onPaint()
+    {
+        paintedSelectionArea = getSelectionArea();
+        repaintedArea = null;
+    }
+
+    @Override
+    public void addRepaintedArea(Rectangle area)
+    {
+        if (null == repaintedArea)
+        {
+            repaintedArea = new Rectangle(area);
+        }
+        else
+        {
+            repaintedArea.add(area);
+        }
+    }
+
+    @Override
+    public Rectangle takeRepaintedArea()
+    {
+        Rectangle area = repaintedArea;
+        repaintedArea = null;
+        return area;
+    }
+
+    @Override
+    public boolean takeGraphBoundsChange()
+    {
+        boolean isChanged = isGraphBoundsChanged;
+        isGraphBoundsChanged = false;
+        return isChanged;
+    }
+
+    /**
+     * @return area covered by the selected elements and their grabbers, or null if nothing is selected
+     */
+    private Rectangle2D getSelectionArea()
+    {
+        IEditorPartSelectionHandler selectionHandler = editorPart.getSelectionHandler();
+        Rectangle2D selectionArea = null;
+        for (INode aNode : selectionHandler.getSelectedNodes())
+        {
+            Rectangle2D nodeArea = getBoundsOnGraph(aNode);
+            if (null == selectionArea)
+            {
+                selectionArea = nodeArea;
+            }
+            selectionArea.add(nodeArea);
+        }
+        for (IEdge anEdge : selectionHandler.getSelectedEdges())
+        {
+            if (null == anEdge.getStartNode() || null == anEdge.getEndNode())
+            {
+                continue;
+            }
+            Rectangle2D edgeArea = new Rectangle2D.Double();
+            edgeArea.setRect(anEdge.getBounds());
+            for (Point2D aTransitionPoint : anEdge.getTransitionPoints())
+            {
+                edgeArea.add(aTransitionPoint);
+            }
+            if (null == selectionArea)
+            {
+                selectionArea = edgeArea;
+            }
+            selectionArea.add(edgeArea);
+        }
+        return selectionArea;
+    }
+
+    private static Rectangle2D getBoundsOnGraph(INode node)
+    {
+        Point2D locationOnGraph = node.getLocationOnGraph();
+        Rectangle2D bounds = node.getBounds();
+        return new Rectangle2D.Double(locationOnGraph.getX(), locationOnGraph.getY(), bounds.getWidth(), bounds.getHeight());
+    }
+
+    private static Rectangle2D grow(Rectangle2D area, double margin)
+    {
+        return new Rectangle2D.Double(area.getX() - margin, area.getY() - margin, area.getWidth() + 2 * margin, area.getHeight() + 2 * margin);
+    }
+
+    private IEditorPart editorPart;
+
+    private Rectangle2D damagedArea;
+
+    private Rectangle2D paintedSelectionArea;
+
+    private Rectangle2D lastGraphBounds;
+
+    private long lastGeometryRevision;
+
+    /** Union of the areas Swing has been asked to repaint since the last painting */
+    private Rectangle repaintedArea;
+
+    private boolean isGraphBoundsChanged = true;
+
+    /** Covers shadows, borders and selection grabbers drawn outside the element bounds */
+    private static final double MARGIN = 10;
+
+    /** Covers arrow heads, which are drawn beyond the edge bounds unlike labels */
+    private static final double EDGE_MARGIN = 20;
+}
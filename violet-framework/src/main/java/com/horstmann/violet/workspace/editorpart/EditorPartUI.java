@@ -3,7 +3,9 @@ package com.horstmann.violet.workspace.editorpart;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
 
 import javax.swing.JComponent;
 import javax.swing.plaf.PanelUI;
@@ -36,9 +38,17 @@ public class EditorPartUI extends PanelUI
         super.paint(g, c);
         Graphics2D g2 = (Graphics2D) g;
         grid.paint(g2);
+        Rectangle clip = g2.getClipBounds();
         g2.scale(zoom, zoom);
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        graph.draw(g2);
+        if (null != clip)
+        {
+            graph.draw(g2, new Rectangle2D.Double(clip.getX() / zoom, clip.getY() / zoom, clip.getWidth() / zoom, clip.getHeight() / zoom));
+        }
+        else
+        {
+            graph.draw(g2);
+        }
         for (IEditorPartBehavior paintableBehaviour : editor.getBehaviorManager().getBehaviors()) {
             paintableBehaviour.onPaint(g2);
         }
@@ -86,4 +86,9 @@ public interface IEditorPart
      */
     IEditorPartBehaviorManager getBehaviorManager();
 
+    /**
+     * @return object that collects the areas to repaint after a change
+     */
+    IEditorPartDamageTracker getDamageTracker();
+
 }
\ No newline at end of file
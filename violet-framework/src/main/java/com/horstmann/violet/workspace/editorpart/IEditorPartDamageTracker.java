@@ -0,0 +1,71 @@
+package com.horstmann.violet.workspace.editorpart;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+
+/**
+ * Collects the parts of the editor which have to be repainted after a change, so that only them are painted again.
+ * Elements have to be declared before and after being modified to cover both their old and their new location.
+ */
+public interface IEditorPartDamageTracker
+{
+
+    /**
+     * Declares the area currently covered by a node_old, its children and the edges connected to them
+     * 
+     * @param node
+     */
+    public abstract void addDamagedNode(INode node);
+
+    /**
+     * Declares the area currently covered by an edge
+     * 
+     * @param edge
+     */
+    public abstract void addDamagedEdge(IEdge edge);
+
+    /**
+     * Declares an area to repaint
+     * 
+     * @param area in graph coordinates
+     */
+    public abstract void addDamagedArea(Rectangle2D area);
+
+    /**
+     * Asks Swing to repaint the collected areas (and the selection grabbers) and forgets them. The editor size is only
+     * recomputed if the graph bounds have changed.
+     */
+    public abstract void repaintDamagedArea();
+
+    /**
+     * Tells the tracker that the editor has been painted
+     */
+    public abstract void onPaint();
+
+    /**
+     * Records an area of the editor which Swing has been asked to repaint
+     * 
+     * @param area in editor coordinates
+     */
+    public abstract void addRepaintedArea(Rectangle area);
+
+    /**
+     * Takes the areas of the editor asked to be repainted since the last call or the last painting, for editors which
+     * are not painted by Swing (i.e. in a web page)
+     * 
+     * @return area in editor coordinates, or null if nothing has to be repainted
+     */
+    public abstract Rectangle takeRepaintedArea();
+
+    /**
+     * Tells if the graph bounds have changed since the last call, as found when repainting damaged areas, for editors
+     * which are not laid out by Swing
+     * 
+     * @return true on the first call
+     */
+    public abstract boolean takeGraphBoundsChange();
+
+}
@@ -24,6 +24,7 @@ package com.horstmann.violet.workspace.editorpart;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
@@ -113,16 +114,24 @@ public class PlainGrid implements IGrid
     public void paint(Graphics2D g2)
     {
         if (snappingWidth == 0 || snappingHeight == 0) return;
-        Color oldColor = g2.getColor();
         Rectangle2D.Double bounds = getBounds(g2);
+        // Only the part of the grid which has to be repainted is drawn
+        Rectangle2D paintedBounds = bounds;
+        Rectangle clip = g2.getClipBounds();
+        if (clip != null) paintedBounds = bounds.createIntersection(clip);
+        if (paintedBounds.isEmpty()) return;
+        Color oldColor = g2.getColor();
         g2.setColor(Color.WHITE);
-        g2.fill(bounds);
+        g2.fill(paintedBounds);
         g2.setColor(ThemeManager.getInstance().getTheme().getGridColor());
         Stroke oldStroke = g2.getStroke();
-        for (double x = bounds.getX(); x < bounds.getMaxX(); x += snappingWidth)
-            g2.draw(new Line2D.Double(x, bounds.getY(), x, bounds.getMaxY()));
-        for (double y = bounds.getY(); y < bounds.getMaxY(); y += snappingHeight)
-            g2.draw(new Line2D.Double(bounds.getX(), y, bounds.getMaxX(), y));
+        // Lines stay on the same positions as when the whole grid is drawn
+        double firstX = bounds.getX() + Math.floor((paintedBounds.getX() - bounds.getX()) / snappingWidth) * snappingWidth;
+        double firstY = bounds.getY() + Math.floor((paintedBounds.getY() - bounds.getY()) / snappingHeight) * snappingHeight;
+        for (double x = firstX; x < paintedBounds.getMaxX(); x += snappingWidth)
+            g2.draw(new Line2D.Double(x, paintedBounds.getY(), x, paintedBounds.getMaxY()));
+        for (double y = firstY; y < paintedBounds.getMaxY(); y += snappingHeight)
+            g2.draw(new Line2D.Double(paintedBounds.getX(), y, paintedBounds.getMaxX(), y));
         g2.setStroke(oldStroke);
         g2.setColor(oldColor);
     }
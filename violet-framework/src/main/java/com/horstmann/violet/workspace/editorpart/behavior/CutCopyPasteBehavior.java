@@ -1,19 +1,17 @@
 package com.horstmann.violet.workspace.editorpart.behavior;
 
-import com.horstmann.violet.framework.file.GraphFile;
-import com.horstmann.violet.framework.file.IGraphFile;
-import com.horstmann.violet.framework.file.persistence.IFilePersistenceService;
-import com.horstmann.violet.framework.file.persistence.XStreamBasedPersistenceService;
+import com.horstmann.violet.framework.file.persistence.StaxPersistenceService;
 import com.horstmann.violet.framework.injection.bean.ManiocFramework.BeanInjector;
 import com.horstmann.violet.framework.injection.resources.ResourceBundleInjector;
 import com.horstmann.violet.framework.injection.resources.annotation.ResourceBundleBean;
+import com.horstmann.violet.framework.util.GraphTransferable;
 import com.horstmann.violet.product.diagram.abstracts.IGraph;
-import com.horstmann.violet.product.diagram.abstracts.Id;
 import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
 import com.horstmann.violet.product.diagram.abstracts.node.IInitialStateNode;
 import com.horstmann.violet.product.diagram.abstracts.node.INode;
 import com.horstmann.violet.workspace.editorpart.IEditorPart;
 import com.horstmann.violet.workspace.editorpart.IEditorPartBehaviorManager;
+import com.horstmann.violet.workspace.editorpart.IEditorPartDamageTracker;
 import com.horstmann.violet.workspace.editorpart.IEditorPartSelectionHandler;
 
 import javax.swing.undo.*;
@@ -22,9 +20,8 @@ import java.awt.datatransfer.*;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.List;
@@ -45,7 +42,7 @@ public class CutCopyPasteBehavior extends AbstractEditorPartBehavior
      * Used to convert graph to XML and to get graph back from XML
      */
 
-    private IFilePersistenceService persistenceService = new XStreamBasedPersistenceService();
+    private StaxPersistenceService persistenceService = new StaxPersistenceService();
 
     /**
      * Keep mouse location to paste on just above the current mouse location
@@ -79,8 +76,7 @@ public class CutCopyPasteBehavior extends AbstractEditorPartBehavior
     {
         copy();
         editorPart.removeSelected();
-        editorPart.getSwingComponent().invalidate();
-        editorPart.getSwingComponent().repaint();
+        editorPart.getDamageTracker().repaintDamagedArea();
     }
 
     /**
@@ -89,53 +85,36 @@ public class CutCopyPasteBehavior extends AbstractEditorPartBehavior
     public void copy()
     {
         IGraph graph = editorPart.getGraph();
-        Class<? extends IGraph> graphClass = graph.getClass();
-        IGraphFile newGraphFile = new GraphFile(graphClass);
-        IGraph newGraph = newGraphFile.getGraph();
+        IGraph clipboardGraph;
+        try
+        {
+            clipboardGraph = graph.getClass().newInstance();
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
         IEditorPartSelectionHandler selectionHandler = editorPart.getSelectionHandler();
         List<INode> selectedNodes = selectionHandler.getSelectedNodes();
-        // We use an mapper for ids because they are changed when each node_old is added to the newGraph
-        Map<Id, Id> idMapper = new HashMap<Id, Id>();
+        Set<INode> selectedNodeSet = new HashSet<INode>(selectedNodes);
+        // Copies by node_old, children included, so that edges are connected without searching for their ends
+        Map<INode, INode> copiedNodes = new IdentityHashMap<INode, INode>();
         for (INode aSelectedNode : selectedNodes)
         {
-            if (isAncestorInCollection(aSelectedNode, selectedNodes))
+            if (isAncestorInCollection(aSelectedNode, selectedNodeSet))
             {
-                // In this case, id doesn't change. It only changes on newGraph.addNode()
-                Id currentId = aSelectedNode.getId();
-                idMapper.put(currentId, currentId);
+                // Copied with its ancestor
                 continue;
             }
             INode clone = aSelectedNode.clone();
-            Id oldId = clone.getId();
-            Point2D locationOnGraph = aSelectedNode.getLocationOnGraph();
-            newGraph.addNode(clone, locationOnGraph);
-            Id newId = clone.getId();
-            idMapper.put(oldId, newId);
+            clipboardGraph.addNode(clone, aSelectedNode.getLocationOnGraph());
+            mapClones(aSelectedNode, clone, copiedNodes);
         }
-        List<IEdge> selectedEdges = selectionHandler.getSelectedEdges();
-        for (IEdge aSelectedEdge : selectedEdges)
+        for (IEdge aSelectedEdge : selectionHandler.getSelectedEdges())
         {
-            IEdge clone = aSelectedEdge.clone();
-            Point2D startLocation = clone.getStartLocation();
-            Point2D endLocation = clone.getEndLocation();
-            Point2D[] transitionPoints = clone.getTransitionPoints();
-            Id oldStartId = clone.getStartNode().getId();
-            Id oldEndId = clone.getEndNode().getId();
-            Id newStartId = idMapper.get(oldStartId);
-            Id newEndId = idMapper.get(oldEndId);
-            INode startNode = newGraph.findNode(newStartId);
-            INode endNode = newGraph.findNode(newEndId);
-            if (startNode != null && endNode != null)
-            {
-                newGraph.connect(clone, startNode, startLocation, endNode, endLocation, transitionPoints);
-            }
+            copyEdge(aSelectedEdge, clipboardGraph, copiedNodes);
         }
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        persistenceService.write(newGraph, byteArrayOutputStream);
-        byteArrayOutputStream.toString();
-        String xmlContent = byteArrayOutputStream.toString();
-        pushContentToSystemClipboard(xmlContent);
-
+        pushContentToSystemClipboard(new GraphTransferable(clipboardGraph, this.persistenceService));
     }
 
     /**
@@ -146,61 +125,134 @@ public class CutCopyPasteBehavior extends AbstractEditorPartBehavior
         IGraph graph = this.editorPart.getGraph();
         try
         {
-            String xmlContent = getContentFromSystemClipboard();
-            if (xmlContent == null)
+            IGraph clipboardGraph = getGraphFromSystemClipboard();
+            if (clipboardGraph == null)
             {
                 return; // If no content, we stop here
             }
-            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(xmlContent.getBytes());
-            IGraph deserializedGraph = persistenceService.read(byteArrayInputStream);
-            deserializedGraph = translateToMouseLocation(deserializedGraph, this.lastMouseLocation);
-
-            Collection<INode> nodesFromClipboard = deserializedGraph.getAllNodes();
-            List<INode> nodes = filterOnNodePrototypes(nodesFromClipboard);
+            Rectangle2D clipBounds = clipboardGraph.getClipBounds();
+            double dx = this.lastMouseLocation.getX() - clipBounds.getX();
+            double dy = this.lastMouseLocation.getY() - clipBounds.getY();
+
+            // Elements on the clipboard are copied again, so that they can be pasted many times
+            List<INode> nodes = filterOnNodePrototypes(clipboardGraph.getAllNodes());
+            Set<INode> nodeSet = new HashSet<INode>(nodes);
+            Map<INode, INode> pastedNodes = new IdentityHashMap<INode, INode>();
             List<INode> nodesReallyPasted = new ArrayList<INode>();
             for (INode aNode : nodes)
             {
-                if (isAncestorInCollection(aNode, nodes)) continue;
-                boolean isAdded = graph.addNode(aNode, aNode.getLocationOnGraph());
+                if (isAncestorInCollection(aNode, nodeSet)) continue;
+                INode clone = aNode.clone();
+                Point2D locationOnGraph = aNode.getLocationOnGraph();
+                Point2D location = new Point2D.Double(locationOnGraph.getX() + dx, locationOnGraph.getY() + dy);
+                boolean isAdded = graph.addNode(clone, location);
                 if (isAdded)
                 {
-                    nodesReallyPasted.add(aNode);
+                    nodesReallyPasted.add(clone);
+                    mapClones(aNode, clone, pastedNodes);
                 }
             }
 
-            Collection<IEdge> edgesFromClipboard = deserializedGraph.getAllEdges();
-            List<IEdge> edges = filterOnEdgePrototypes(edgesFromClipboard);
+            List<IEdge> edges = filterOnEdgePrototypes(clipboardGraph.getAllEdges());
             List<IEdge> edgesReallyPasted = new ArrayList<IEdge>();
             for (IEdge anEdge : edges)
             {
-                Point2D startLocation = anEdge.getStartLocation();
-                Point2D endLocation = anEdge.getEndLocation();
-                Point2D[] transitionPoints = anEdge.getTransitionPoints();
-                INode startNode = graph.findNode(anEdge.getStartNode().getId());
-                INode endNode = graph.findNode(anEdge.getEndNode().getId());
-                if (startNode != null && endNode != null)
+                IEdge clone = copyEdge(anEdge, graph, pastedNodes);
+                if (clone != null)
                 {
-                    boolean isConnected = graph.connect(anEdge, startNode, startLocation, endNode, endLocation, transitionPoints);
-                    if (isConnected)
-                    {
-                        edgesReallyPasted.add(anEdge);
-                    }
+                    edgesReallyPasted.add(clone);
                 }
             }
 
             addUndoRedoSupport(nodesReallyPasted, edgesReallyPasted);
+            // Pasted children keep the ids of the copied ones, which edit journal entries can't tell apart
+            for (EditJournalBehavior aJournalBehavior : this.editorPart.getBehaviorManager().getBehaviors(EditJournalBehavior.class))
+            {
+                aJournalBehavior.onGraphChanged();
+            }
             selectPastedElements(nodesReallyPasted, edgesReallyPasted);
 
-            editorPart.getSwingComponent().invalidate();
-            editorPart.getSwingComponent().repaint();
+            IEditorPartDamageTracker damageTracker = editorPart.getDamageTracker();
+            for (INode aNode : nodesReallyPasted)
+            {
+                damageTracker.addDamagedNode(aNode);
+            }
+            for (IEdge anEdge : edgesReallyPasted)
+            {
+                damageTracker.addDamagedEdge(anEdge);
+            }
+            damageTracker.repaintDamagedArea();
 
-            validatePaste(nodes, graph);
+            validatePaste(nodesReallyPasted, graph);
         }
         catch (IOException e)
         {
         }
     }
 
+    /**
+     * Records the copies of a node_old and of its children, which have been cloned with it
+     *
+     * @param node
+     * @param clone
+     * @param clones copies by node_old
+     */
+    private void mapClones(INode node, INode clone, Map<INode, INode> clones)
+    {
+        clones.put(node, clone);
+        List<INode> children = node.getChildren();
+        List<INode> clonedChildren = clone.getChildren();
+        if (children.size() != clonedChildren.size())
+        {
+            return;
+        }
+        for (int i = 0; i < children.size(); i++)
+        {
+            mapClones(children.get(i), clonedChildren.get(i), clones);
+        }
+    }
+
+    /**
+     * Connects a copy of an edge to the copies of its ends
+     *
+     * @param edge
+     * @param targetGraph graph to add the copy to
+     * @param copiedNodes copies by node_old
+     * @return the copy, or null if it has not been connected
+     */
+    private IEdge copyEdge(IEdge edge, IGraph targetGraph, Map<INode, INode> copiedNodes)
+    {
+        INode startNode = copiedNodes.get(edge.getStartNode());
+        INode endNode = copiedNodes.get(edge.getEndNode());
+        if (startNode == null || endNode == null)
+        {
+            return null;
+        }
+        IEdge clone = edge.clone();
+        boolean isConnected = targetGraph.connect(clone, startNode, copyPoint(edge.getStartLocation()), endNode,
+                copyPoint(edge.getEndLocation()), copyPoints(edge.getTransitionPoints()));
+        return isConnected ? clone : null;
+    }
+
+    private Point2D copyPoint(Point2D point)
+    {
+        return point == null ? null : (Point2D) point.clone();
+    }
+
+    private Point2D[] copyPoints(Point2D[] points)
+    {
+        if (points == null)
+        {
+            return null;
+        }
+        Point2D[] copies = new Point2D[points.length];
+        for (int i = 0; i < points.length; i++)
+        {
+            copies[i] = copyPoint(points[i]);
+        }
+        return copies;
+    }
+
     private void validatePaste(List<INode> nodes, IGraph graph){
         if(checkIfNumberOfInitialNodesIsMoreThanOne(nodes, graph))
         {
@@ -395,70 +447,49 @@ public class CutCopyPasteBehavior extends AbstractEditorPartBehavior
         return result;
     }
 
-    /**
-     * Moves all the node of a graph to a location
-     *
-     * @param graph
-     * @param mouseLocation
-     * @return the modified graph
-     */
-    private IGraph translateToMouseLocation(IGraph graph, Point2D mouseLocation)
-    {
-        Rectangle2D clipBounds = graph.getClipBounds();
-        double dx = mouseLocation.getX() - clipBounds.getX();
-        double dy = mouseLocation.getY() - clipBounds.getY();
-        Collection<INode> nodes = graph.getAllNodes();
-        for (INode aNode : nodes)
-        {
-            boolean hasParent = (aNode.getParent() != null);
-            if (!hasParent)
-            {
-                aNode.translate(dx, dy);
-            }
-        }
-        return graph;
-    }
-
     /**
      * Deals with system wide clipboard
      *
      * @param content
      */
-    private void pushContentToSystemClipboard(String content)
+    private void pushContentToSystemClipboard(GraphTransferable content)
     {
-        StringSelection dataToClip = new StringSelection(content);
         Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-        clipboard.setContents(dataToClip, dataToClip);
+        clipboard.setContents(content, content);
     }
 
     /**
-     * Deals with system wide clipboard
+     * Deals with system wide clipboard. Graph elements copied from this application are taken as they are,
+     * others are read from XML.
      *
-     * @return
+     * @return the graph on the clipboard, or null if there isn't any
+     * @throws IOException
      */
-    private String getContentFromSystemClipboard()
+    private IGraph getGraphFromSystemClipboard() throws IOException
     {
         Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
         Transferable clipData = clipboard.getContents(clipboard);
-        if (clipData != null)
+        if (clipData == null)
         {
-            try
-            {
-                if (clipData.isDataFlavorSupported(DataFlavor.stringFlavor))
-                {
-                    String s = (String) (clipData.getTransferData(DataFlavor.stringFlavor));
-                    return s;
-                }
-            }
-            catch (UnsupportedFlavorException ufe)
+            return null;
+        }
+        try
+        {
+            if (clipData.isDataFlavorSupported(GraphTransferable.GRAPH_FLAVOR))
             {
-                return null;
+                GraphTransferable graphTransferable = (GraphTransferable) clipData.getTransferData(GraphTransferable.GRAPH_FLAVOR);
+                return graphTransferable.getGraph();
             }
-            catch (IOException ioe)
+            if (clipData.isDataFlavorSupported(DataFlavor.stringFlavor))
             {
-                return null;
+                String xmlContent = (String) clipData.getTransferData(DataFlavor.stringFlavor);
+                return persistenceService.read(new StringReader(xmlContent));
             }
         }
+        catch (UnsupportedFlavorException ufe)
+        {
+            return null;
+        }
         return null;
     }
 
@@ -494,45 +525,13 @@ public class CutCopyPasteBehavior extends AbstractEditorPartBehavior
      * @param ancestorList
      * @return b
      */
-    private boolean isAncestorInCollection(INode childNode, Collection<INode> ancestorList)
-    {
-        for (INode anAncestorNode : ancestorList)
-        {
-            boolean ancestorRelationship = isAncestorRelationship(childNode, anAncestorNode);
-            if (ancestorRelationship) return true;
-        }
-        return false;
-    }
-
-    /**
-     * Checks if ancestorNode is a parent node_old of child node_old
-     *
-     * @param childNode
-     * @param ancestorNode
-     * @return b
-     */
-    private boolean isAncestorRelationship(INode childNode, INode ancestorNode)
+    private boolean isAncestorInCollection(INode childNode, Set<INode> ancestorList)
     {
         INode parent = childNode.getParent();
-        if (parent == null)
-        {
-            return false;
-        }
-        List<INode> fifo = new ArrayList<INode>();
-        fifo.add(parent);
-        while (!fifo.isEmpty())
+        while (parent != null)
         {
-            INode aParentNode = fifo.get(0);
-            fifo.remove(0);
-            if (aParentNode.equals(ancestorNode))
-            {
-                return true;
-            }
-            INode aGranParent = aParentNode.getParent();
-            if (aGranParent != null)
-            {
-                fifo.add(aGranParent);
-            }
+            if (ancestorList.contains(parent)) return true;
+            parent = parent.getParent();
         }
         return false;
     }
@@ -12,6 +12,7 @@ import com.horstmann.violet.product.diagram.abstracts.IGridSticker;
 import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
 import com.horstmann.violet.product.diagram.abstracts.node.INode;
 import com.horstmann.violet.workspace.editorpart.IEditorPart;
+import com.horstmann.violet.workspace.editorpart.IEditorPartDamageTracker;
 import com.horstmann.violet.workspace.editorpart.IEditorPartSelectionHandler;
 import com.horstmann.violet.workspace.sidebar.graphtools.GraphTool;
 import com.horstmann.violet.workspace.sidebar.graphtools.IGraphToolsBar;
@@ -87,6 +88,12 @@ public class DragSelectedBehavior extends AbstractEditorPartBehavior {
         dx = Math.max(dx, -bounds.getX());
         dy = Math.max(dy, -bounds.getY());
 
+        // Old locations have to be repainted too
+        IEditorPartDamageTracker damageTracker = editorPart.getDamageTracker();
+        for (INode n : selectedNodes) {
+            damageTracker.addDamagedNode(n);
+        }
+
         boolean isAtLeastOneNodeMoved = false;
         IGridSticker gridSticker = graph.getGridSticker();
         for (INode n : selectedNodes) {
@@ -123,8 +130,10 @@ public class DragSelectedBehavior extends AbstractEditorPartBehavior {
         if (isAtLeastOneNodeMoved) {
             Point2D snappedMousePoint = gridSticker.snap(mousePoint);
             if (!snappedMousePoint.equals(lastMousePoint)) {
-                editorPart.getSwingComponent().invalidate();
-                editorPart.getSwingComponent().repaint();
+                for (INode n : selectedNodes) {
+                    damageTracker.addDamagedNode(n);
+                }
+                damageTracker.repaintDamagedArea();
             }
             lastMousePoint = snappedMousePoint;
         }
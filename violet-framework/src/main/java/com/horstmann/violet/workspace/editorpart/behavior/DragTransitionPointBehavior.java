@@ -86,6 +86,7 @@ public class DragTransitionPointBehavior extends AbstractEditorPartBehavior
             Point2D newTransitionPoint = new Point2D.Double(newTransitionPointLocationX, newTransitionPointLocationY);
             newTransitionPoint = gridSticker.snap(newTransitionPoint);
             this.edgeTransitionPointToDrag.setLocation(newTransitionPoint.getX(), newTransitionPoint.getY());
+            editorPart.getGraph().onEdgeBoundsChanged(getSelectedEdge());
             // Save mouse location for next dragging sequence
             Point2D snappedMousePoint = gridSticker.snap(mousePoint);
             if (!snappedMousePoint.equals(lastMousePoint)) {
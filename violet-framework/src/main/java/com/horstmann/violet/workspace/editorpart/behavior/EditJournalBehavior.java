@@ -0,0 +1,165 @@
+package com.horstmann.violet.workspace.editorpart.behavior;
+
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.horstmann.violet.framework.file.persistence.EditJournal;
+import com.horstmann.violet.product.diagram.abstracts.IColorable;
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+import com.horstmann.violet.workspace.editorpart.IEditorPart;
+import com.horstmann.violet.workspace.editorpart.IEditorPartSelectionHandler;
+
+/**
+ * Records in the edit journal of a graph file the elements changed by the same events as the undo/redo
+ * behaviors, so that auto saves only write these elements
+ */
+public class EditJournalBehavior extends AbstractEditorPartBehavior
+{
+
+    /**
+     * Default constructor
+     *
+     * @param editorPart
+     * @param editJournal
+     */
+    public EditJournalBehavior(IEditorPart editorPart, EditJournal editJournal)
+    {
+        this.editorPart = editorPart;
+        this.selectionHandler = editorPart.getSelectionHandler();
+        this.editJournal = editJournal;
+    }
+
+    /**
+     * Tells that the graph has been changed without any event, so that it is saved as a whole
+     */
+    public void onGraphChanged()
+    {
+        this.editJournal.graphChanged();
+    }
+
+    @Override
+    public void onMousePressed(MouseEvent event)
+    {
+        this.isDragInProgress = false;
+    }
+
+    @Override
+    public void onMouseDragged(MouseEvent event)
+    {
+        this.isDragInProgress = true;
+    }
+
+    @Override
+    public void onMouseReleased(MouseEvent event)
+    {
+        if (!this.isDragInProgress)
+        {
+            return;
+        }
+        this.isDragInProgress = false;
+        for (INode aSelectedNode : this.selectionHandler.getSelectedNodes())
+        {
+            this.editJournal.nodeChanged(aSelectedNode);
+        }
+        for (IEdge aSelectedEdge : this.selectionHandler.getSelectedEdges())
+        {
+            this.editJournal.edgeChanged(aSelectedEdge);
+        }
+    }
+
+    @Override
+    public void afterAddingNodeAtPoint(INode node, Point2D location)
+    {
+        this.editJournal.nodeChanged(node);
+    }
+
+    @Override
+    public void afterAddingEdgeAtPoints(IEdge edge, Point2D startPoint, Point2D endPoint)
+    {
+        this.editJournal.edgeChanged(edge);
+        // Some node_old change when they are connected (i.e. activation bars are added to lifelines)
+        if (null != edge.getStartNode())
+        {
+            this.editJournal.nodeChanged(edge.getStartNode());
+        }
+        if (null != edge.getEndNode())
+        {
+            this.editJournal.nodeChanged(edge.getEndNode());
+        }
+    }
+
+    @Override
+    public void beforeRemovingSelectedElements()
+    {
+        this.nodesBeforeRemove.clear();
+        this.edgesBeforeRemove.clear();
+        this.nodesBeforeRemove.addAll(this.editorPart.getGraph().getAllNodes());
+        this.edgesBeforeRemove.addAll(this.editorPart.getGraph().getAllEdges());
+    }
+
+    @Override
+    public void afterRemovingSelectedElements()
+    {
+        List<INode> removedNodes = new ArrayList<INode>(this.nodesBeforeRemove);
+        removedNodes.removeAll(this.editorPart.getGraph().getAllNodes());
+        List<IEdge> removedEdges = new ArrayList<IEdge>(this.edgesBeforeRemove);
+        removedEdges.removeAll(this.editorPart.getGraph().getAllEdges());
+        for (INode aRemovedNode : removedNodes)
+        {
+            this.editJournal.elementRemoved(aRemovedNode.getId());
+        }
+        for (IEdge aRemovedEdge : removedEdges)
+        {
+            this.editJournal.elementRemoved(aRemovedEdge.getId());
+        }
+        this.nodesBeforeRemove.clear();
+        this.edgesBeforeRemove.clear();
+    }
+
+    @Override
+    public void afterEditingNode(INode node)
+    {
+        this.editJournal.nodeChanged(node);
+    }
+
+    @Override
+    public void afterEditingEdge(IEdge edge)
+    {
+        this.editJournal.edgeChanged(edge);
+    }
+
+    @Override
+    public void afterChangingTransitionPointsOnEdge(IEdge edge)
+    {
+        this.editJournal.edgeChanged(edge);
+    }
+
+    @Override
+    public void afterChangingColorOnElement(IColorable element)
+    {
+        if (element instanceof INode)
+        {
+            this.editJournal.nodeChanged((INode) element);
+        }
+        if (element instanceof IEdge)
+        {
+            this.editJournal.edgeChanged((IEdge) element);
+        }
+    }
+
+    private IEditorPart editorPart;
+
+    private IEditorPartSelectionHandler selectionHandler;
+
+    private EditJournal editJournal;
+
+    private boolean isDragInProgress = false;
+
+    private List<INode> nodesBeforeRemove = new ArrayList<INode>();
+
+    private List<IEdge> edgesBeforeRemove = new ArrayList<IEdge>();
+
+}
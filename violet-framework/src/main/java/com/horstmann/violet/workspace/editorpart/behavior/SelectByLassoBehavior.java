@@ -5,7 +5,9 @@ import java.awt.Graphics2D;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import com.horstmann.violet.framework.util.KeyModifierUtil;
 import com.horstmann.violet.product.diagram.abstracts.IGraph;
@@ -13,6 +15,7 @@ import com.horstmann.violet.product.diagram.abstracts.IGridSticker;
 import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
 import com.horstmann.violet.product.diagram.abstracts.node.INode;
 import com.horstmann.violet.workspace.editorpart.IEditorPart;
+import com.horstmann.violet.workspace.editorpart.IEditorPartDamageTracker;
 import com.horstmann.violet.workspace.editorpart.IEditorPartSelectionHandler;
 import com.horstmann.violet.workspace.sidebar.graphtools.GraphTool;
 import com.horstmann.violet.workspace.sidebar.graphtools.IGraphToolsBar;
@@ -73,48 +76,88 @@ public class SelectByLassoBehavior extends AbstractEditorPartBehavior
         double x2 = mousePoint.getX();
         double y2 = mousePoint.getY();
         Rectangle2D.Double lasso = new Rectangle2D.Double(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x1 - x2), Math.abs(y1 - y2));
-        Iterator<INode> iterOnNodes = graph.getAllNodes().iterator();
-        while (iterOnNodes.hasNext())
+        // Only elements near the lasso can be inside it, the others are just removed from selection
+        Set<INode> nodesInLasso = new LinkedHashSet<INode>();
+        for (INode n : graph.findNodes(lasso))
         {
-            INode n = (INode) iterOnNodes.next();
+            Point2D locationOnGraph = n.getLocationOnGraph();
             Rectangle2D bounds = n.getBounds();
-            if (!lasso.contains(bounds))
+            Rectangle2D boundsOnGraph = new Rectangle2D.Double(locationOnGraph.getX(), locationOnGraph.getY(), bounds.getWidth(), bounds.getHeight());
+            if (lasso.contains(boundsOnGraph))
             {
-                selectionHandler.removeElementFromSelection(n);
+                nodesInLasso.add(n);
             }
-            else if (lasso.contains(bounds))
+        }
+        for (INode n : new ArrayList<INode>(selectionHandler.getSelectedNodes()))
+        {
+            if (!nodesInLasso.contains(n))
             {
-                selectionHandler.addSelectedElement(n);
+                selectionHandler.removeElementFromSelection(n);
             }
         }
-        Iterator<IEdge> iterOnEdges = graph.getAllEdges().iterator();
-        while (iterOnEdges.hasNext())
+        for (INode n : nodesInLasso)
         {
-            IEdge e = (IEdge) iterOnEdges.next();
-            Rectangle2D bounds = e.getBounds();
-            if (!lasso.contains(bounds))
+            selectionHandler.addSelectedElement(n);
+        }
+        Set<IEdge> edgesInLasso = new LinkedHashSet<IEdge>();
+        for (IEdge e : graph.findEdges(lasso))
+        {
+            if (lasso.contains(e.getBounds()))
             {
-                selectionHandler.removeElementFromSelection(e);
+                edgesInLasso.add(e);
             }
-            else if (lasso.contains(bounds))
+        }
+        for (IEdge e : new ArrayList<IEdge>(selectionHandler.getSelectedEdges()))
+        {
+            if (!edgesInLasso.contains(e))
             {
-                selectionHandler.addSelectedElement(e);
+                selectionHandler.removeElementFromSelection(e);
             }
         }
-        if (!snappedMousePoint.equals(lastMousePoint)) {
-            this.editorPart.getSwingComponent().invalidate();
-            this.editorPart.getSwingComponent().repaint();
+        for (IEdge e : edgesInLasso)
+        {
+            selectionHandler.addSelectedElement(e);
+        }
+        // Previous lasso is erased and the new one drawn, selection grabbers are repainted by the tracker
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        Rectangle2D previousLasso = getLasso();
+        if (null != previousLasso)
+        {
+            damageTracker.addDamagedArea(previousLasso);
         }
         this.lastMousePoint = snappedMousePoint;
+        damageTracker.addDamagedArea(getLasso());
+        damageTracker.repaintDamagedArea();
     }
 
     @Override
     public void onMouseReleased(MouseEvent event)
     {
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        Rectangle2D lasso = getLasso();
+        if (null != lasso)
+        {
+            damageTracker.addDamagedArea(lasso);
+        }
         mouseDownPoint = null;
         lastMousePoint = null;
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        damageTracker.repaintDamagedArea();
+    }
+
+    /**
+     * @return the lasso as it is drawn or null if there is no lasso
+     */
+    private Rectangle2D getLasso()
+    {
+        if (mouseDownPoint == null || lastMousePoint == null)
+        {
+            return null;
+        }
+        double x1 = mouseDownPoint.getX();
+        double y1 = mouseDownPoint.getY();
+        double x2 = lastMousePoint.getX();
+        double y2 = lastMousePoint.getY();
+        return new Rectangle2D.Double(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x1 - x2), Math.abs(y1 - y2));
     }
 
     private boolean isMouseOnNodeOrEdge(Point2D mouseLocation)
@@ -137,17 +180,13 @@ public class SelectByLassoBehavior extends AbstractEditorPartBehavior
     @Override
     public void onPaint(Graphics2D g2)
     {
-        if (mouseDownPoint == null || lastMousePoint == null)
+        Rectangle2D lasso = getLasso();
+        if (lasso == null)
         {
             return;
         }
         Color oldColor = g2.getColor();
         g2.setColor(PURPLE);
-        double x1 = mouseDownPoint.getX();
-        double y1 = mouseDownPoint.getY();
-        double x2 = lastMousePoint.getX();
-        double y2 = lastMousePoint.getY();
-        Rectangle2D.Double lasso = new Rectangle2D.Double(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x1 - x2), Math.abs(y1 - y2));
         g2.draw(lasso);
         g2.setColor(oldColor);
     }
@@ -10,6 +10,7 @@ import com.horstmann.violet.product.diagram.abstracts.IColorable;
 import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
 import com.horstmann.violet.product.diagram.abstracts.node.INode;
 import com.horstmann.violet.workspace.editorpart.IEditorPart;
+import com.horstmann.violet.workspace.editorpart.IEditorPartDamageTracker;
 import com.horstmann.violet.workspace.sidebar.graphtools.GraphTool;
 
 public class SwingRepaintingBehavior implements IEditorPartBehavior
@@ -38,7 +39,7 @@ public class SwingRepaintingBehavior implements IEditorPartBehavior
     @Override
     public void onMouseClicked(MouseEvent event)
     {
-        this.editorPart.getSwingComponent().repaint();
+        this.editorPart.getDamageTracker().repaintDamagedArea();
     }
 
     @Override
@@ -68,19 +69,29 @@ public class SwingRepaintingBehavior implements IEditorPartBehavior
     @Override
     public void beforeRemovingSelectedElements()
     {
-        // Nothing to do
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        for (INode aNode : this.editorPart.getSelectionHandler().getSelectedNodes())
+        {
+            damageTracker.addDamagedNode(aNode);
+        }
+        for (IEdge anEdge : this.editorPart.getSelectionHandler().getSelectedEdges())
+        {
+            damageTracker.addDamagedEdge(anEdge);
+        }
     }
 
     @Override
     public void beforeEditingNode(INode node)
     {
-        // nothing to do
+        // Old bounds are kept until the next repaint
+        this.editorPart.getDamageTracker().addDamagedNode(node);
     }
 
     @Override
     public void beforeEditingEdge(IEdge edge)
     {
-        // nothing to do
+        // Old bounds are kept until the next repaint
+        this.editorPart.getDamageTracker().addDamagedEdge(edge);
     }
 
     @Override
@@ -98,36 +109,48 @@ public class SwingRepaintingBehavior implements IEditorPartBehavior
     @Override
     public void afterRemovingSelectedElements()
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        this.editorPart.getDamageTracker().repaintDamagedArea();
     }
 
     @Override
     public void afterEditingNode(INode node)
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        damageTracker.addDamagedNode(node);
+        damageTracker.repaintDamagedArea();
     }
 
     @Override
     public void afterEditingEdge(IEdge edge)
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        damageTracker.addDamagedEdge(edge);
+        damageTracker.repaintDamagedArea();
     }
 
     @Override
     public void afterAddingNodeAtPoint(INode node, Point2D location)
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        damageTracker.addDamagedNode(node);
+        damageTracker.repaintDamagedArea();
     }
 
     @Override
     public void afterAddingEdgeAtPoints(IEdge edge, Point2D startPoint, Point2D endPoint)
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        // Node can be changed by the new edge (i.e. activation bars)
+        if (null != edge.getStartNode())
+        {
+            damageTracker.addDamagedNode(edge.getStartNode());
+        }
+        if (null != edge.getEndNode())
+        {
+            damageTracker.addDamagedNode(edge.getEndNode());
+        }
+        damageTracker.addDamagedEdge(edge);
+        damageTracker.repaintDamagedArea();
     }
     
     @Override
@@ -140,29 +163,35 @@ public class SwingRepaintingBehavior implements IEditorPartBehavior
     @Override
     public void onEdgeSelected(IEdge edge)
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        // Selection grabbers are always repainted
+        this.editorPart.getDamageTracker().repaintDamagedArea();
     }
 
     @Override
     public void onNodeSelected(INode node)
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        // Selection grabbers are always repainted
+        this.editorPart.getDamageTracker().repaintDamagedArea();
     }
 
     @Override
     public void whileEditingEdge(IEdge edge, PropertyChangeEvent event)
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        damageTracker.addDamagedEdge(edge);
+        damageTracker.repaintDamagedArea();
+        // Current bounds are the old ones for the next change
+        damageTracker.addDamagedEdge(edge);
     }
 
     @Override
     public void whileEditingNode(INode node, PropertyChangeEvent event)
     {
-        this.editorPart.getSwingComponent().invalidate();
-        this.editorPart.getSwingComponent().repaint();
+        IEditorPartDamageTracker damageTracker = this.editorPart.getDamageTracker();
+        damageTracker.addDamagedNode(node);
+        damageTracker.repaintDamagedArea();
+        // Current bounds are the old ones for the next change
+        damageTracker.addDamagedNode(node);
     }
     
     @Override
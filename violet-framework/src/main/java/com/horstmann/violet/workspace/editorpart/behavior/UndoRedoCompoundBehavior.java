@@ -227,6 +227,7 @@ public class UndoRedoCompoundBehavior extends AbstractEditorPartBehavior
         if (undoManager.canUndo())
         {
             undoManager.undo();
+            fireGraphChanged();
             editorPart.getSwingComponent().invalidate();
             editorPart.getSwingComponent().repaint();
         }
@@ -240,11 +241,23 @@ public class UndoRedoCompoundBehavior extends AbstractEditorPartBehavior
         if (undoManager.canRedo())
         {
             undoManager.redo();
+            fireGraphChanged();
             editorPart.getSwingComponent().invalidate();
             editorPart.getSwingComponent().repaint();
         }
     }
 
+    /**
+     * Undone and redone edits don't send any event, so the edit journal has to save the whole graph
+     */
+    private void fireGraphChanged()
+    {
+        for (EditJournalBehavior aJournalBehavior : editorPart.getBehaviorManager().getBehaviors(EditJournalBehavior.class))
+        {
+            aJournalBehavior.onGraphChanged();
+        }
+    }
+
     /**
      * Starts capturing actions on graph
      */
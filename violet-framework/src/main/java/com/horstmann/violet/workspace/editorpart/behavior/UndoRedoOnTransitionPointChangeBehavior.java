@@ -111,6 +111,7 @@ public class UndoRedoOnTransitionPointChangeBehavior extends AbstractEditorPartB
 						transitionPoints[i].setLocation(beforeDragPoint.getX(), beforeDragPoint.getY());
 					}
 				}
+				edge.getStartNode().getGraph().onEdgeBoundsChanged(edge);
 			}
 
 			@Override
@@ -132,6 +133,7 @@ public class UndoRedoOnTransitionPointChangeBehavior extends AbstractEditorPartB
 						transitionPoints[i].setLocation(afterDragPoint.getX(), afterDragPoint.getY());
 					}
 				}
+				edge.getStartNode().getGraph().onEdgeBoundsChanged(edge);
 			}
 		};
 		capturedEdit.addEdit(edit);
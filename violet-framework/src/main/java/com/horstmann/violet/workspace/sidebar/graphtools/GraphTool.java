@@ -29,12 +29,16 @@ import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 import javax.swing.Icon;
 
 import com.horstmann.violet.framework.injection.resources.ResourceBundleConstant;
+import com.horstmann.violet.framework.theme.ThemeManager;
 import com.horstmann.violet.framework.util.GrabberUtils;
 import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
 import com.horstmann.violet.product.diagram.abstracts.node.INode;
@@ -53,35 +57,30 @@ public class GraphTool
     {
         this.nodeOrEdge = e;
         this.label = label;
-        this.icon = new Icon()
+        this.icon = new CachedIcon(e, label)
         {
-            public int getIconHeight()
-            {
-                return ICON_SIZE;
-            }
-
-            public int getIconWidth()
+            @Override
+            protected void paint(Graphics2D g2)
             {
-                return ICON_SIZE;
-            }
-
-            public void paintIcon(Component c, Graphics g, int x, int y)
-            {
-                Graphics2D g2 = (Graphics2D) g;
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                // Drawn from a copy, as connecting the prototype would change the edges made from it
+                IEdge edge = e.clone();
+                if (null == edge)
+                {
+                    edge = e;
+                }
                 PointNode p = new PointNode();
                 p.translate(OFFSET, OFFSET);
                 PointNode q = new PointNode();
                 q.translate(ICON_SIZE - OFFSET + 7, ICON_SIZE - OFFSET + 3);
-                e.setStartNode(p);
-                e.setStartLocation(new Point2D.Double(0, 0));
-                e.setEndNode(q);
-                e.setEndLocation(new Point2D.Double(0, 0));
+                edge.setStartNode(p);
+                edge.setStartLocation(new Point2D.Double(0, 0));
+                edge.setEndNode(q);
+                edge.setEndLocation(new Point2D.Double(0, 0));
   
                 Rectangle2D bounds = new Rectangle2D.Double();
                 bounds.add(p.getBounds());
                 bounds.add(q.getBounds());
-                bounds.add(e.getBounds());
+                bounds.add(edge.getBounds());
 
                 double width = bounds.getWidth();
                 double height = bounds.getHeight();
@@ -89,14 +88,11 @@ public class GraphTool
                 double scaleY = (ICON_SIZE - OFFSET) / height;
                 double scale = Math.min(scaleX, scaleY);
 
-                AffineTransform oldTransform = g2.getTransform();
-                g2.translate(x, y);
                 g2.scale(scale, scale);
                 g2.translate(Math.max((height - width) / 2, 0), Math.max((width - height) / 2, 0));
 
                 g2.setColor(Color.black);
-                e.draw(g2);
-                g2.setTransform(oldTransform);
+                edge.draw(g2);
             }
         };
 
@@ -112,41 +108,23 @@ public class GraphTool
     {
         this.nodeOrEdge = n;
         this.label = label;
-        this.icon = new Icon()
+        this.icon = new CachedIcon(n, label)
         {
-            public int getIconHeight()
-            {
-                return ICON_SIZE;
-            }
-
-            public int getIconWidth()
+            @Override
+            protected void paint(Graphics2D g2)
             {
-                return ICON_SIZE;
-            }
-
-            public void paintIcon(Component c, Graphics g, int x, int y)
-            {
-                // Use a buffer image to be more precise in rendering, especially for join/fork node_old
                 double width = n.getBounds().getWidth();
                 double height = n.getBounds().getHeight();
-                // BufferedImage image = new BufferedImage(ICON_SIZE, ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
-                Graphics2D g2 = (Graphics2D) g;
-                // Graphics2D g2 = (Graphics2D) image.getGraphics();
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
                 double scaleX = (ICON_SIZE - OFFSET) / width;
                 double scaleY = (ICON_SIZE - OFFSET) / height;
                 double scale = Math.min(scaleX, scaleY);
 
-                AffineTransform oldTransform = g2.getTransform();
-                g2.translate(x + OFFSET / 2, y + OFFSET / 2);
+                g2.translate(OFFSET / 2, OFFSET / 2);
                 g2.scale(scale, scale);
                 g2.translate(Math.max((height - width) / 2, 0), Math.max((width - height) / 2, 0));
                 g2.setColor(Color.black);
                 n.draw(g2);
-                g2.setTransform(oldTransform);
-
-                // g2b.drawImage(image, x, y, null);
             }
         };
     }
@@ -206,10 +184,100 @@ public class GraphTool
         return nodeOrEdge;
     }
 
+    /**
+     * Icon of a node or edge tool, drawn once in an image for each kind of prototype, theme and screen
+     * scale. Images are shared by the tools of all workspaces, so that painting an icon only copies an image.
+     */
+    private static abstract class CachedIcon implements Icon
+    {
+        /**
+         * @param prototype
+         * @param label tool label, as several tools may use prototypes of the same class
+         */
+        CachedIcon(Object prototype, String label)
+        {
+            this.key = prototype.getClass().getName() + KEY_SEPARATOR + label;
+        }
+
+        public int getIconHeight()
+        {
+            return ICON_SIZE;
+        }
+
+        public int getIconWidth()
+        {
+            return ICON_SIZE;
+        }
+
+        public void paintIcon(Component c, Graphics g, int x, int y)
+        {
+            // Screen pixels per icon pixel, above 1 on HiDPI screens
+            AffineTransform transform = ((Graphics2D) g).getTransform();
+            double scale = Math.max(1, Math.max(Math.abs(transform.getScaleX()), Math.abs(transform.getScaleY())));
+            g.drawImage(getImage(scale), x, y, ICON_SIZE, ICON_SIZE, null);
+        }
+
+        /**
+         * @param scale
+         * @return the image of this icon at this scale with the current theme, drawn on the first call
+         */
+        private BufferedImage getImage(double scale)
+        {
+            ThemeManager themeManager = ThemeManager.getInstance();
+            String themeName = null != themeManager && null != themeManager.getTheme() ? themeManager.getTheme().getClass().getName() : "";
+            String imageKey = this.key + KEY_SEPARATOR + themeName + KEY_SEPARATOR + scale;
+            synchronized (IMAGES)
+            {
+                BufferedImage image = IMAGES.get(imageKey);
+                if (null == image)
+                {
+                    image = createImage(scale);
+                    IMAGES.put(imageKey, image);
+                }
+                return image;
+            }
+        }
+
+        /**
+         * @param scale
+         * @return a new image of this icon
+         */
+        private BufferedImage createImage(double scale)
+        {
+            int size = (int) Math.ceil(ICON_SIZE * scale);
+            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = image.createGraphics();
+            try
+            {
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.scale((double) size / ICON_SIZE, (double) size / ICON_SIZE);
+                paint(g2);
+            }
+            finally
+            {
+                g2.dispose();
+            }
+            return image;
+        }
+
+        /**
+         * Draws the icon at the origin, in a ICON_SIZE square
+         * 
+         * @param g2
+         */
+        protected abstract void paint(Graphics2D g2);
+
+        /** Prototype class and tool label */
+        private final String key;
+    }
+
     private Object nodeOrEdge;
     private Icon icon;
     private String label;
     private static final int ICON_SIZE = 20;
     private static final int OFFSET = 4;
+    private static final String KEY_SEPARATOR = "|";
+    /** Icon images by prototype class, tool label, theme and scale */
+    private static final Map<String, BufferedImage> IMAGES = new HashMap<String, BufferedImage>();
     public static final GraphTool SELECTION_TOOL = new GraphTool(); 
 }
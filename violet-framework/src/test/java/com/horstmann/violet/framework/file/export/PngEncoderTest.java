@@ -0,0 +1,59 @@
+package com.horstmann.violet.framework.file.export;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PngEncoderTest
+{
+    @Test
+    public void should_write_image_readable_by_imageio() throws IOException
+    {
+        // given
+        final int width = 301;
+        final int height = 97;
+        final int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++)
+        {
+            pixels[i] = (i * 2654435761L) % 7 == 0 ? 0x000000 : (i % width) * 0x010203 & 0xFFFFFF;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        final PngEncoder encoder = new PngEncoder(out, width, height);
+        for (int y = 0; y < height; y += 10)
+        {
+            encoder.writeRows(pixels, y * width, width, Math.min(10, height - y));
+        }
+        encoder.finish();
+
+        // then
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                assertThat(image.getRGB(x, y) & 0xFFFFFF).isEqualTo(pixels[y * width + x]);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_refuse_to_finish_incomplete_image() throws IOException
+    {
+        // given
+        final PngEncoder encoder = new PngEncoder(new ByteArrayOutputStream(), 10, 10);
+        encoder.writeRows(new int[100], 0, 10, 5);
+
+        // when
+        encoder.finish();
+    }
+}
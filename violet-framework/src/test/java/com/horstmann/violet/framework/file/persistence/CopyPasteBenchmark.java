@@ -0,0 +1,124 @@
+package com.horstmann.violet.framework.file.persistence;
+
+import com.horstmann.violet.framework.injection.bean.ManiocFramework.BeanFactory;
+import com.horstmann.violet.framework.plugin.IDiagramPlugin;
+import com.horstmann.violet.framework.plugin.PluginRegistry;
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Measures what the clipboard pays on each copy and paste, which write the copied elements to XML
+ * and read them back: with an XStream configured on each call, as it used to be, and with the
+ * XStream shared by the persistence services.
+ *
+ * This is not a unit test. Run it by hand with: java CopyPasteBenchmark [element count...]
+ */
+public class CopyPasteBenchmark
+{
+    public static void main(String[] args) throws IOException
+    {
+        int[] elementCounts = DEFAULT_ELEMENT_COUNTS;
+        if (0 < args.length)
+        {
+            elementCounts = new int[args.length];
+            for (int i = 0; i < args.length; ++i)
+            {
+                elementCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+        // Configuring XStream costs as much as the plugins registered, so register as many as the application
+        PluginRegistry pluginRegistry = BeanFactory.getFactory().getBean(PluginRegistry.class);
+        for (int i = 0; i < PLUGIN_COUNT; ++i)
+        {
+            pluginRegistry.register(createPlugin());
+        }
+        StaxPersistenceService service = new StaxPersistenceService();
+
+        for (int elementCount : elementCounts)
+        {
+            IGraph graph = PersistenceBenchmark.createGraph(elementCount);
+            int rounds = Math.max(MIN_ROUNDS, ROUND_ELEMENTS / elementCount);
+            for (int warmup = 0; warmup < WARMUP_ROUNDS; ++warmup)
+            {
+                timeConfiguredPerCall(service, graph, rounds);
+                timeShared(service, graph, rounds);
+            }
+            System.out.println(String.format("%d elements, %d rounds", elementCount, rounds));
+            print("  configured per call", timeConfiguredPerCall(service, graph, rounds) / rounds);
+            print("  shared", timeShared(service, graph, rounds) / rounds);
+        }
+    }
+
+    private static long timeConfiguredPerCall(XStreamBasedPersistenceService service, IGraph graph, int rounds)
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; ++i)
+        {
+            String xml = service.getConfiguredXStream(new XStream(new DomDriver("UTF-8"))).toXML(graph);
+            IGraph pasted = (IGraph) service.getConfiguredXStream(new XStream(new DomDriver("UTF-8"))).fromXML(xml);
+            check(pasted);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long timeShared(IFilePersistenceService service, IGraph graph, int rounds) throws IOException
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; ++i)
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            service.write(graph, out);
+            IGraph pasted = service.read(new ByteArrayInputStream(out.toByteArray()));
+            check(pasted);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void check(IGraph graph)
+    {
+        if (graph.getAllNodes().isEmpty())
+        {
+            throw new IllegalStateException("nothing read");
+        }
+    }
+
+    /**
+     * @return a plugin for the benchmark graph, which only tells its graph class
+     */
+    private static IDiagramPlugin createPlugin()
+    {
+        return (IDiagramPlugin) Proxy.newProxyInstance(CopyPasteBenchmark.class.getClassLoader(), new Class<?>[] {
+            IDiagramPlugin.class
+        }, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("getGraphClass".equals(method.getName()))
+                {
+                    return PersistenceBenchmark.BenchmarkGraph.class;
+                }
+                return null;
+            }
+        });
+    }
+
+    private static void print(String name, long nanos)
+    {
+        System.out.println(String.format("%-22s %10.3f ms", name, nanos / 1000000.0));
+    }
+
+    private static final int[] DEFAULT_ELEMENT_COUNTS = {1, 100, 5000};
+    private static final int PLUGIN_COUNT = 10;
+    private static final int ROUND_ELEMENTS = 2000;
+    private static final int MIN_ROUNDS = 5;
+    private static final int WARMUP_ROUNDS = 2;
+}
@@ -0,0 +1,141 @@
+package com.horstmann.violet.framework.file.persistence;
+
+import com.horstmann.violet.product.diagram.abstracts.AbstractGraph;
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+import com.horstmann.violet.product.diagram.common.edge.NoteEdge;
+import com.horstmann.violet.product.diagram.common.node.NoteNode;
+import com.horstmann.violet.product.diagram.property.text.MultiLineText;
+
+import java.awt.geom.Point2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares XStreamBasedPersistenceService, which loads each document in a DOM, with the streaming
+ * StaxPersistenceService on generated diagrams.
+ *
+ * This is not a unit test. Run it by hand with: java PersistenceBenchmark [element count...]
+ */
+public class PersistenceBenchmark
+{
+    public static void main(String[] args) throws IOException
+    {
+        int[] elementCounts = DEFAULT_ELEMENT_COUNTS;
+        if (0 < args.length)
+        {
+            elementCounts = new int[args.length];
+            for (int i = 0; i < args.length; ++i)
+            {
+                elementCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+        IFilePersistenceService legacyService = new XStreamBasedPersistenceService();
+        IFilePersistenceService staxService = new StaxPersistenceService();
+
+        for (int elementCount : elementCounts)
+        {
+            IGraph graph = createGraph(elementCount);
+            byte[] legacyXml = write(legacyService, graph);
+            byte[] staxXml = write(staxService, graph);
+            System.out.println(String.format("%d elements, %d KB, same XML: %b",
+                    elementCount, legacyXml.length / 1024, Arrays.equals(legacyXml, staxXml)));
+
+            for (int warmup = 0; warmup < WARMUP_ROUNDS; ++warmup)
+            {
+                timeWrite(legacyService, graph);
+                timeWrite(staxService, graph);
+                timeRead(legacyService, legacyXml);
+                timeRead(staxService, legacyXml);
+            }
+            print("  legacy write", timeWrite(legacyService, graph));
+            print("  stax write", timeWrite(staxService, graph));
+            print("  legacy read", timeRead(legacyService, legacyXml));
+            print("  stax read", timeRead(staxService, legacyXml));
+        }
+    }
+
+    private static byte[] write(IFilePersistenceService service, IGraph graph)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(graph, out);
+        return out.toByteArray();
+    }
+
+    private static long timeWrite(IFilePersistenceService service, IGraph graph)
+    {
+        long start = System.nanoTime();
+        write(service, graph);
+        return System.nanoTime() - start;
+    }
+
+    private static long timeRead(IFilePersistenceService service, byte[] xml) throws IOException
+    {
+        long start = System.nanoTime();
+        IGraph graph = service.read(new ByteArrayInputStream(xml));
+        long time = System.nanoTime() - start;
+        if (graph.getAllNodes().isEmpty())
+        {
+            throw new IllegalStateException("nothing read");
+        }
+        return time;
+    }
+
+    /**
+     * Builds a graph of notes linked two by two with note edges
+     */
+    static IGraph createGraph(int elementCount)
+    {
+        AbstractGraph graph = new BenchmarkGraph();
+        INode previous = null;
+        int created = 0;
+        while (created < elementCount)
+        {
+            NoteNode note = new NoteNode();
+            MultiLineText text = new MultiLineText();
+            text.setText("Note " + created + "\nwith a second line");
+            note.setText(text);
+            graph.addNode(note, new Point2D.Double((created % 100) * 150, (created / 100) * 100));
+            ++created;
+            if (null != previous && created < elementCount)
+            {
+                graph.connect(new NoteEdge(), previous, null, note, null, new Point2D[0]);
+                ++created;
+            }
+            previous = (null == previous) ? note : null;
+        }
+        return graph;
+    }
+
+    private static void print(String name, long nanos)
+    {
+        System.out.println(String.format("%-14s %10.1f ms", name, nanos / 1000000.0));
+    }
+
+    public static class BenchmarkGraph extends AbstractGraph
+    {
+        @Override
+        public List<INode> getNodePrototypes()
+        {
+            List<INode> nodePrototypes = new ArrayList<INode>();
+            nodePrototypes.add(new NoteNode());
+            return nodePrototypes;
+        }
+
+        @Override
+        public List<IEdge> getEdgePrototypes()
+        {
+            List<IEdge> edgePrototypes = new ArrayList<IEdge>();
+            edgePrototypes.add(new NoteEdge());
+            return edgePrototypes;
+        }
+    }
+
+    private static final int[] DEFAULT_ELEMENT_COUNTS = {1000, 10000, 50000};
+    private static final int WARMUP_ROUNDS = 2;
+}
@@ -0,0 +1,66 @@
+package com.horstmann.violet.framework.graphics.content;
+
+import org.junit.Test;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that measured bounds are cached until something changes
+ */
+public class VerticalLayoutTest
+{
+    private class MeasuredContent extends Content
+    {
+        @Override
+        public void draw(Graphics2D graphics) {}
+
+        @Override
+        protected Rectangle2D measureMinimalBounds()
+        {
+            ++measureCount;
+            return super.measureMinimalBounds();
+        }
+
+        int measureCount = 0;
+    }
+
+    @Test
+    public void testMinimalBoundsAreCached() throws Exception
+    {
+        MeasuredContent content = new MeasuredContent();
+        content.setMinWidth(50);
+        content.getMinimalBounds();
+        int measureCount = content.measureCount;
+
+        content.getMinimalBounds();
+        assertEquals(measureCount, content.measureCount);
+
+        content.setMinHeight(20);
+        assertEquals(20, content.getMinimalBounds().getHeight(), 0.01);
+        assertEquals(measureCount + 1, content.measureCount);
+    }
+
+    @Test
+    public void testUnchangedContentIsNotMeasuredAgain() throws Exception
+    {
+        MeasuredContent changed = new MeasuredContent();
+        MeasuredContent unchanged = new MeasuredContent();
+        VerticalLayout layout = new VerticalLayout();
+        layout.add(changed);
+        layout.add(unchanged);
+        unchanged.setMinHeight(30);
+        unchanged.measureCount = 0;
+
+        changed.setMinHeight(20);
+        assertEquals(50, layout.getHeight(), 0.01);
+        assertEquals(0, unchanged.measureCount);
+
+        changed.setMinWidth(80);
+        assertEquals(80, layout.getWidth(), 0.01);
+        assertEquals(80, unchanged.getWidth(), 0.01);
+        assertEquals(0, unchanged.measureCount);
+    }
+}
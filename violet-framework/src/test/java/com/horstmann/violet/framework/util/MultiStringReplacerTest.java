@@ -0,0 +1,78 @@
+package com.horstmann.violet.framework.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiStringReplacerTest
+{
+    @Test
+    public void should_replace_all_occurrences_of_all_strings()
+    {
+        // given
+        final Map<String, String> replaceMap = new HashMap<String, String>();
+        replaceMap.put("com.horstmann.violet.NoteNode", "a.NoteNode");
+        replaceMap.put("com.horstmann.violet.NoteEdge", "b.NoteEdge");
+        final MultiStringReplacer replacer = new MultiStringReplacer(replaceMap);
+
+        // when
+        final String replaced = replacer.replace("<com.horstmann.violet.NoteNode/><com.horstmann.violet.NoteEdge/>com.horstmann.violet.NoteNode");
+
+        // then
+        assertThat(replaced).isEqualTo("<a.NoteNode/><b.NoteEdge/>a.NoteNode");
+    }
+
+    @Test
+    public void should_replace_longest_string_and_never_replace_twice()
+    {
+        // given
+        final Map<String, String> replaceMap = new HashMap<String, String>();
+        replaceMap.put("Note", "Comment");
+        replaceMap.put("NoteNode", "Note");
+        final MultiStringReplacer replacer = new MultiStringReplacer(replaceMap);
+
+        // when
+        final String replaced = replacer.replace("NoteNode Note N.o.t.e");
+
+        // then
+        assertThat(replaced).isEqualTo("Note Comment N.o.t.e");
+    }
+
+    @Test
+    public void should_replace_strings_cut_by_reads() throws IOException
+    {
+        // given
+        final Map<String, String> replaceMap = new HashMap<String, String>();
+        replaceMap.put("abcd", "x");
+        final MultiStringReplacer replacer = new MultiStringReplacer(replaceMap);
+        final StringBuilder input = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+        {
+            input.append("abcd-");
+            expected.append("x-");
+        }
+        final Reader oneCharReader = new StringReader(input.toString())
+        {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException
+            {
+                return super.read(cbuf, off, Math.min(len, 3));
+            }
+        };
+        final StringWriter out = new StringWriter();
+
+        // when
+        replacer.replace(oneCharReader, out);
+
+        // then
+        assertThat(out.toString()).isEqualTo(expected.toString());
+    }
+}
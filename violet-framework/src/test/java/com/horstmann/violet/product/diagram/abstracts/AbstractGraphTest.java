@@ -0,0 +1,296 @@
+package com.horstmann.violet.product.diagram.abstracts;
+
+import com.horstmann.violet.framework.graphics.content.EmptyContent;
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.AbstractNode;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+import com.horstmann.violet.product.diagram.common.edge.LabeledLineEdge;
+import com.horstmann.violet.product.diagram.common.edge.LineEdge;
+import com.horstmann.violet.product.diagram.common.edge.NoteEdge;
+import com.horstmann.violet.product.diagram.property.text.LineText;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Shape;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AbstractGraphTest
+{
+    private AbstractGraph graph;
+    private INode parent;
+    private INode child;
+
+    @Before
+    public void setUp()
+    {
+        graph = new TestGraph();
+        parent = new TestNode();
+        child = new TestNode();
+        graph.addNode(parent, new Point2D.Double(0, 0));
+        parent.addChild(child, 0);
+    }
+
+    @Test
+    public void should_list_children_before_their_parents()
+    {
+        // given
+        final INode other = new TestNode();
+
+        // when
+        graph.addNode(other, new Point2D.Double(1000, 1000));
+
+        // then
+        assertThat(graph.getAllNodes()).containsExactly(child, other, parent);
+    }
+
+    @Test
+    public void should_follow_added_and_removed_children()
+    {
+        // given
+        final INode grandChild = new TestNode();
+        graph.getAllNodes();
+
+        // when
+        child.addChild(grandChild, 0);
+        parent.removeChild(child);
+
+        // then
+        assertThat(graph.getAllNodes()).containsExactly(parent);
+    }
+
+    @Test
+    public void should_keep_returned_collection_unchanged_when_graph_is_modified()
+    {
+        // given
+        final List<INode> allNodes = new ArrayList<INode>(graph.getAllNodes());
+        final Object[] returnedNodes = graph.getAllNodes().toArray();
+
+        // when
+        graph.removeNode(parent);
+
+        // then
+        assertThat(returnedNodes).containsExactly(allNodes.toArray());
+        assertThat(graph.getAllNodes()).isEmpty();
+    }
+
+    @Test
+    public void should_find_node_by_id()
+    {
+        // given
+        final Id childId = child.getId();
+
+        // when
+        final INode foundNode = graph.findNode(childId);
+
+        // then
+        assertThat(foundNode).isSameAs(child);
+    }
+
+    @Test
+    public void should_find_node_whose_id_has_changed()
+    {
+        // given
+        final Id oldId = child.getId();
+        graph.findNode(oldId);
+        final Id newId = new Id();
+
+        // when
+        child.setId(newId);
+
+        // then
+        assertThat(graph.findNode(newId)).isSameAs(child);
+        assertThat(graph.findNode(oldId)).isNull();
+    }
+
+    @Test
+    public void should_list_edges_connected_to_node()
+    {
+        // given
+        final INode other = new TestNode();
+        graph.addNode(other, new Point2D.Double(1000, 1000));
+        final IEdge parentToOther = createEdge(parent, other);
+        final IEdge childToOther = createEdge(child, other);
+        final IEdge childToParent = createEdge(child, parent);
+        graph.connect(parentToOther, parent, null, other, null, new Point2D[0]);
+        graph.connect(childToOther, child, null, other, null, new Point2D[0]);
+        graph.connect(childToParent, child, null, parent, null, new Point2D[0]);
+
+        // when
+        graph.removeEdge(childToOther);
+
+        // then
+        assertThat(graph.getConnectedEdges(parent)).containsExactly(parentToOther, childToParent);
+        assertThat(graph.getConnectedEdges(child)).containsExactly(childToParent);
+        assertThat(graph.getConnectedEdges(other)).containsExactly(parentToOther);
+    }
+
+    @Test
+    public void should_compute_edge_path_again_only_when_a_node_moves()
+    {
+        // given
+        final INode other = new TestNode();
+        graph.addNode(other, new Point2D.Double(400, 0));
+        final LineEdge edge = new NoteEdge();
+        graph.connect(edge, parent, new Point2D.Double(0, 0), other, new Point2D.Double(0, 0), new Point2D[0]);
+        final Shape shape = edge.getShape();
+
+        // when
+        final Shape unchangedShape = edge.getShape();
+        other.translate(0, 300);
+        final Shape movedShape = edge.getShape();
+
+        // then
+        assertThat(unchangedShape).isSameAs(shape);
+        assertThat(movedShape.getBounds2D()).isNotEqualTo(shape.getBounds2D());
+    }
+
+    @Test
+    public void should_find_edge_near_its_path_but_not_near_its_ends()
+    {
+        // given
+        final INode other = new TestNode();
+        graph.addNode(other, new Point2D.Double(400, 0));
+        final LineEdge edge = new NoteEdge();
+        graph.connect(edge, parent, new Point2D.Double(0, 0), other, new Point2D.Double(0, 0), new Point2D[0]);
+        final Rectangle2D bounds = edge.getShape().getBounds2D();
+
+        // when
+        final boolean containsMiddle = edge.contains(new Point2D.Double(bounds.getCenterX(), bounds.getCenterY() + 5));
+        final boolean containsEnd = edge.contains(new Point2D.Double(bounds.getMinX() + 5, bounds.getCenterY()));
+        final boolean containsFarPoint = edge.contains(new Point2D.Double(bounds.getCenterX(), bounds.getCenterY() + 50));
+
+        // then
+        assertThat(containsMiddle).isTrue();
+        assertThat(containsEnd).isFalse();
+        assertThat(containsFarPoint).isFalse();
+    }
+
+    @Test
+    public void should_find_edge_by_a_label_wider_than_its_path()
+    {
+        // given
+        final INode other = new TestNode();
+        graph.addNode(other, new Point2D.Double(400, 0));
+        final LabeledLineEdge edge = new LabeledLineEdge();
+        graph.connect(edge, parent, new Point2D.Double(0, 0), other, new Point2D.Double(0, 0), new Point2D[0]);
+        final Rectangle2D pathBounds = edge.getShape().getBounds2D();
+        final Rectangle2D besideOtherNode = new Rectangle2D.Double(pathBounds.getMaxX() + 200, pathBounds.getCenterY() - 5, 4, 4);
+        final boolean isFoundWithoutLabel = graph.findEdges(besideOtherNode).contains(edge);
+        final char[] label = new char[300];
+        Arrays.fill(label, 'W');
+
+        // when
+        edge.setCenterLabel(new String(label));
+
+        // then
+        assertThat(isFoundWithoutLabel).isFalse();
+        assertThat(graph.findEdges(besideOtherNode)).contains(edge);
+        assertThat(edge.getBounds().contains(besideOtherNode)).isTrue();
+    }
+
+    @Test
+    public void should_shrink_clip_bounds_when_outer_node_moves_inwards()
+    {
+        // given
+        final INode other = new TestNode();
+        graph.addNode(other, new Point2D.Double(400, 300));
+        final Rectangle2D initialBounds = graph.getClipBounds();
+
+        // when
+        other.translate(-200, -200);
+        final Rectangle2D movedBounds = graph.getClipBounds();
+
+        // then
+        assertThat(initialBounds.getMaxX()).isEqualTo(500);
+        assertThat(initialBounds.getMaxY()).isEqualTo(360);
+        assertThat(movedBounds.getMaxX()).isEqualTo(300);
+        assertThat(movedBounds.getMaxY()).isEqualTo(160);
+    }
+
+    @Test
+    public void should_replace_restored_node_and_connect_its_edges_again()
+    {
+        // given
+        final INode other = new TestNode();
+        graph.addNode(other, new Point2D.Double(400, 0));
+        final LineEdge edge = new NoteEdge();
+        graph.connect(edge, child, new Point2D.Double(0, 0), other, new Point2D.Double(0, 0), new Point2D[0]);
+        final INode restoredParent = new TestNode();
+        final INode restoredChild = new TestNode();
+        restoredParent.setId(parent.getId());
+        restoredChild.setId(child.getId());
+        restoredParent.addChild(restoredChild, 0);
+
+        // when
+        graph.restoreNodes(Arrays.asList(restoredParent));
+
+        // then
+        assertThat(graph.getAllNodes()).containsExactly(restoredChild, other, restoredParent);
+        assertThat(edge.getStartNode()).isSameAs(restoredChild);
+        assertThat(graph.getConnectedEdges(restoredChild)).containsExactly(edge);
+        assertThat(graph.findNode(child.getId())).isSameAs(restoredChild);
+    }
+
+    private static IEdge createEdge(INode start, INode end)
+    {
+        final IEdge edge = mock(IEdge.class);
+        when(edge.getStartNode()).thenReturn(start);
+        when(edge.getEndNode()).thenReturn(end);
+        when(edge.getTransitionPoints()).thenReturn(new Point2D[0]);
+        when(edge.getBounds()).thenReturn(new Rectangle2D.Double());
+        return edge;
+    }
+
+    private static class TestGraph extends AbstractGraph
+    {
+        @Override
+        public List<INode> getNodePrototypes()
+        {
+            return new ArrayList<INode>();
+        }
+
+        @Override
+        public List<IEdge> getEdgePrototypes()
+        {
+            return new ArrayList<IEdge>();
+        }
+    }
+
+    private static class TestNode extends AbstractNode
+    {
+        @Override
+        protected void createContentStructure()
+        {
+            EmptyContent content = new EmptyContent();
+            content.setMinWidth(100);
+            content.setMinHeight(60);
+            setContent(content);
+        }
+
+        @Override
+        public LineText getName()
+        {
+            return null;
+        }
+
+        @Override
+        public LineText getAttributes()
+        {
+            return null;
+        }
+
+        @Override
+        public LineText getMethods()
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.horstmann.violet.product.diagram.abstracts;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.geom.Rectangle2D;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundsUnionTest
+{
+    private BoundsUnion<String> boundsUnion;
+
+    @Before
+    public void setUp()
+    {
+        boundsUnion = new BoundsUnion<String>();
+    }
+
+    @Test
+    public void should_have_no_bounds_when_empty()
+    {
+        // when
+        final Rectangle2D bounds = boundsUnion.getBounds();
+
+        // then
+        assertThat(bounds).isNull();
+    }
+
+    @Test
+    public void should_grow_with_added_elements()
+    {
+        // given
+        boundsUnion.put("first", new Rectangle2D.Double(0, 0, 50, 50));
+
+        // when
+        boundsUnion.put("second", new Rectangle2D.Double(100, 20, 50, 100));
+
+        // then
+        assertThat(boundsUnion.getBounds()).isEqualTo(new Rectangle2D.Double(0, 0, 150, 120));
+    }
+
+    @Test
+    public void should_shrink_when_outer_element_moves_inwards()
+    {
+        // given
+        boundsUnion.put("first", new Rectangle2D.Double(0, 0, 50, 50));
+        boundsUnion.put("second", new Rectangle2D.Double(100, 100, 50, 50));
+        boundsUnion.getBounds();
+
+        // when
+        boundsUnion.put("second", new Rectangle2D.Double(20, 20, 50, 50));
+
+        // then
+        assertThat(boundsUnion.getBounds()).isEqualTo(new Rectangle2D.Double(0, 0, 70, 70));
+    }
+
+    @Test
+    public void should_shrink_when_outer_element_is_removed()
+    {
+        // given
+        boundsUnion.put("first", new Rectangle2D.Double(0, 0, 50, 50));
+        boundsUnion.put("second", new Rectangle2D.Double(100, 100, 50, 50));
+        boundsUnion.getBounds();
+
+        // when
+        boundsUnion.remove("second");
+
+        // then
+        assertThat(boundsUnion.getBounds()).isEqualTo(new Rectangle2D.Double(0, 0, 50, 50));
+    }
+
+    @Test
+    public void should_keep_bounds_when_inner_element_moves()
+    {
+        // given
+        boundsUnion.put("first", new Rectangle2D.Double(0, 0, 200, 200));
+        boundsUnion.put("second", new Rectangle2D.Double(50, 50, 20, 20));
+
+        // when
+        boundsUnion.put("second", new Rectangle2D.Double(100, 100, 20, 20));
+        boundsUnion.remove("second");
+
+        // then
+        assertThat(boundsUnion.getBounds()).isEqualTo(new Rectangle2D.Double(0, 0, 200, 200));
+    }
+}
@@ -0,0 +1,71 @@
+package com.horstmann.violet.product.diagram.abstracts;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdTest
+{
+    @Test
+    public void should_generate_different_ids()
+    {
+        // given
+        final Id first = new Id();
+
+        // when
+        final Id second = new Id();
+
+        // then
+        assertThat(first).isNotEqualTo(second);
+        assertThat(first.getValue()).isNotEqualTo(second.getValue());
+    }
+
+    @Test
+    public void should_be_equal_to_id_read_from_its_value()
+    {
+        // given
+        final Id id = new Id();
+        final Id readId = new Id();
+
+        // when
+        readId.setValue(id.getValue());
+
+        // then
+        assertThat(readId).isEqualTo(id);
+        assertThat(id).isEqualTo(readId);
+        assertThat(readId.hashCode()).isEqualTo(id.hashCode());
+    }
+
+    @Test
+    public void should_keep_values_of_older_files()
+    {
+        // given
+        final String uuid = "0b5b5a4e-3a4f-4f55-9d1e-2c0d3f1d6a77";
+        final Id first = new Id();
+        final Id second = new Id();
+
+        // when
+        first.setValue(uuid);
+        second.setValue(uuid);
+
+        // then
+        assertThat(first.getValue()).isEqualTo(uuid);
+        assertThat(first).isEqualTo(second);
+        assertThat(first).isNotEqualTo(new Id());
+        assertThat(first.hashCode()).isEqualTo(second.hashCode());
+    }
+
+    @Test
+    public void should_clone_without_changing_value() throws CloneNotSupportedException
+    {
+        // given
+        final Id id = new Id();
+
+        // when
+        final Id clone = id.clone();
+
+        // then
+        assertThat(clone).isEqualTo(id);
+        assertThat(clone.getValue()).isEqualTo(id.getValue());
+    }
+}
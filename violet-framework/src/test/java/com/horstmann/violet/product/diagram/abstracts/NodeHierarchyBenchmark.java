@@ -0,0 +1,218 @@
+package com.horstmann.violet.product.diagram.abstracts;
+
+import com.horstmann.violet.framework.graphics.content.EmptyContent;
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.AbstractNode;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+import com.horstmann.violet.product.diagram.property.text.LineText;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the previous getAllNodes() and findNode(Id), which walked the whole node_old hierarchy
+ * on each call, with the cached versions of AbstractGraph.
+ *
+ * This is not a unit test. Run it by hand with: java NodeHierarchyBenchmark [node count]
+ */
+public class NodeHierarchyBenchmark
+{
+    public static void main(String[] args)
+    {
+        int nodeCount = (0 < args.length) ? Integer.parseInt(args[0]) : DEFAULT_NODE_COUNT;
+        AbstractGraph graph = createGraph(nodeCount);
+        List<INode> rootNodes = new ArrayList<INode>();
+        List<Id> ids = new ArrayList<Id>();
+        for (INode aNode : graph.getAllNodes())
+        {
+            if (null == aNode.getParent())
+            {
+                rootNodes.add(0, aNode);
+            }
+            ids.add(aNode.getId());
+        }
+        System.out.println("Graph with " + graph.getAllNodes().size() + " node");
+
+        for (int warmup = 0; warmup < WARMUP_ROUNDS; ++warmup)
+        {
+            runLegacyGetAllNodes(rootNodes);
+            runGetAllNodes(graph);
+            runLegacyFindNode(rootNodes, ids);
+            runFindNode(graph, ids);
+        }
+        print("legacy getAllNodes()", runLegacyGetAllNodes(rootNodes), ITERATIONS);
+        print("cached getAllNodes()", runGetAllNodes(graph), ITERATIONS);
+        print("legacy findNode(Id)", runLegacyFindNode(rootNodes, ids), ITERATIONS);
+        print("cached findNode(Id)", runFindNode(graph, ids), ITERATIONS);
+    }
+
+    private static long runLegacyGetAllNodes(List<INode> rootNodes)
+    {
+        long start = System.nanoTime();
+        int total = 0;
+        for (int i = 0; i < ITERATIONS; ++i)
+        {
+            total += getAllNodesLegacy(rootNodes).size();
+        }
+        consume(total);
+        return System.nanoTime() - start;
+    }
+
+    private static long runGetAllNodes(AbstractGraph graph)
+    {
+        long start = System.nanoTime();
+        int total = 0;
+        for (int i = 0; i < ITERATIONS; ++i)
+        {
+            total += graph.getAllNodes().size();
+        }
+        consume(total);
+        return System.nanoTime() - start;
+    }
+
+    private static long runLegacyFindNode(List<INode> rootNodes, List<Id> ids)
+    {
+        long start = System.nanoTime();
+        int total = 0;
+        for (int i = 0; i < ITERATIONS; ++i)
+        {
+            Id id = ids.get((i * 7919) % ids.size());
+            for (INode aNode : getAllNodesLegacy(rootNodes))
+            {
+                if (aNode.getId().equals(id))
+                {
+                    ++total;
+                    break;
+                }
+            }
+        }
+        consume(total);
+        return System.nanoTime() - start;
+    }
+
+    private static long runFindNode(AbstractGraph graph, List<Id> ids)
+    {
+        long start = System.nanoTime();
+        int total = 0;
+        for (int i = 0; i < ITERATIONS; ++i)
+        {
+            if (null != graph.findNode(ids.get((i * 7919) % ids.size())))
+            {
+                ++total;
+            }
+        }
+        consume(total);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * getAllNodes() as it was before the node_old hierarchy was cached
+     *
+     * @param rootNodes node directly attached to the graph
+     */
+    private static Collection<INode> getAllNodesLegacy(List<INode> rootNodes)
+    {
+        List<INode> fifo = new ArrayList<INode>();
+        List<INode> allNodes = new ArrayList<INode>();
+        fifo.addAll(rootNodes);
+        allNodes.addAll(rootNodes);
+        while (!fifo.isEmpty())
+        {
+            INode nodeToInspect = fifo.remove(0);
+            List<INode> children = nodeToInspect.getChildren();
+            fifo.addAll(children);
+            allNodes.addAll(children);
+        }
+        Collections.reverse(allNodes);
+        return Collections.unmodifiableCollection(allNodes);
+    }
+
+    /**
+     * Builds a graph where each top level node_old has a few children
+     */
+    private static AbstractGraph createGraph(int nodeCount)
+    {
+        AbstractGraph graph = new BenchmarkGraph();
+        int created = 0;
+        int row = 0;
+        while (created < nodeCount)
+        {
+            INode parent = new BenchmarkNode();
+            graph.addNode(parent, new Point2D.Double((row % 100) * 200, (row / 100) * 200));
+            ++created;
+            for (int i = 0; i < CHILDREN_PER_NODE && created < nodeCount; ++i)
+            {
+                INode child = new BenchmarkNode();
+                parent.addChild(child, i);
+                ++created;
+            }
+            ++row;
+        }
+        return graph;
+    }
+
+    private static void print(String name, long nanos, int iterations)
+    {
+        System.out.println(String.format("%-22s %10.2f us/op", name, nanos / 1000.0 / iterations));
+    }
+
+    private static void consume(int value)
+    {
+        blackhole ^= value;
+    }
+
+    private static class BenchmarkGraph extends AbstractGraph
+    {
+        @Override
+        public List<INode> getNodePrototypes()
+        {
+            return new ArrayList<INode>();
+        }
+
+        @Override
+        public List<IEdge> getEdgePrototypes()
+        {
+            return new ArrayList<IEdge>();
+        }
+    }
+
+    private static class BenchmarkNode extends AbstractNode
+    {
+        @Override
+        protected void createContentStructure()
+        {
+            EmptyContent content = new EmptyContent();
+            content.setMinWidth(100);
+            content.setMinHeight(60);
+            setContent(content);
+        }
+
+        @Override
+        public LineText getName()
+        {
+            return null;
+        }
+
+        @Override
+        public LineText getAttributes()
+        {
+            return null;
+        }
+
+        @Override
+        public LineText getMethods()
+        {
+            return null;
+        }
+    }
+
+    private static volatile int blackhole;
+
+    private static final int DEFAULT_NODE_COUNT = 10000;
+    private static final int CHILDREN_PER_NODE = 9;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ITERATIONS = 200;
+}
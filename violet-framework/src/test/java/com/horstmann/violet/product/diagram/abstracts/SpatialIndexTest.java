@@ -0,0 +1,94 @@
+package com.horstmann.violet.product.diagram.abstracts;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpatialIndexTest
+{
+    private SpatialIndex<String> spatialIndex;
+
+    @Before
+    public void setUp()
+    {
+        spatialIndex = new SpatialIndex<String>(100);
+    }
+
+    @Test
+    public void should_find_elements_under_point_in_insertion_order()
+    {
+        // given
+        spatialIndex.put("first", new Rectangle2D.Double(0, 0, 50, 50));
+        spatialIndex.put("second", new Rectangle2D.Double(40, 40, 300, 300));
+        spatialIndex.put("third", new Rectangle2D.Double(500, 500, 10, 10));
+
+        // when
+        final Object[] candidates = spatialIndex.getCandidates(new Point2D.Double(45, 45)).toArray();
+
+        // then
+        assertThat(candidates).containsExactly("first", "second");
+    }
+
+    @Test
+    public void should_keep_order_when_element_is_moved()
+    {
+        // given
+        spatialIndex.put("first", new Rectangle2D.Double(0, 0, 50, 50));
+        spatialIndex.put("second", new Rectangle2D.Double(190, 190, 20, 20));
+
+        // when
+        spatialIndex.put("first", new Rectangle2D.Double(180, 180, 40, 40));
+
+        // then
+        assertThat(spatialIndex.getCandidates(new Point2D.Double(20, 20))).isEmpty();
+        assertThat(spatialIndex.getCandidates(new Point2D.Double(200, 200))).containsExactly("first", "second");
+    }
+
+    @Test
+    public void should_find_elements_intersecting_area()
+    {
+        // given
+        spatialIndex.put("inside", new Rectangle2D.Double(10, 10, 20, 20));
+        spatialIndex.put("overlapping", new Rectangle2D.Double(90, 90, 200, 200));
+        spatialIndex.put("outside", new Rectangle2D.Double(1000, 1000, 20, 20));
+
+        // when
+        final Object[] candidates = spatialIndex.getCandidates(new Rectangle2D.Double(0, 0, 100, 100)).toArray();
+
+        // then
+        assertThat(candidates).containsExactly("inside", "overlapping");
+    }
+
+    @Test
+    public void should_find_very_large_elements()
+    {
+        // given
+        spatialIndex.put("huge", new Rectangle2D.Double(-5000, -5000, 100000, 100000));
+
+        // when
+        final Object[] candidates = spatialIndex.getCandidates(new Point2D.Double(12345, 678)).toArray();
+
+        // then
+        assertThat(candidates).containsExactly("huge");
+    }
+
+    @Test
+    public void should_not_find_removed_elements()
+    {
+        // given
+        spatialIndex.put("removed", new Rectangle2D.Double(0, 0, 50, 50));
+        spatialIndex.put("kept", new Rectangle2D.Double(0, 0, 50, 50));
+
+        // when
+        spatialIndex.remove("removed");
+
+        // then
+        assertThat(spatialIndex.contains("removed")).isFalse();
+        assertThat(spatialIndex.size()).isEqualTo(1);
+        assertThat(spatialIndex.getCandidates(new Point2D.Double(25, 25))).containsExactly("kept");
+    }
+}
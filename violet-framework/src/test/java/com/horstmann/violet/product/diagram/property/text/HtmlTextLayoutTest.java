@@ -0,0 +1,79 @@
+package com.horstmann.violet.product.diagram.property.text;
+
+import org.junit.Test;
+
+import java.awt.Font;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HtmlTextLayoutTest
+{
+    private static final Font FONT = new Font(Font.DIALOG, Font.PLAIN, 12);
+
+    @Test
+    public void should_split_lines_on_br_and_center()
+    {
+        // given
+        final String text = "<center>«interface»</center> <font size=+1>Shape</font><br>draw()";
+
+        // when
+        final HtmlTextLayout layout = HtmlTextLayout.getLayout(text, FONT);
+
+        // then
+        assertThat(layout.getLineCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void should_not_draw_decorator_tags()
+    {
+        // given
+        final HtmlTextLayout boldText = HtmlTextLayout.getLayout("bold", FONT.deriveFont(Font.BOLD));
+
+        // when
+        final HtmlTextLayout decoratedText = HtmlTextLayout.getLayout("<b>bold</b>", FONT);
+
+        // then
+        assertThat(decoratedText.getWidth()).isEqualTo(boldText.getWidth());
+        assertThat(decoratedText.getHeight()).isEqualTo(boldText.getHeight());
+    }
+
+    @Test
+    public void should_draw_other_tags_as_text()
+    {
+        // given
+        final HtmlTextLayout plainText = HtmlTextLayout.getLayout("List", FONT);
+
+        // when
+        final HtmlTextLayout genericText = HtmlTextLayout.getLayout("List<String>", FONT);
+
+        // then
+        assertThat(genericText.getWidth()).isGreaterThan(plainText.getWidth());
+    }
+
+    @Test
+    public void should_make_text_larger_with_font_size()
+    {
+        // given
+        final HtmlTextLayout plainText = HtmlTextLayout.getLayout("Shape", FONT);
+
+        // when
+        final HtmlTextLayout largeText = HtmlTextLayout.getLayout("<font size=+1>Shape</font>", FONT);
+
+        // then
+        assertThat(largeText.getWidth()).isGreaterThan(plainText.getWidth());
+        assertThat(largeText.getHeight()).isGreaterThan(plainText.getHeight());
+    }
+
+    @Test
+    public void should_reuse_layout_of_same_text_and_font()
+    {
+        // given
+        final HtmlTextLayout layout = HtmlTextLayout.getLayout("<i>cached</i>", FONT);
+
+        // when
+        final HtmlTextLayout sameLayout = HtmlTextLayout.getLayout("<i>cached</i>", new Font(Font.DIALOG, Font.PLAIN, 12));
+
+        // then
+        assertThat(sameLayout).isSameAs(layout);
+    }
+}
@@ -21,7 +21,9 @@
 
 package com.horstmann.violet.product.diagram.sequence;
 
+import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
 
 import com.horstmann.violet.product.diagram.abstracts.AbstractGraph;
@@ -36,6 +38,7 @@ import com.horstmann.violet.product.diagram.sequence.edge.ReturnEdge;
 import com.horstmann.violet.product.diagram.sequence.node.ActivationBarNode;
 import com.horstmann.violet.product.diagram.sequence.node.CombinedFragmentNode;
 import com.horstmann.violet.product.diagram.sequence.node.LifelineNode;
+import com.horstmann.violet.product.diagram.sequence.node.SequenceLayout;
 
 /**
  * A UML sequence diagram.
@@ -52,6 +55,118 @@ public class SequenceDiagramGraph extends AbstractGraph
         return super.addNode(newNode, p);
     }
 
+    @Override
+    public boolean connect(IEdge e, INode start, Point2D startLocation, INode end, Point2D endLocation, Point2D[] transitionPoints)
+    {
+        boolean isConnected = super.connect(e, start, startLocation, end, endLocation, transitionPoints);
+        invalidateLayout();
+        return isConnected;
+    }
+
+    @Override
+    public void removeEdge(IEdge... edgesToRemove)
+    {
+        super.removeEdge(edgesToRemove);
+        invalidateLayout();
+    }
+
+    @Override
+    public void restoreEdges(Collection<IEdge> edgesToRestore)
+    {
+        super.restoreEdges(edgesToRestore);
+        invalidateLayout();
+    }
+
+    @Override
+    public void onNodeBoundsChanged(INode node)
+    {
+        super.onNodeBoundsChanged(node);
+        invalidateLayout();
+    }
+
+    @Override
+    public void onNodeHierarchyChanged(INode node)
+    {
+        super.onNodeHierarchyChanged(node);
+        invalidateLayout();
+    }
+
+    @Override
+    public INode findNode(Point2D p)
+    {
+        validateLayout();
+        return super.findNode(p);
+    }
+
+    @Override
+    public Collection<INode> findNodes(Rectangle2D area)
+    {
+        validateLayout();
+        return super.findNodes(area);
+    }
+
+    @Override
+    public IEdge findEdge(Point2D p)
+    {
+        validateLayout();
+        return super.findEdge(p);
+    }
+
+    @Override
+    public Collection<IEdge> findEdges(Rectangle2D area)
+    {
+        validateLayout();
+        return super.findEdges(area);
+    }
+
+    @Override
+    public void draw(Graphics2D graphics, Rectangle2D clip)
+    {
+        validateLayout();
+        super.draw(graphics, clip);
+    }
+
+    @Override
+    public Rectangle2D getClipBounds()
+    {
+        validateLayout();
+        return super.getClipBounds();
+    }
+
+    /**
+     * Lays out lifelines and activation bars if the diagram has changed since the last time.
+     * Their location and size are then stored, so they can be kept in the spatial index.
+     */
+    public void validateLayout()
+    {
+        if (isLayoutValid || isLayoutRunning)
+        {
+            return;
+        }
+        isLayoutRunning = true;
+        try
+        {
+            // Nodes which have only been extended to the lowest lifeline aren't notified yet
+            for (INode aChangedNode : new SequenceLayout(this).layout())
+            {
+                onNodeBoundsChanged(aChangedNode);
+            }
+            isLayoutValid = true;
+        }
+        finally
+        {
+            isLayoutRunning = false;
+        }
+    }
+
+    private void invalidateLayout()
+    {
+        if (!isLayoutRunning)
+        {
+            isLayoutValid = false;
+        }
+    }
+
     public List<INode> getNodePrototypes() {
         return NODE_PROTOTYPES;
     }
@@ -60,6 +175,9 @@ public class SequenceDiagramGraph extends AbstractGraph
         return EDGE_PROTOTYPES;
     }
 
+    private transient boolean isLayoutValid;
+    private transient boolean isLayoutRunning;
+
     private static final List<INode> NODE_PROTOTYPES = new ArrayList<INode>(Arrays.asList(
             new LifelineNode(),
             new ActivationBarNode(),
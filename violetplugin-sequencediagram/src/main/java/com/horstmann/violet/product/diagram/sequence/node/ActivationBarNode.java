@@ -30,12 +30,14 @@ import com.horstmann.violet.product.diagram.abstracts.node.INode;
 import com.horstmann.violet.product.diagram.common.node.ColorableNode;
 import com.horstmann.violet.product.diagram.property.text.LineText;
 import com.horstmann.violet.product.diagram.sequence.SequenceDiagramConstant;
+import com.horstmann.violet.product.diagram.sequence.SequenceDiagramGraph;
 import com.horstmann.violet.product.diagram.sequence.edge.CallEdge;
 import com.horstmann.violet.product.diagram.sequence.edge.ReturnEdge;
 
 import java.awt.*;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.List;
 
 /**
  * An activation bar in a sequence diagram. This activation bar is hang on a lifeline (implicit parameter)
@@ -57,14 +59,12 @@ public class ActivationBarNode extends ColorableNode
     {
         super();
         createContentStructure();
-        refreshPositionAndSize();
     }
 
     protected ActivationBarNode(ActivationBarNode node) throws CloneNotSupportedException
     {
         super(node);
         createContentStructure();
-        refreshPositionAndSize();
     }
 
     @Override
@@ -96,6 +96,9 @@ public class ActivationBarNode extends ColorableNode
         EmptyContent padding = new EmptyContent();
         padding.setMinHeight(CHILD_VERTICAL_MARGIN);
 
+        activationsGroup.setMinHeight(MIN_HEIGHT);
+        layoutHeight = MIN_HEIGHT;
+
         VerticalLayout verticalLayout = new VerticalLayout();
         verticalLayout.add(padding);
         verticalLayout.add(activationsGroup);
@@ -138,7 +141,6 @@ public class ActivationBarNode extends ColorableNode
     {
         activationsGroup.remove(((ActivationBarNode) node).getContent());
         super.removeChild(node);
-        refreshSize();
     }
 
     @Override
@@ -161,7 +163,6 @@ public class ActivationBarNode extends ColorableNode
         activationBarNode.setLocation(point);
         activationBarNode.setGraph(getGraph());
         activationBarNode.setParent(this);
-        refreshSize();
 
         return true;
     }
@@ -185,12 +186,6 @@ public class ActivationBarNode extends ColorableNode
         return new Point2D.Double(nodeLocation.getX() + CHILD_LEFT_MARGIN, nodeLocation.getY() - CHILD_VERTICAL_MARGIN);
     }
 
-    @Override
-    public void onConnectedEdge(IEdge connectedEdge)
-    {
-        refreshPositionAndSize();
-    }
-
     @Override
     public boolean addConnection(IEdge edge)
     {
@@ -282,63 +277,63 @@ public class ActivationBarNode extends ColorableNode
     @Override
     public Rectangle2D getBounds()
     {
-        refreshPositionAndSize();
+        if (getGraph() instanceof SequenceDiagramGraph)
+        {
+            ((SequenceDiagramGraph) getGraph()).validateLayout();
+        }
         return super.getBounds();
     }
 
-    private void refreshPosition()
-    {
-        setLocation(calculateLocation());
-    }
-
-    private void refreshSize()
-    {
-        activationsGroup.setMinHeight((int)Math.max(calculateHeight(), MIN_HEIGHT));
-    }
-
-    private void refreshPositionAndSize()
-    {
-        refreshPosition();
-        refreshSize();
-    }
-
-    private Point2D calculateLocation()
+    /**
+     * Moves the bar up to the bars it calls
+     *
+     * @param calledBars
+     * @return true if the bar has moved
+     */
+    boolean layoutLocation(List<ActivationBarNode> calledBars)
     {
-        double y = this.getLocation().getY();
-
-        for (IEdge edge : getGraph().getAllEdges())
+        Point2D location = getLocation();
+        double x = location.getX();
+        double y = location.getY();
+        double newY = y;
+        for (ActivationBarNode aCalledBar : calledBars)
         {
-            if (edge instanceof CallEdge && edge.getEndNode() instanceof ActivationBarNode)
-            {
-                if (edge.getStartNode() == this)
-                {
-                    y = Math.min(y, edge.getEndNode().getLocationOnGraph().getY() - 5);
-                }
-            }
+            newY = Math.min(newY, aCalledBar.getLocationOnGraph().getY() - 5);
         }
-        return new Point.Double(this.getLocation().getX(), y);
+        if (newY == y)
+        {
+            return false;
+        }
+        // The parent may keep the bar where it is
+        setLocation(new Point2D.Double(x, newY));
+        return x != getLocation().getX() || y != getLocation().getY();
     }
 
-    private double calculateHeight()
+    /**
+     * Stretches the bar down to the end of the bars it calls
+     *
+     * @param calledBars
+     * @return true if the bar has been resized
+     */
+    boolean layoutHeight(List<ActivationBarNode> calledBars)
     {
         double height = 0;
-        for (IEdge edge : getGraph().getAllEdges())
+        double y = getLocationOnGraph().getY();
+        for (ActivationBarNode aCalledBar : calledBars)
         {
-            if (edge instanceof CallEdge)
+            if (aCalledBar != this)
             {
-                if (edge.getStartNode() == this && edge.getStartNode() != getParent())
-                {
-                    INode endingNode = edge.getEndNode();
-                    if (endingNode instanceof ActivationBarNode)
-                    {
-                        Rectangle2D endingNodeBounds = endingNode.getBounds();
-                        double newHeight = endingNodeBounds.getHeight() + (endingNode.getLocationOnGraph().getY() - this.getLocationOnGraph().getY());
-                        height = Math.max(height, newHeight);
-                    }
-                }
+                height = Math.max(height, aCalledBar.getBounds().getHeight() + aCalledBar.getLocationOnGraph().getY() - y);
             }
         }
-        return Math.max(MIN_HEIGHT, height);
+        int newLayoutHeight = (int) Math.max(height, MIN_HEIGHT);
+        if (newLayoutHeight == layoutHeight)
+        {
+            return false;
+        }
+        layoutHeight = newLayoutHeight;
+        activationsGroup.setMinHeight(newLayoutHeight);
+        return true;
     }
 
     private boolean isReturnEdgeAcceptable(ReturnEdge edge)
@@ -424,6 +419,7 @@ public class ActivationBarNode extends ColorableNode
     }
 
     private transient RelativeLayout activationsGroup = null;
+    private transient int layoutHeight;
     
     public static final int WIDTH = 16;
     public static final int MIN_HEIGHT = 15;
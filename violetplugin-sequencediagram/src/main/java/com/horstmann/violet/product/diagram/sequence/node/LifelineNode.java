@@ -35,7 +35,7 @@ import com.horstmann.violet.product.diagram.property.text.decorator.OneLineText;
 import com.horstmann.violet.product.diagram.property.text.decorator.PrefixDecorator;
 import com.horstmann.violet.product.diagram.property.text.decorator.RemoveSentenceDecorator;
 import com.horstmann.violet.product.diagram.sequence.SequenceDiagramConstant;
-import com.horstmann.violet.product.diagram.sequence.edge.CallEdge;
+import com.horstmann.violet.product.diagram.sequence.SequenceDiagramGraph;
 
 import java.awt.*;
 import java.awt.geom.Line2D;
@@ -173,7 +173,7 @@ public class LifelineNode extends ColorableNode
     public Rectangle2D getBounds()
     {
         Rectangle2D bounds = super.getBounds();
-        return new Rectangle2D.Double(bounds.getX(), bounds.getY(), bounds.getWidth(), getMaxYOverAllLifeLineNodes()-bounds.getY());
+        return new Rectangle2D.Double(bounds.getX(), bounds.getY(), bounds.getWidth(), getLifelinesBottom()-bounds.getY());
     }
 
     @Override
@@ -238,27 +238,51 @@ public class LifelineNode extends ColorableNode
 
     @Override
     public Point2D getLocation()
+    {
+        if (getGraph() instanceof SequenceDiagramGraph)
+        {
+            ((SequenceDiagramGraph) getGraph()).validateLayout();
+        }
+        return new Point2D.Double(super.getLocation().getX(), layoutY);
+    }
+
+    /**
+     * Moves the lifeline down to the call which creates it
+     *
+     * @param creationCall the call, or null if the lifeline exists from the beginning
+     * @return true if the lifeline has moved
+     */
+    boolean layoutLocation(IEdge creationCall)
     {
         double y = 0;
-        for (IEdge edge : getGraph().getAllEdges())
+        if (null != creationCall)
         {
-            if (edge instanceof CallEdge)
-            {
-                if (this == edge.getEndNode())
-                {
-                    y = edge.getStartNode().getLocationOnGraph().getY() - TOP_HEIGHT /2 + ActivationBarNode.CALL_Y_GAP / 2;
-                    break;
-                }
-            }
+            y = creationCall.getStartNode().getLocationOnGraph().getY() - TOP_HEIGHT /2 + ActivationBarNode.CALL_Y_GAP / 2;
+        }
+        if (y == layoutY)
+        {
+            return false;
         }
-        return new Point2D.Double(super.getLocation().getX(), y);
+        layoutY = y;
+        return true;
+    }
+
+    /**
+     * Extends the lifeline down to the lowest lifeline of the diagram
+     *
+     * @param maxY greatest getMaxY() of all the lifelines
+     */
+    void layoutBottom(double maxY)
+    {
+        lifelinesBottom = maxY + ACTIVATIONS_PADDING;
+        isLaidOut = true;
     }
 
     public void draw(Graphics2D graphics)
     {
         Rectangle2D bounds = getBounds();
         Point2D startPoint = new Point2D.Double(bounds.getCenterX(), bounds.getMinY());
-        Point2D endPoint  = new Point2D.Double(bounds.getCenterX(), getMaxYOverAllLifeLineNodes());
+        Point2D endPoint  = new Point2D.Double(bounds.getCenterX(), getLifelinesBottom());
 
         Color oldColor = graphics.getColor();
         Stroke oldStroke = graphics.getStroke();
@@ -282,7 +306,7 @@ public class LifelineNode extends ColorableNode
 
     public boolean contains(Point2D p)
     {
-        double maxYOverAllLifeLineNodes = getMaxYOverAllLifeLineNodes();
+        double maxYOverAllLifeLineNodes = getLifelinesBottom();
         Rectangle2D bounds = getBounds();
         if((maxYOverAllLifeLineNodes >= p.getY() &&
                 ActivationBarNode.WIDTH /2 >= p.getX() - bounds.getCenterX() &&
@@ -313,23 +337,23 @@ public class LifelineNode extends ColorableNode
         return new Point2D.Double(x, locationOnGraph.getY() + TOP_HEIGHT / 2);
     }
 
-    private double getMaxY()
+    double getMaxY()
     {
         return getContent().getHeight() + getLocationOnGraph().getY();
     }
 
-    private double getMaxYOverAllLifeLineNodes()
+    /**
+     * @return bottom of all the lifelines, as computed by the last layout
+     */
+    private double getLifelinesBottom()
     {
-        double maxY = getMaxY();
-
-        for (INode node : getGraph().getAllNodes())
+        getLocation();
+        if (!isLaidOut)
         {
-            if (node instanceof LifelineNode)
-            {
-                maxY = Math.max(maxY, ((LifelineNode) node).getMaxY() + ACTIVATIONS_PADDING);
-            }
+            // Not laid out in a sequence diagram
+            return getMaxY() + ACTIVATIONS_PADDING;
         }
-        return maxY;
+        return lifelinesBottom;
     }
 
     private void centeredActivationsGroup()
@@ -426,6 +450,9 @@ public class LifelineNode extends ColorableNode
     private boolean endOfLife;
 
     private transient RelativeLayout activationsGroup = null;
+    private transient double layoutY;
+    private transient double lifelinesBottom;
+    private transient boolean isLaidOut;
 
     public static final int TOP_HEIGHT = 60;
     private static final int MIN_WIDTH = 100;
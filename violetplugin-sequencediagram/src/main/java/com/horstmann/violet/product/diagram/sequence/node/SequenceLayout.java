@@ -0,0 +1,153 @@
+package com.horstmann.violet.product.diagram.sequence.node;
+
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+import com.horstmann.violet.product.diagram.abstracts.edge.IEdge;
+import com.horstmann.violet.product.diagram.abstracts.node.INode;
+import com.horstmann.violet.product.diagram.sequence.edge.CallEdge;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the location and the size of all the lifelines and activation bars of a sequence diagram.
+ *
+ * Activation bars are moved up to the bars they call and stretched down to cover them, so bars are
+ * laid out callees first, in one sweep over the call edges. Lifelines created by a call are then moved
+ * down to this call, and all lifelines are extended to the lowest one. The results are stored in the
+ * nodes, which only read them until the diagram changes.
+ */
+public class SequenceLayout
+{
+    /**
+     * @param graph the sequence diagram to lay out
+     */
+    public SequenceLayout(IGraph graph)
+    {
+        this.graph = graph;
+    }
+
+    /**
+     * Lays out the whole diagram
+     *
+     * @return the lifelines and activation bars whose bounds have changed
+     */
+    public List<INode> layout()
+    {
+        List<LifelineNode> lifelines = new ArrayList<LifelineNode>();
+        List<ActivationBarNode> activationBars = new ArrayList<ActivationBarNode>();
+        Map<INode, Rectangle2D> oldBounds = new IdentityHashMap<INode, Rectangle2D>();
+        for (INode aNode : graph.getAllNodes())
+        {
+            if (aNode instanceof LifelineNode)
+            {
+                lifelines.add((LifelineNode) aNode);
+                oldBounds.put(aNode, aNode.getBounds());
+            }
+            else if (aNode instanceof ActivationBarNode)
+            {
+                activationBars.add((ActivationBarNode) aNode);
+                oldBounds.put(aNode, aNode.getBounds());
+            }
+        }
+
+        // A bar may depend on a bar laid out later through the location of its parents,
+        // so sweep again until nothing moves
+        for (int sweep = 0; sweep < MAX_SWEEPS; ++sweep)
+        {
+            boolean isChanged = false;
+            Set<ActivationBarNode> laidOutBars = Collections.newSetFromMap(new IdentityHashMap<ActivationBarNode, Boolean>());
+            for (ActivationBarNode anActivationBar : activationBars)
+            {
+                isChanged |= layoutActivationBar(anActivationBar, laidOutBars);
+            }
+            for (LifelineNode aLifeline : lifelines)
+            {
+                isChanged |= aLifeline.layoutLocation(getCreationCall(aLifeline));
+            }
+            if (!isChanged)
+            {
+                break;
+            }
+        }
+
+        double lifelinesBottom = 0;
+        for (LifelineNode aLifeline : lifelines)
+        {
+            lifelinesBottom = Math.max(lifelinesBottom, aLifeline.getMaxY());
+        }
+        List<INode> changedNodes = new ArrayList<INode>();
+        for (LifelineNode aLifeline : lifelines)
+        {
+            aLifeline.layoutBottom(lifelinesBottom);
+        }
+        for (Map.Entry<INode, Rectangle2D> anEntry : oldBounds.entrySet())
+        {
+            if (!anEntry.getValue().equals(anEntry.getKey().getBounds()))
+            {
+                changedNodes.add(anEntry.getKey());
+            }
+        }
+        return changedNodes;
+    }
+
+    /**
+     * Lays out a bar after its children and the bars it calls
+     *
+     * @param activationBar
+     * @param laidOutBars bars already laid out during this sweep, or being laid out
+     * @return true if the bar has moved or has been resized
+     */
+    private boolean layoutActivationBar(ActivationBarNode activationBar, Set<ActivationBarNode> laidOutBars)
+    {
+        if (!laidOutBars.add(activationBar))
+        {
+            return false;
+        }
+        boolean isChanged = false;
+        for (INode aChild : activationBar.getChildren())
+        {
+            if (aChild instanceof ActivationBarNode)
+            {
+                isChanged |= layoutActivationBar((ActivationBarNode) aChild, laidOutBars);
+            }
+        }
+        List<ActivationBarNode> calledBars = new ArrayList<ActivationBarNode>();
+        for (IEdge anEdge : graph.getConnectedEdges(activationBar))
+        {
+            if (anEdge instanceof CallEdge && activationBar == anEdge.getStartNode() && anEdge.getEndNode() instanceof ActivationBarNode)
+            {
+                ActivationBarNode calledBar = (ActivationBarNode) anEdge.getEndNode();
+                isChanged |= layoutActivationBar(calledBar, laidOutBars);
+                calledBars.add(calledBar);
+            }
+        }
+        isChanged |= activationBar.layoutLocation(calledBars);
+        isChanged |= activationBar.layoutHeight(calledBars);
+        return isChanged;
+    }
+
+    /**
+     * @param lifeline
+     * @return the call which creates the lifeline, or null if it exists from the beginning
+     */
+    private IEdge getCreationCall(LifelineNode lifeline)
+    {
+        for (IEdge anEdge : graph.getConnectedEdges(lifeline))
+        {
+            if (anEdge instanceof CallEdge && lifeline == anEdge.getEndNode())
+            {
+                return anEdge;
+            }
+        }
+        return null;
+    }
+
+    private final IGraph graph;
+
+    private static final int MAX_SWEEPS = 10;
+}
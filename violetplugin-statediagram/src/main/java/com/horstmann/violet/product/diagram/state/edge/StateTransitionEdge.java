@@ -21,21 +21,19 @@
 
 package com.horstmann.violet.product.diagram.state.edge;
 
-import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
-
-import javax.swing.JLabel;
 
 import com.horstmann.violet.product.diagram.abstracts.Direction;
 import com.horstmann.violet.product.diagram.abstracts.edge.ShapeEdge;
 import com.horstmann.violet.product.diagram.abstracts.node.INode;
 import com.horstmann.violet.product.diagram.property.ArrowheadChoiceList;
+import com.horstmann.violet.product.diagram.property.text.HtmlTextLayout;
 import com.horstmann.violet.product.diagram.property.text.LineText;
 import com.horstmann.violet.product.diagram.property.text.SingleLineText;
 import com.horstmann.violet.product.diagram.state.StateDiagramConstant;
@@ -116,31 +114,28 @@ public class StateTransitionEdge extends ShapeEdge
     private void drawLabel(Graphics2D g2)
     {
         Rectangle2D labelBounds = getLabelBounds();
-        double x = labelBounds.getX();
-        double y = labelBounds.getY();
+        getLabelLayout().draw(g2, labelBounds.getX(), labelBounds.getY());
+    }
 
-        g2.translate(x, y);
-        label.paint(g2);
-        g2.translate(-x, -y);
+    /**
+     * Gets the laid out label text
+     *
+     * @return the laid out label text
+     */
+    private HtmlTextLayout getLabelLayout()
+    {
+        return HtmlTextLayout.getLayout(labelText.toString(), LABEL_FONT);
     }
 
     /**
      * Gets the bounds of the label text
      * 
-     * @param g2 the graphics context
      * @return the bounds of the label text
      */
     private Rectangle2D getLabelBounds()
     {
-        BufferedImage dummy = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
-        // need a dummy image to get a Graphics to
-        // measure the size
-        Graphics2D g2 = (Graphics2D) dummy.getGraphics();
-        
-        label.setText("<html>" + labelText + "</html>");
-        label.setFont(g2.getFont());
-        Dimension d = label.getPreferredSize();
-        label.setBounds(0, 0, d.width, d.height);
+        HtmlTextLayout labelLayout = getLabelLayout();
+        Rectangle2D d = new Rectangle2D.Double(0, 0, Math.ceil(labelLayout.getWidth()), Math.ceil(labelLayout.getHeight()));
 
         Line2D line = getConnectionPoints();
         Point2D control = getControlPoint();
@@ -163,7 +158,7 @@ public class StateTransitionEdge extends ShapeEdge
         {
             y = y - d.getHeight() / 2;
         }
-        return new Rectangle2D.Double(x, y, d.width, d.height);
+        return new Rectangle2D.Double(x, y, d.getWidth(), d.getHeight());
     }
 
     /**
@@ -215,5 +210,5 @@ public class StateTransitionEdge extends ShapeEdge
     private double angle;
     private SingleLineText labelText = new SingleLineText();
 
-    private static JLabel label = new JLabel();
+    private static final Font LABEL_FONT = new Font(Font.DIALOG, Font.PLAIN, 12);
 }
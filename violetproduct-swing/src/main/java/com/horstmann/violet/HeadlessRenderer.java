@@ -0,0 +1,274 @@
+package com.horstmann.violet;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+
+import com.horstmann.violet.framework.file.export.FileExportService;
+import com.horstmann.violet.framework.file.persistence.IFilePersistenceService;
+import com.horstmann.violet.framework.file.persistence.XHTMLPersistenceService;
+import com.horstmann.violet.framework.injection.bean.ManiocFramework.BeanFactory;
+import com.horstmann.violet.framework.plugin.PluginLoader;
+import com.horstmann.violet.product.diagram.abstracts.IGraph;
+
+/**
+ * Renders all the diagrams of a directory to images or PDF files without any GUI (i.e. to build
+ * documentations). Only the plugins and the persistence service are started.
+ *
+ * Files are rendered in parallel and the time taken by each one is printed as soon as it is done,
+ * followed by the total time and the number of files rendered per second.
+ */
+public class HeadlessRenderer
+{
+
+    /**
+     * Command line entry point, also reached with the -render option of the application
+     *
+     * @param args input directory followed by options
+     */
+    public static void main(String[] args)
+    {
+        System.setProperty("java.awt.headless", "true");
+        File inputDirectory = null;
+        File outputDirectory = null;
+        String format = DEFAULT_FORMAT;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++)
+        {
+            String arg = args[i];
+            if ("-out".equals(arg) && i + 1 < args.length)
+            {
+                outputDirectory = new File(args[++i]);
+            }
+            else if ("-format".equals(arg) && i + 1 < args.length)
+            {
+                format = args[++i].toLowerCase(Locale.ENGLISH);
+            }
+            else if ("-threads".equals(arg) && i + 1 < args.length)
+            {
+                try
+                {
+                    threadCount = Integer.parseInt(args[++i]);
+                }
+                catch (NumberFormatException e)
+                {
+                    printHelp();
+                    System.exit(1);
+                }
+            }
+            else if (null == inputDirectory && !arg.startsWith("-"))
+            {
+                inputDirectory = new File(arg);
+            }
+            else
+            {
+                printHelp();
+                System.exit(1);
+            }
+        }
+        if (null == inputDirectory || !inputDirectory.isDirectory() || threadCount < 1)
+        {
+            printHelp();
+            System.exit(1);
+        }
+        if (!PDF_FORMAT.equals(format) && !ImageIO.getImageWritersByFormatName(format).hasNext())
+        {
+            System.err.println("Unsupported format " + format);
+            System.exit(1);
+        }
+        if (null == outputDirectory)
+        {
+            outputDirectory = inputDirectory;
+        }
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+        {
+            System.err.println("Unable to create directory " + outputDirectory);
+            System.exit(1);
+        }
+        HeadlessRenderer renderer = new HeadlessRenderer(outputDirectory, format);
+        int failureCount = renderer.renderDirectory(inputDirectory, threadCount);
+        System.exit(failureCount > 0 ? 1 : 0);
+    }
+
+    /**
+     * Prints command line options
+     */
+    static void printHelp()
+    {
+        System.out.println("-render <directory> [-out <directory>] [-format png|pdf|...] [-threads <count>]");
+        System.out.println("    to render all the " + FILE_EXTENSION + " files of a directory without GUI.");
+    }
+
+    /**
+     * Starts plugins and persistence only
+     *
+     * @param outputDirectory where images are written
+     * @param format image format name or pdf
+     */
+    public HeadlessRenderer(File outputDirectory, String format)
+    {
+        this.outputDirectory = outputDirectory;
+        this.format = format;
+        BeanFactory.getFactory().register(IFilePersistenceService.class, this.persistenceService);
+        BeanFactory.getFactory().getBean(PluginLoader.class).installPlugins();
+    }
+
+    /**
+     * Renders all the diagrams of a directory on a pool of threads
+     *
+     * @param inputDirectory
+     * @param threadCount maximum number of files rendered at the same time
+     * @return the number of files which couldn't be rendered
+     */
+    public int renderDirectory(File inputDirectory, int threadCount)
+    {
+        File[] files = inputDirectory.listFiles(new FileFilter()
+        {
+            @Override
+            public boolean accept(File pathname)
+            {
+                return pathname.isFile() && pathname.getName().endsWith(FILE_EXTENSION);
+            }
+        });
+        if (null == files || files.length == 0)
+        {
+            System.out.println("No " + FILE_EXTENSION + " file found in " + inputDirectory);
+            return 0;
+        }
+        Arrays.sort(files);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, files.length), new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "Render");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        CompletionService<String> completionService = new ExecutorCompletionService<String>(executor);
+        long startTime = System.nanoTime();
+        for (final File aFile : files)
+        {
+            completionService.submit(new Callable<String>()
+            {
+                @Override
+                public String call() throws Exception
+                {
+                    return render(aFile);
+                }
+            });
+        }
+        executor.shutdown();
+        int failureCount = 0;
+        for (int i = 0; i < files.length; i++)
+        {
+            try
+            {
+                System.out.println(completionService.take().get());
+            }
+            catch (ExecutionException e)
+            {
+                failureCount++;
+                System.err.println(e.getCause().getMessage());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return files.length - i;
+            }
+        }
+        long totalMillis = (System.nanoTime() - startTime) / 1000000;
+        int renderedCount = files.length - failureCount;
+        System.out.println(String.format(Locale.ENGLISH, "%d files rendered, %d failed, in %d ms (%.1f files/s)", renderedCount,
+                failureCount, totalMillis, renderedCount * 1000.0 / Math.max(1, totalMillis)));
+        return failureCount;
+    }
+
+    /**
+     * Renders one diagram next to the others in the output directory
+     *
+     * @param file diagram file
+     * @return timings line
+     * @throws IOException with the name of the file
+     */
+    private String render(File file) throws IOException
+    {
+        try
+        {
+            long startTime = System.nanoTime();
+            IGraph graph;
+            InputStream in = new FileInputStream(file);
+            try
+            {
+                graph = this.persistenceService.read(in);
+            }
+            finally
+            {
+                in.close();
+            }
+            long readTime = System.nanoTime();
+            String name = file.getName();
+            File outputFile = new File(this.outputDirectory, name.substring(0, name.length() - FILE_EXTENSION.length()) + "."
+                    + this.format);
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile));
+            try
+            {
+                if (PDF_FORMAT.equals(this.format))
+                {
+                    FileExportService.exportToPdf(graph, out);
+                }
+                else if (DEFAULT_FORMAT.equals(this.format))
+                {
+                    FileExportService.exportToPng(graph, out);
+                }
+                else
+                {
+                    BufferedImage image = FileExportService.getImage(graph);
+                    ImageIO.write(image, this.format, out);
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+            long endTime = System.nanoTime();
+            return String.format(Locale.ENGLISH, "%s: read %d ms, rendered %d ms", name, (readTime - startTime) / 1000000,
+                    (endTime - readTime) / 1000000);
+        }
+        catch (Exception e)
+        {
+            throw new IOException("Unable to render " + file.getName() + ": " + e, e);
+        }
+    }
+
+    private final File outputDirectory;
+
+    private final String format;
+
+    private final XHTMLPersistenceService persistenceService = new XHTMLPersistenceService();
+
+    private static final String FILE_EXTENSION = ".violet.html";
+
+    private static final String PDF_FORMAT = "pdf";
+
+    private static final String DEFAULT_FORMAT = "png";
+
+}
@@ -24,8 +24,14 @@ import java.awt.Toolkit;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.horstmann.violet.application.gui.MainFrame;
 import com.horstmann.violet.application.gui.SplashScreen;
@@ -91,7 +97,13 @@ public class UMLEditorApplication
             {
                 System.out.println("Violet UML Editor command line help. Options are :");
                 System.out.println("-reset to reset user preferences,");
-                System.out.println("-english to force language to english.");
+                System.out.println("-english to force language to english,");
+                HeadlessRenderer.printHelp();
+                return;
+            }
+            if ("-render".equals(arg))
+            {
+                HeadlessRenderer.main(Arrays.copyOfRange(args, i + 1, args.length));
                 return;
             }
         }
@@ -158,7 +170,7 @@ public class UMLEditorApplication
         SplashScreen splashScreen = new SplashScreen();
         splashScreen.setVisible(true);
         this.versionChecker.checkJavaVersion();
-        MainFrame mainFrame = new MainFrame();
+        final MainFrame mainFrame = new MainFrame();
         mainFrame.setSize(Toolkit.getDefaultToolkit().getScreenSize());
         mainFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
         SplashScreen.displayOverEditor(mainFrame, 1000);
@@ -179,14 +191,38 @@ public class UMLEditorApplication
                 e.printStackTrace();
             }
         }
-        // Open files
-        for (IFile aFile : lastSessionFiles)
+        mainFrame.showLoadingPanel();
+        mainFrame.setVisible(true);
+        splashScreen.setVisible(false);
+        splashScreen.dispose();
+        // Open files, read in parallel and added in the same order as soon as they are ready. The active
+        // file is read and displayed first, then the other ones follow in session order.
+        final IFile activeFile = this.userPreferencesService.getActiveDiagramFile();
+        List<IFile> sessionFiles = new ArrayList<IFile>(lastSessionFiles);
+        for (int i = 0; activeFile != null && i < sessionFiles.size(); i++)
         {
+            if (activeFile.getFilename().equals(sessionFiles.get(i).getFilename()))
+            {
+                sessionFiles.add(0, sessionFiles.remove(i));
+                break;
+            }
+        }
+        List<Future<IGraphFile>> graphFiles = readGraphFiles(sessionFiles);
+        for (int i = 0; i < sessionFiles.size(); i++)
+        {
+            IFile aFile = sessionFiles.get(i);
             try
             {
-                IGraphFile graphFile = new GraphFile(aFile);
-                IWorkspace workspace = new Workspace(graphFile);
-                mainFrame.addWorkspace(workspace);
+                final IGraphFile graphFile = graphFiles.get(i).get();
+                final boolean isActiveFile = activeFile != null && activeFile.getFilename().equals(aFile.getFilename());
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    public void run()
+                    {
+                        IWorkspace workspace = new Workspace(graphFile);
+                        mainFrame.addWorkspace(workspace, isActiveFile);
+                    }
+                });
             }
             catch (Exception e)
             {
@@ -195,11 +231,52 @@ public class UMLEditorApplication
                 System.err.println("Removed from user preferences!");
             }
         }
-        IFile activeFile = this.userPreferencesService.getActiveDiagramFile();
-        mainFrame.setActiveWorkspace(activeFile);
-        mainFrame.setVisible(true);
-        splashScreen.setVisible(false);
-        splashScreen.dispose();
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            public void run()
+            {
+                mainFrame.hideLoadingPanel();
+            }
+        });
+    }
+
+    /**
+     * Starts reading files on a pool of threads
+     * 
+     * @param files
+     * @return graph files, in the same order as the files
+     */
+    private List<Future<IGraphFile>> readGraphFiles(List<IFile> files)
+    {
+        List<Future<IGraphFile>> graphFiles = new ArrayList<Future<IGraphFile>>();
+        if (files.isEmpty())
+        {
+            return graphFiles;
+        }
+        int threadCount = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "SessionRestore");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (final IFile aFile : files)
+        {
+            graphFiles.add(executor.submit(new Callable<IGraphFile>()
+            {
+                @Override
+                public IGraphFile call() throws Exception
+                {
+                    return new GraphFile(aFile);
+                }
+            }));
+        }
+        executor.shutdown();
+        return graphFiles;
     }
 
     /**
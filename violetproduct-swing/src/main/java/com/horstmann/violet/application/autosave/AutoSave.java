@@ -4,8 +4,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
 import javax.swing.Timer;
@@ -15,14 +16,10 @@ import com.horstmann.violet.framework.dialog.DialogFactory;
 import com.horstmann.violet.framework.file.GraphFile;
 import com.horstmann.violet.framework.file.IFile;
 import com.horstmann.violet.framework.file.LocalFile;
-import com.horstmann.violet.framework.file.persistence.IFilePersistenceService;
-import com.horstmann.violet.framework.file.persistence.IFileReader;
-import com.horstmann.violet.framework.file.persistence.JFileReader;
+import com.horstmann.violet.framework.file.persistence.EditJournal;
 import com.horstmann.violet.framework.injection.bean.ManiocFramework.BeanInjector;
-import com.horstmann.violet.framework.injection.bean.ManiocFramework.InjectedBean;
 import com.horstmann.violet.framework.injection.resources.ResourceBundleInjector;
 import com.horstmann.violet.framework.injection.resources.annotation.ResourceBundleBean;
-import com.horstmann.violet.product.diagram.abstracts.IGraph;
 import com.horstmann.violet.framework.file.IGraphFile;
 import com.horstmann.violet.workspace.IWorkspace;
 import com.horstmann.violet.workspace.Workspace;
@@ -38,6 +35,8 @@ public class AutoSave implements ActionListener {
 	private MainFrame mainFrame;
 	private Timer saveTimer;
 
+	private static final Logger LOGGER = Logger.getLogger(AutoSave.class.getName());
+
     private final int second = 1000;
     private final int saveInterval = 60 * second;
     private final String autoSaveDirectory = System.getProperty("user.home") + File.separator + "VioletUML";
@@ -81,23 +80,51 @@ public class AutoSave implements ActionListener {
 
 			for (File file: files)
 			{
+				if (file.getName().endsWith(GraphFile.TEMP_FILE_EXTENSION))
+				{
+					// Backup interrupted while being written, the previous one is still there
+					file.delete();
+					continue;
+				}
+				if (file.getName().endsWith(EditJournal.FILE_EXTENSION))
+				{
+					// Replayed with its backup
+					continue;
+				}
+				File journalFile = EditJournal.getJournalFile(file);
 				try {
 					IFile autoSaveFile = new LocalFile(file);
-					IFileReader readFile = new JFileReader(file);
-					InputStream in = readFile.getInputStream();
-					if (in != null)
-					{
-						IGraph graph = this.filePersistenceService.read(in);
-						IGraphFile graphFile = new GraphFile(autoSaveFile);
-					
-						IWorkspace workspace = new Workspace(graphFile);
-						mainFrame.addWorkspace(workspace);
-					
-						file.delete();
+					IGraphFile graphFile = new GraphFile(autoSaveFile);
+					try {
+						EditJournal.replay(file, graphFile.getGraph());
+					} catch (Exception e) {
+						// The checkpoint is still good, without the changes made since
+						LOGGER.log(Level.WARNING, "Unable to replay journal " + journalFile, e);
+						graphFile = new GraphFile(autoSaveFile);
 					}
+
+					IWorkspace workspace = new Workspace(graphFile);
+					mainFrame.addWorkspace(workspace);
 				} catch (IOException e) {
+					// Unreadable backups are dropped
+					LOGGER.log(Level.WARNING, "Unable to read backup " + file, e);
 					file.delete();
+					journalFile.delete();
+					continue;
 				} catch (Exception e) {
+					// Kept for the next start
+					LOGGER.log(Level.WARNING, "Unable to open backup " + file, e);
+					continue;
+				}
+				file.delete();
+				journalFile.delete();
+			}
+			// Journals whose backup is gone
+			for (File file: directory.listFiles())
+			{
+				if (file.getName().endsWith(EditJournal.FILE_EXTENSION) && !new File(file.getPath().substring(0,
+						file.getPath().length() - EditJournal.FILE_EXTENSION.length())).exists())
+				{
 					file.delete();
 				}
 			}
@@ -111,6 +138,10 @@ public class AutoSave implements ActionListener {
 		saveTimer.start();
 	}
 
+	/**
+	 * Runs on the event dispatch thread, where the graphs are edited. Each graph file only takes
+	 * a snapshot of its changes here and writes them in the background.
+	 */
 	@Override
 	public void actionPerformed(ActionEvent e) {
 	    for (IWorkspace workspace: mainFrame.getWorkspaceList())
@@ -122,7 +153,4 @@ public class AutoSave implements ActionListener {
 	    	}
 	    }
 	}
-
-	@InjectedBean
-	private IFilePersistenceService filePersistenceService;
 }
@@ -33,8 +33,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JMenuBar;
 import javax.swing.JPanel;
+import javax.swing.SwingConstants;
 import javax.swing.border.EmptyBorder;
 
 import com.horstmann.violet.application.autosave.AutoSave;
@@ -206,8 +208,59 @@ public class MainFrame extends JFrame
     }
     
     public void addWorkspace(IWorkspace newWorkspace) {
+        addWorkspace(newWorkspace, true);
+    }
+
+    /**
+     * Adds a workspace. Its editor part is only built the first time it is displayed.
+     * 
+     * @param newWorkspace
+     * @param isDisplayed true to display it at once, false to only list it in the document menu
+     */
+    public void addWorkspace(IWorkspace newWorkspace, boolean isDisplayed) {
         this.workspaceList.add(newWorkspace);
-        setActiveWorkspace(newWorkspace);
+        if (isDisplayed) {
+            setActiveWorkspace(newWorkspace);
+            return;
+        }
+        menuFactory.getDocumentMenu(this).updateMenuItem();
+    }
+
+    /**
+     * Displays a message until a workspace is displayed, while the files of the last session are being read
+     */
+    public void showLoadingPanel() {
+        if (getActiveWorkspace() != null) {
+            return;
+        }
+        JLabel loadingLabel = new JLabel(this.loadingMessage, SwingConstants.CENTER);
+        replaceCenterComponent(loadingLabel);
+        this.loadingPanel = loadingLabel;
+    }
+
+    /**
+     * Removes the loading message if it is still displayed, and displays the last workspace added instead
+     */
+    public void hideLoadingPanel() {
+        Component currentWorkspaceComponent = ((BorderLayout) getMainPanel().getLayout()).getLayoutComponent(BorderLayout.CENTER);
+        if (currentWorkspaceComponent != null && currentWorkspaceComponent == this.loadingPanel) {
+            if (!this.workspaceList.isEmpty()) {
+                setActiveWorkspace(this.workspaceList.get(this.workspaceList.size() - 1));
+            } else {
+                replaceCenterComponent(new JPanel());
+            }
+        }
+        this.loadingPanel = null;
+    }
+
+    private void replaceCenterComponent(Component newComponent) {
+        Component currentComponent = ((BorderLayout) getMainPanel().getLayout()).getLayoutComponent(BorderLayout.CENTER);
+        if (currentComponent != null) {
+            getMainPanel().remove(currentComponent);
+        }
+        getMainPanel().add(newComponent, BorderLayout.CENTER);
+        getMainPanel().revalidate();
+        getMainPanel().repaint();
     }
     
     
@@ -340,6 +393,14 @@ public class MainFrame extends JFrame
     @ResourceBundleBean(key="app.icon")
     private Image applicationIcon;
 
+    @ResourceBundleBean(key="workspace.loading")
+    private String loadingMessage;
+
+    /**
+     * Component displayed while the files of the last session are being read
+     */
+    private Component loadingPanel;
+
     /**
      * All disgram workspaces
      */
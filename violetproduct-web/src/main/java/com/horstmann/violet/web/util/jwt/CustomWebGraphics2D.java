@@ -3,7 +3,9 @@ package com.horstmann.violet.web.util.jwt;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints.Key;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.image.BufferedImage;
 
 import eu.webtoolkit.jwt.WPainter;
@@ -18,9 +20,43 @@ public class CustomWebGraphics2D extends WebGraphics2D {
 	 */
 	private Graphics2D hostGraphics2D;
 
+	/**
+	 * Area being painted again in device pixels, or null if everything is
+	 * painted
+	 */
+	private Rectangle paintArea;
+
 	public CustomWebGraphics2D(WPainter painter) {
 		super(painter);
 	}
+
+	/**
+	 * @param painter
+	 * @param paintArea area painted again, given as clip bounds so that
+	 *            components only draw what it contains. The painter is
+	 *            expected to clip it.
+	 */
+	public CustomWebGraphics2D(WPainter painter, Rectangle paintArea) {
+		super(painter);
+		this.paintArea = paintArea;
+	}
+
+	/**
+	 * @return the area painted again in user space, so that it follows the
+	 *         zoom and translations applied since
+	 */
+	@Override
+	public Rectangle getClipBounds() {
+		if (this.paintArea != null) {
+			try {
+				return getTransform().createInverse().createTransformedShape(this.paintArea).getBounds();
+			} catch (NoninvertibleTransformException e) {
+				// Nothing can be drawn with this transform anyway
+				return new Rectangle();
+			}
+		}
+		return super.getClipBounds();
+	}
 	
 
 	@Override
@@ -3,9 +3,11 @@ package com.horstmann.violet.web.workspace.editorpart;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.geom.Rectangle2D;
+import java.util.EnumSet;
 
 import com.horstmann.violet.web.util.jwt.CustomWebGraphics2D;
 import com.horstmann.violet.workspace.editorpart.IEditorPart;
@@ -14,6 +16,7 @@ import com.horstmann.violet.workspace.editorpart.IGrid;
 
 import eu.webtoolkit.jwt.Coordinates;
 import eu.webtoolkit.jwt.KeyboardModifier;
+import eu.webtoolkit.jwt.PaintFlag;
 import eu.webtoolkit.jwt.Signal1;
 import eu.webtoolkit.jwt.WFont;
 import eu.webtoolkit.jwt.WLength;
@@ -23,6 +26,7 @@ import eu.webtoolkit.jwt.WMouseEvent.Button;
 import eu.webtoolkit.jwt.WPaintDevice;
 import eu.webtoolkit.jwt.WPaintedWidget;
 import eu.webtoolkit.jwt.WPainter;
+import eu.webtoolkit.jwt.WPainterPath;
 
 public class EditorPartWidget extends WPaintedWidget {
 
@@ -34,6 +38,10 @@ public class EditorPartWidget extends WPaintedWidget {
 	private MouseEvent lastMouseEvent;
 	private boolean isDragDetected = false; // Used to avoid 'clicked' event after 'dragged" event
 
+	private Rectangle paintArea; // Areas to paint on top of the current drawing
+	private boolean isFullPaintRequired = false;
+	private Dimension preferredSize; // Editor size needed by the graph, kept until the graph bounds change
+
 	public EditorPartWidget(IEditorPart editorPart) {
 		setWidth(new WLength(100, Unit.Percentage));
 		setHeight(new WLength(100, Unit.Percentage));
@@ -55,7 +63,7 @@ public class EditorPartWidget extends WPaintedWidget {
 				if (Math.abs(deltaX - mouseDragGapX) >= grid.getSnappingWidth() || Math.abs(deltaY - mouseDragGapY) >= grid.getSnappingHeight()) {
 					behaviorManager.fireOnMouseDragged(mouseEvent);
 					fixEditorSize(event);
-					update();
+					repaintChanges();
 					mouseDragGapX = deltaX;
 					mouseDragGapY = deltaY;
 				}
@@ -85,9 +93,9 @@ public class EditorPartWidget extends WPaintedWidget {
 					return;
 				}
 				behaviorManager.fireOnMouseReleased(mouseEvent);
-				update();
 				lastMouseEvent = mouseEvent;
 				fixEditorSize(event);
+				repaintChanges();
 			}
 		});
 		clicked().addListener(this, new Signal1.Listener<WMouseEvent>() {
@@ -104,7 +112,7 @@ public class EditorPartWidget extends WPaintedWidget {
 				behaviorManager.fireOnMouseClicked(mouseEvent);
 				lastMouseEvent = mouseEvent;
 				fixEditorSize(event);
-				update();
+				repaintChanges();
 			}
 		});
 		doubleClicked().addListener(this, new Signal1.Listener<WMouseEvent>() {
@@ -117,7 +125,7 @@ public class EditorPartWidget extends WPaintedWidget {
 				behaviorManager.fireOnMouseClicked(mouseEvent);
 				lastMouseEvent = mouseEvent;
 				fixEditorSize(event);
-				update();
+				repaintChanges();
 			}
 		});
 		mouseWheel().addListener(this, new Signal1.Listener<WMouseEvent>() {
@@ -125,7 +133,7 @@ public class EditorPartWidget extends WPaintedWidget {
 			public void trigger(WMouseEvent event) {
 				MouseWheelEvent wheelEvent = convertMouseWheelEvent(event, MouseEvent.MOUSE_WHEEL, EditorPartWidget.this.editorPart.getSwingComponent());
 				behaviorManager.fireOnMouseWheelMoved(wheelEvent);
-				update();
+				repaintChanges();
 			}
 		});
 	}
@@ -176,8 +184,42 @@ public class EditorPartWidget extends WPaintedWidget {
 		return new MouseWheelEvent(c, type, System.currentTimeMillis(), modifiers, event.getWidget().x, event.getWidget().y, 1, false, MouseWheelEvent.WHEEL_UNIT_SCROLL, 1, -wheelDelta);
 	}
 
+	/**
+	 * Asks the browser to paint again the areas of the editor changed by the
+	 * last event, on top of the current drawing. Nothing is sent if nothing
+	 * has changed.
+	 */
+	private void repaintChanges() {
+		Rectangle area = this.editorPart.getDamageTracker().takeRepaintedArea();
+		if (area == null) {
+			return;
+		}
+		if (this.paintArea == null) {
+			this.paintArea = area;
+		} else {
+			this.paintArea.add(area);
+		}
+		update(EnumSet.of(PaintFlag.PaintUpdate));
+	}
+
+	@Override
+	public void update(EnumSet<PaintFlag> flags) {
+		// Other widgets may ask for a whole repaint while changed areas are waiting to be painted
+		if (!flags.contains(PaintFlag.PaintUpdate)) {
+			this.isFullPaintRequired = true;
+		}
+		super.update(flags);
+	}
+
+	/**
+	 * Paints the whole editor, or only the areas given by repaintChanges()
+	 * when the browser keeps the previous drawing
+	 */
 	@Override
 	protected void paintEvent(WPaintDevice paintDevice) {
+		Rectangle area = this.isFullPaintRequired ? null : this.paintArea;
+		this.paintArea = null;
+		this.isFullPaintRequired = false;
 		WPainter painter = new WPainter(paintDevice) {
 			@Override
 			public WFont getFont() {
@@ -186,9 +228,16 @@ public class EditorPartWidget extends WPaintedWidget {
 				return font;
 			}
 		};
-		painter.setClipping(false);
+		if (area != null) {
+			WPainterPath clipPath = new WPainterPath();
+			clipPath.addRect(area.x, area.y, area.width, area.height);
+			painter.setClipPath(clipPath);
+			painter.setClipping(true);
+		} else {
+			painter.setClipping(false);
+		}
 		paintDevice.init();
-		Graphics2D graphics = new CustomWebGraphics2D(painter);
+		Graphics2D graphics = new CustomWebGraphics2D(painter, area);
 		this.editorPart.getSwingComponent().paint(graphics);
 		paintDevice.done();
 	}
@@ -216,10 +265,16 @@ public class EditorPartWidget extends WPaintedWidget {
 	public void resize(int widthPixels, int heightPixels) {
 		this.editorPart.getSwingComponent().setSize(widthPixels, heightPixels);
 		super.resize(widthPixels, heightPixels);
+		// The browser clears the canvas when it is resized
+		this.isFullPaintRequired = true;
 	}
 
 	private void fixEditorSize(WMouseEvent event) {
-		Dimension preferredSize = this.editorPart.getSwingComponent().getPreferredSize();
+		// Only computed again when the graph bounds have changed, as it goes through the whole graph
+		if (this.preferredSize == null || this.editorPart.getDamageTracker().takeGraphBoundsChange()) {
+			this.preferredSize = this.editorPart.getSwingComponent().getPreferredSize();
+		}
+		Dimension preferredSize = this.preferredSize;
 		int gap = 10;
 		Coordinates mouseLocationRelativeToEditorPart = event.getWidget();
 		double graphWidth = Math.max(preferredSize.getWidth() + gap, mouseLocationRelativeToEditorPart.x + gap);
@@ -0,0 +1,46 @@
+package com.horstmann.violet.web.util.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+import eu.webtoolkit.jwt.WLength;
+import eu.webtoolkit.jwt.WPainter;
+import eu.webtoolkit.jwt.WSvgImage;
+
+public class CustomWebGraphics2DTest {
+
+	@Test
+	public void should_give_the_painted_area_in_user_space_when_zoomed() {
+		// given
+		WSvgImage paintDevice = new WSvgImage(new WLength(400), new WLength(400));
+		WPainter painter = new WPainter(paintDevice);
+		CustomWebGraphics2D graphics = new CustomWebGraphics2D(painter, new Rectangle(100, 60, 40, 20));
+
+		// when
+		graphics.scale(2, 2);
+		Rectangle clipBounds = graphics.getClipBounds();
+		graphics.fill(clipBounds);
+		painter.end();
+
+		// then
+		assertThat(clipBounds).isEqualTo(new Rectangle(50, 30, 20, 10));
+	}
+
+	@Test
+	public void should_give_the_painted_area_as_is_without_transform() {
+		// given
+		WSvgImage paintDevice = new WSvgImage(new WLength(400), new WLength(400));
+		WPainter painter = new WPainter(paintDevice);
+
+		// when
+		CustomWebGraphics2D graphics = new CustomWebGraphics2D(painter, new Rectangle(100, 60, 40, 20));
+
+		// then
+		assertThat(graphics.getClipBounds()).isEqualTo(new Rectangle(100, 60, 40, 20));
+		painter.end();
+	}
+
+}